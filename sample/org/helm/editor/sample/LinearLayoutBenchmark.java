@@ -0,0 +1,108 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.editor.sample;
+
+import org.helm.editor.data.GraphPair;
+import org.helm.editor.layout.StructuresLayoutModule;
+import org.helm.editor.layout.primitives.EditorViewLayoutPrimitives;
+import org.helm.editor.utility.Graph2NotationTranslator;
+import org.helm.editor.utility.NotationParser;
+
+import y.view.Graph2D;
+
+/**
+ * Compares the linear strand fast path of StructuresLayoutModule with the
+ * generic layouters for RNA strands of growing length, and reports the
+ * shortest strand for which the fast path wins.
+ */
+public class LinearLayoutBenchmark {
+
+    private static final int[] STRAND_LENGTHS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 20;
+
+    public static void main(String[] args) {
+        try {
+            int crossover = -1;
+            System.out.println("nucleotides\tgeneric ms\tfast path ms");
+            for (int length : STRAND_LENGTHS) {
+                String notation = createStrand(length);
+                double generic = measure(notation, false);
+                double fastPath = measure(notation, true);
+                System.out.println(length + "\t" + format(generic) + "\t" + format(fastPath));
+                if (crossover < 0 && fastPath < generic) {
+                    crossover = length;
+                }
+            }
+            if (crossover < 0) {
+                System.out.println("fast path did not win for any strand length");
+            } else {
+                System.out.println("fast path wins from " + crossover + " nucleotides on");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String createStrand(int length) {
+        StringBuilder sb = new StringBuilder("RNA1{");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append("R(A)P");
+        }
+        sb.append("}$$$$");
+        return sb.toString();
+    }
+
+    /**
+     * @return average milliseconds per layout; every run uses a freshly
+     *         built graph so the component layout cache does not apply
+     */
+    private static double measure(String notation, boolean fastPath) throws Exception {
+        long total = 0;
+        for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+            GraphPair pair = NotationParser.getGraphPair(notation);
+            Graph2NotationTranslator.updateHyperGraph(pair.getGraph(), pair.getGraphManager());
+            Graph2D graph = pair.getGraph();
+
+            StructuresLayoutModule layoutModule = new StructuresLayoutModule();
+            layoutModule.setLayoutPrimitives(new EditorViewLayoutPrimitives());
+            layoutModule.setLinearFastPathEnabled(fastPath);
+
+            long start = System.nanoTime();
+            layoutModule.start(graph);
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP_RUNS) {
+                total += elapsed;
+            }
+        }
+        return total / (MEASURED_RUNS * 1000000.0);
+    }
+
+    private static String format(double millis) {
+        return String.format("%.3f", millis);
+    }
+}
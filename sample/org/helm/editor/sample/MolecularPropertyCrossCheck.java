@@ -0,0 +1,109 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.editor.sample;
+
+import org.helm.editor.data.MonomerStoreCache;
+import org.helm.editor.utility.MolecularPropertyCalculator;
+import org.helm.notation.MonomerStore;
+import org.helm.notation.model.MoleculeInfo;
+import org.helm.notation.tools.ComplexNotationParser;
+import org.helm.notation.tools.StructureParser;
+
+/**
+ * Cross-checks the additive MolecularPropertyCalculator against the
+ * properties Marvin calculates from the SMILES of the whole notation, and
+ * reports every notation whose formula differs or whose molecular weight or
+ * exact mass differs by more than the tolerance. Notations given as
+ * arguments are checked instead of the built-in ones.
+ */
+public class MolecularPropertyCrossCheck {
+
+    private static final double MASS_TOLERANCE = 0.01;
+
+    private static final String[] NOTATIONS = {
+        // RNA, natural and modified nucleotides, terminal phosphate
+        "RNA1{R(A)P.R(C)P.R(G)P.R(U)}$$$$",
+        "RNA1{R(A)P.R(U)P.R(A)P.R(A)P.R(A)P.R(U)P.R(A)P.R(A)P}$$$$",
+        "RNA1{R(A)P.[mR]P.[mR](U)P.[mR](T)P.[dR](U)}$$$$",
+        "RNA1{[LR](A)[sP].[LR]([5meC])[sP].[dR](T)[sP].[dR](G)[sP].[LR](A)}$$$$",
+        // RNA with a branch connection
+        "RNA1{R(C)P.RP.R(A)P.RP.R(A)P.R(U)P}$RNA1,RNA1,4:R3-9:R3$$$",
+        // duplex, base pairs do not change the molecule
+        "RNA1{R(A)P.R(G)P.R(C)P.R(U)P.R(U)P.R(U)}|RNA2{R(A)P.R(A)P.R(A)P.R(G)P.R(C)P.R(U)}$$RNA1,RNA2,2:pair-17:pair|RNA1,RNA2,5:pair-14:pair|RNA1,RNA2,8:pair-11:pair$$",
+        // RNA conjugated to a chemical modifier
+        "RNA1{R(A)P.R(G)P.R(C)P.R(U)P.R(U)P.R(U)P}|CHEM1{SS3}$RNA1,CHEM1,18:R2-1:R1$$$",
+        // peptides, linear and with disulfide bridges
+        "PEPTIDE1{A.G.C.K.L.W.F}$$$$",
+        "PEPTIDE1{C.A.A.A.C}$PEPTIDE1,PEPTIDE1,1:R3-5:R3$$$",
+        "PEPTIDE1{A.G.C.K.L.L.K.K}|PEPTIDE2{A.G.K.C.[seC].G.C.L.A.G.K.[seC].G.C.A.L}$PEPTIDE2,PEPTIDE1,7:R3-3:R3|PEPTIDE2,PEPTIDE2,4:R3-14:R3$$$",
+        // unconnected components
+        "RNA1{R(A)P.R(U)}|PEPTIDE1{A.G.C}|CHEM1{SS3}$$$$"
+    };
+
+    public static void main(String[] args) {
+        try {
+            MonomerStore monomerStore = MonomerStoreCache.getInstance().getCombinedMonomerStore();
+            MolecularPropertyCalculator calculator = MolecularPropertyCalculator.getInstance();
+            String[] notations = (args.length > 0) ? args : NOTATIONS;
+
+            int differences = 0;
+            int notAdditive = 0;
+            for (String notation : notations) {
+                MoleculeInfo additive = calculator.calculate(notation, monomerStore);
+                if (additive == null) {
+                    System.out.println("NOT ADDITIVE\t" + notation);
+                    notAdditive++;
+                    continue;
+                }
+
+                String smiles = ComplexNotationParser.getComplexPolymerSMILES(notation, monomerStore);
+                MoleculeInfo reference = StructureParser.getMoleculeInfo(smiles);
+
+                boolean formulaDiffers = !reference.getMolecularFormula().equals(additive.getMolecularFormula());
+                double weightDelta = Math.abs(reference.getMolecularWeight() - additive.getMolecularWeight());
+                double massDelta = Math.abs(reference.getExactMass() - additive.getExactMass());
+                if (formulaDiffers || weightDelta > MASS_TOLERANCE || massDelta > MASS_TOLERANCE) {
+                    differences++;
+                    System.out.println("DIFFERS\t" + notation);
+                    System.out.println("\tformula\t" + reference.getMolecularFormula() + "\t" + additive.getMolecularFormula());
+                    System.out.println("\tweight\t" + format(reference.getMolecularWeight()) + "\t" + format(additive.getMolecularWeight()));
+                    System.out.println("\texact mass\t" + format(reference.getExactMass()) + "\t" + format(additive.getExactMass()));
+                } else {
+                    System.out.println("OK\t" + notation);
+                }
+            }
+
+            System.out.println(notations.length + " notations, " + differences + " differ, "
+                    + notAdditive + " not handled additively");
+            System.exit(differences == 0 ? 0 : 1);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static String format(double value) {
+        return String.format("%.4f", value);
+    }
+}
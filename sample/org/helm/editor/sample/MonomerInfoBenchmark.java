@@ -0,0 +1,129 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+package org.helm.editor.sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.helm.editor.data.GraphPair;
+import org.helm.editor.utility.NotationParser;
+
+/**
+ * Measures the graph construction that creates a MonomerInfo per node: the
+ * retained heap per node and the parse throughput, for strands of growing
+ * length. The heap figure covers the whole node with its realizer and graph
+ * data, compare it between builds to see what the shared attachment
+ * templates save.
+ */
+public class MonomerInfoBenchmark {
+
+    private static final int[] STRAND_LENGTHS = {10, 50, 100, 500, 1000};
+    private static final int RETAINED_GRAPHS = 20;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 20;
+
+    public static void main(String[] args) {
+        try {
+            System.out.println("notation\tnodes\tbytes per node\tms per parse\tnodes per s");
+            for (int length : STRAND_LENGTHS) {
+                report("RNA " + length, createRnaStrand(length));
+            }
+            for (int length : STRAND_LENGTHS) {
+                report("PEPTIDE " + length, createPeptideStrand(length));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void report(String name, String notation) throws Exception {
+        int nodes = NotationParser.getGraphPair(notation).getGraph().nodeCount();
+        double bytesPerNode = measureHeap(notation) / (double) (RETAINED_GRAPHS * nodes);
+        double millis = measureParse(notation);
+        System.out.println(name + "\t" + nodes + "\t" + String.format("%.0f", bytesPerNode)
+                + "\t" + String.format("%.3f", millis) + "\t" + String.format("%.0f", nodes * 1000 / millis));
+    }
+
+    private static String createRnaStrand(int length) {
+        StringBuilder sb = new StringBuilder("RNA1{");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append("R(A)P");
+        }
+        sb.append("}$$$$");
+        return sb.toString();
+    }
+
+    private static String createPeptideStrand(int length) {
+        StringBuilder sb = new StringBuilder("PEPTIDE1{");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append(i % 2 == 0 ? 'A' : 'G');
+        }
+        sb.append("}$$$$");
+        return sb.toString();
+    }
+
+    /**
+     * @return bytes retained by RETAINED_GRAPHS graphs of the notation
+     */
+    private static long measureHeap(String notation) throws Exception {
+        List<GraphPair> retained = new ArrayList<GraphPair>(RETAINED_GRAPHS);
+        long before = usedMemory();
+        for (int i = 0; i < RETAINED_GRAPHS; i++) {
+            retained.add(NotationParser.getGraphPair(notation));
+        }
+        long after = usedMemory();
+        // keeps the graphs reachable until they have been measured
+        retained.clear();
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return average milliseconds to parse the notation into a graph
+     */
+    private static double measureParse(String notation) throws Exception {
+        long total = 0;
+        for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            NotationParser.getGraphPair(notation);
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP_RUNS) {
+                total += elapsed;
+            }
+        }
+        return total / (MEASURED_RUNS * 1000000.0);
+    }
+}
@@ -27,11 +27,9 @@ import chemaxon.struc.Molecule;
 
 import java.awt.Cursor;
 import java.awt.event.ActionEvent;
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -41,7 +39,9 @@ import org.helm.editor.data.MonomerStoreCache;
 import org.helm.editor.editor.MacromoleculeEditor;
 import org.helm.editor.utility.ExceptionHandler;
 import org.helm.editor.utility.NotationParser;
+import org.helm.editor.worker.NotationImportWorker;
 import org.helm.editor.worker.PDBFileGenerator;
+import org.helm.editor.worker.StructureExportWorker;
 import org.helm.notation.MonomerFactory;
 import org.helm.notation.MonomerStore;
 import org.helm.notation.model.Monomer;
@@ -107,141 +107,81 @@ public class FileMenuAction extends TextMenuAction {
 				return;
 			}
 
-			String[] notations = new String[0];
-			try {
-				editor.getFrame().setCursor(
-						Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-				notations = ComplexNotationParser.decompose(notation);
-			} catch (Exception ex) {
-				ExceptionHandler.handleException(ex);
+			if (textType.equals(XHELM_TEXT_TYPE)) {
+				String textToSave = xHelmNotationExporter.writeXHELM(notation,
+						MonomerStoreCache.getInstance()
+								.getCombinedMonomerStore());
+				save(textToSave);
 				return;
-			} finally {
-				editor.getFrame().setCursor(
-						Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
 			}
 
-			String textToSave = null;
-			if (textType.equals(NOTATION_TEXT_TYPE)) {
-				StringBuilder sb = new StringBuilder();
-				try {
-					for (String helm : notations) {
-						String canHelm = ComplexNotationParser
-								.getCanonicalNotation(helm);
-						String processedNote = NotationParser
-								.addChemMonomerBracket(canHelm);
-						;
-						sb.append(processedNote);
-						sb.append("\n");
-					}
-				} catch (Exception ex) {
-					ExceptionHandler.handleException(ex);
-					return;
-				} finally {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+			StructureExportWorker.RecordConverter converter = getRecordConverter(textType);
+			File file = chooseSaveFile();
+			if (file != null) {
+				new StructureExportWorker(editor.getFrame(), notation, file,
+						converter, textType).execute();
+			}
+		}
+	}
+
+	/**
+	 * conversion of a single component for the record based formats
+	 * 
+	 * @param textType
+	 * @return converter
+	 */
+	private StructureExportWorker.RecordConverter getRecordConverter(
+			String textType) {
+		if (textType.equals(NOTATION_TEXT_TYPE)) {
+			return new StructureExportWorker.RecordConverter() {
+				public String convert(String helm, int index) throws Exception {
+					String canHelm = ComplexNotationParser
+							.getCanonicalNotation(helm);
+					return NotationParser.addChemMonomerBracket(canHelm) + "\n";
 				}
-				textToSave = sb.toString();
-			} else if (textType.equals(XHELM_TEXT_TYPE)) {
-				textToSave = xHelmNotationExporter.writeXHELM(notation,
-						MonomerStoreCache.getInstance()
-								.getCombinedMonomerStore());
-			} else if (textType.equals(CANONICAL_HELM_TEXT_TYPE)) {
-				StringBuilder sb = new StringBuilder();
-				try {
-					for (String helm : notations) {
-						String canHelm = ComplexNotationParser
-								.getCanonicalNotation(helm);
-						sb.append(canHelm);
-						sb.append("\n");
-					}
-				} catch (Exception ex) {
-					ExceptionHandler.handleException(ex);
-					return;
-				} finally {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+			};
+		} else if (textType.equals(CANONICAL_HELM_TEXT_TYPE)) {
+			return new StructureExportWorker.RecordConverter() {
+				public String convert(String helm, int index) throws Exception {
+					return ComplexNotationParser.getCanonicalNotation(helm)
+							+ "\n";
 				}
-				textToSave = sb.toString();
-			} else if (textType.equals(SMILES_TEXT_TYPE)) {
-				StringBuilder sb = new StringBuilder();
-				try {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-					for (String note : notations) {
-						String smiles = ComplexNotationParser
-								.getComplexPolymerSMILES(note);
-						Molecule mol = StructureParser.getMolecule(smiles);
-						mol.dearomatize();
-						mol.clean(2, null);
-						String text = mol.exportToFormat("smiles");
-						sb.append(text);
-						sb.append("\n");
-					}
-				} catch (Exception ex) {
-					ExceptionHandler.handleException(ex);
-					return;
-				} finally {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+			};
+		} else if (textType.equals(SMILES_TEXT_TYPE)) {
+			return new StructureExportWorker.RecordConverter() {
+				public String convert(String note, int index) throws Exception {
+					String smiles = ComplexNotationParser
+							.getComplexPolymerSMILES(note);
+					Molecule mol = StructureParser.getMolecule(smiles);
+					mol.dearomatize();
+					mol.clean(2, null);
+					return mol.exportToFormat("smiles") + "\n";
 				}
-				textToSave = sb.toString();
-
-			} else if (textType.equals(PDB_TEXT_TYPE)) {
-				StringBuilder sb = new StringBuilder();
-				try {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-					for (int i = 0; i < notations.length; i++) {
-						String note = notations[i];
-						String smiles = ComplexNotationParser
-								.getComplexPolymerSMILES(note);
-						String pdb = PDBFileGenerator
-								.SMILES2OpenBabelPDB(smiles);
-						pdb.replace("UNNAMED", "" + (i + 1));
-						sb.append(pdb);
-						sb.append("$$$$\n");
-					}
-				} catch (Exception ex) {
-					ExceptionHandler.handleException(ex);
-					return;
-				} finally {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+			};
+		} else if (textType.equals(PDB_TEXT_TYPE)) {
+			return new StructureExportWorker.RecordConverter() {
+				public String convert(String note, int index) throws Exception {
+					String smiles = ComplexNotationParser
+							.getComplexPolymerSMILES(note);
+					String pdb = PDBFileGenerator.SMILES2OpenBabelPDB(smiles);
+					return pdb + "$$$$\n";
 				}
-				textToSave = sb.toString();
-			} else if (textType.equals(MOLFILE_TEXT_TYPE)) {
-				StringBuilder sb = new StringBuilder();
-				try {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-					for (int i = 0; i < notations.length; i++) {
-						String note = notations[i];
-						String smiles = ComplexNotationParser
-								.getComplexPolymerSMILES(note);
-						Molecule mol = StructureParser.getMolecule(smiles);
-						mol.dearomatize();
-						mol.clean(2, null);
-						String text = mol.exportToFormat("mol");
-						text = "Record " + (i + 1) + " " + text;
-						sb.append(text);
-						sb.append("$$$$\n");
-					}
-				} catch (Exception ex) {
-					ExceptionHandler.handleException(ex);
-					return;
-				} finally {
-					editor.getFrame().setCursor(
-							Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+			};
+		} else if (textType.equals(MOLFILE_TEXT_TYPE)) {
+			return new StructureExportWorker.RecordConverter() {
+				public String convert(String note, int index) throws Exception {
+					String smiles = ComplexNotationParser
+							.getComplexPolymerSMILES(note);
+					Molecule mol = StructureParser.getMolecule(smiles);
+					mol.dearomatize();
+					mol.clean(2, null);
+					String text = mol.exportToFormat("mol");
+					return "Record " + (index + 1) + " " + text + "$$$$\n";
 				}
-
-				textToSave = sb.toString();
-			} else {
-				throw new UnsupportedOperationException(
-						"Unsupported structure format type :" + textType);
-			}
-
-			save(textToSave);
-
+			};
+		} else {
+			throw new UnsupportedOperationException(
+					"Unsupported structure format type :" + textType);
 		}
 	}
 
@@ -332,65 +272,65 @@ public class FileMenuAction extends TextMenuAction {
 		ModelController.notationUpdated(editorNotation, editor.getOwnerCode());
 	}
 
-	private void loadNotationFile(String fileName, String title) {
+	private void loadNotationFile(String fileName, final String title) {
+		new NotationImportWorker(editor.getFrame(), new File(fileName), title) {
+			@Override
+			protected void done() {
+				super.done();
+				if (isCancelled()) {
+					return;
+				}
 
-		List<String> notations = new ArrayList<String>();
-		try {
-			editor.getFrame().setCursor(
-					Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-			FileReader fr = new FileReader(fileName);
-			BufferedReader br = new BufferedReader(fr);
-			String line = br.readLine();
-			while (null != line) {
-				if (line.length() > 0) {
-					notations.add(line);
+				String fileNotation;
+				try {
+					fileNotation = get();
+				} catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					ExceptionHandler
+							.handleException((cause instanceof Exception) ? (Exception) cause
+									: ex);
+					return;
+				} catch (InterruptedException ex) {
+					return;
 				}
-				line = br.readLine();
+				notationFileLoaded(this, fileNotation, title);
 			}
-			fr.close();
-			br.close();
-		} catch (Exception ex) {
-			ExceptionHandler.handleException(ex);
-			return;
-		} finally {
-			editor.getFrame().setCursor(
-					Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
-		}
+		}.execute();
+	}
 
-		if (notations.isEmpty()) {
+	/**
+	 * adds the combined notation of an imported file to the editor
+	 * 
+	 * @param worker
+	 *            the finished import
+	 * @param fileNotation
+	 *            combined valid notations of the file, null if there are
+	 *            none
+	 * @param title
+	 */
+	private void notationFileLoaded(NotationImportWorker worker,
+			String fileNotation, String title) {
+		String fileName = worker.getFile().toString();
+		if (worker.getLineCount() == 0) {
 			JOptionPane.showMessageDialog(editor.getFrame(), "The input file "
 					+ fileName + " is empty!", title,
 					JOptionPane.WARNING_MESSAGE);
 			return;
 		}
 
-		List<String> invalidNotations = new ArrayList<String>();
-		for (int i = 0; i < notations.size(); i++) {
-			String note = notations.get(i);
-			note = NotationParser.removeChemMonomerBracket(note);
-			notations.set(i, note);
-			try {
-				ComplexNotationParser.validateComplexNotation(note);
-			} catch (Exception ex) {
-				invalidNotations.add(note);
-			}
-		}
-
-		if (!invalidNotations.isEmpty()) {
+		if (worker.getRejectedCount() > 0) {
 			int result = JOptionPane
 					.showConfirmDialog(
 							editor.getFrame(),
 							"The input file "
 									+ fileName
 									+ " contains "
-									+ invalidNotations.size()
+									+ worker.getRejectedCount()
 									+ " invalid notation(s),\ndo you want to skip them and continue?",
 							title, JOptionPane.YES_NO_OPTION,
 							JOptionPane.QUESTION_MESSAGE);
-			if (JOptionPane.NO_OPTION == result) {
+			if (JOptionPane.NO_OPTION == result || null == fileNotation) {
 				return;
-			} else {
-				notations.removeAll(invalidNotations);
 			}
 		}
 
@@ -409,24 +349,20 @@ public class FileMenuAction extends TextMenuAction {
 		}
 
 		if (null == editorNotation || editorNotation.trim().length() == 0) {
-			editorNotation = notations.get(0);
-			notations.remove(0);
-		}
-
-		try {
-			editor.getFrame().setCursor(
-					Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-			for (String note : notations) {
-				String standardNote = ComplexNotationParser.standardize(note);
+			editorNotation = fileNotation;
+		} else {
+			try {
+				editor.getFrame().setCursor(
+						Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 				editorNotation = ComplexNotationParser
-						.getCombinedComlexNotation(editorNotation, standardNote);
+						.getCombinedComlexNotation(editorNotation, fileNotation);
+			} catch (Exception ex) {
+				ExceptionHandler.handleException(ex);
+				return;
+			} finally {
+				editor.getFrame().setCursor(
+						Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
 			}
-		} catch (Exception ex) {
-			ExceptionHandler.handleException(ex);
-			return;
-		} finally {
-			editor.getFrame().setCursor(
-					Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
 		}
 
 		try {
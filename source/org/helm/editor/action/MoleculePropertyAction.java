@@ -22,15 +22,10 @@
 package org.helm.editor.action;
 
 import org.helm.editor.editor.MacromoleculeEditor;
-import org.helm.notation.model.MoleculeInfo;
-import org.helm.notation.tools.ComplexNotationParser;
+import org.helm.editor.worker.MoleculePropertyWorker;
 import org.helm.notation.tools.ExtinctionCoefficientCalculator;
-import org.helm.notation.tools.StructureParser;
-import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
@@ -50,7 +45,6 @@ import javax.swing.table.TableModel;
 public class MoleculePropertyAction extends AbstractAction {
 
 	private MacromoleculeEditor editor;
-	private NumberFormat nf = new DecimalFormat("#0.00");
 
 	public MoleculePropertyAction(MacromoleculeEditor editor) {
 		super("Molecule Properties");
@@ -58,72 +52,50 @@ public class MoleculePropertyAction extends AbstractAction {
 	}
 
 	public void actionPerformed(ActionEvent e) {
-		editor.getFrame().setCursor(
-				Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-		java.awt.EventQueue.invokeLater(new Runnable() {
-			public void run() {
-				JComponent message = createDisplay();
-				JOptionPane.showMessageDialog(editor.getFrame(), message,
-						"Molecular Properties", JOptionPane.INFORMATION_MESSAGE);
-			}
-		});
-		editor.getFrame().setCursor(
-				Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
-	}
-
-	private JComponent createDisplay() {
 		String notation = editor.getNotation();
+		JComponent message;
+		MoleculePropertyWorker worker = null;
 		if (null == notation || notation.trim().length() == 0) {
-			return new JLabel(
+			message = new JLabel(
 					"There is no structure to calculate molecular properties");
+		} else {
+			DefaultTableModel model = createModel();
+			worker = new MoleculePropertyWorker(notation,
+					editor.getMonomerStore(), model);
+			message = createDisplay(model);
+			worker.execute();
 		}
 
-		String mf = "N/A";
-		String mw = "N/A";
-		String em = "N/A";
-		String ec = "N/A";
-		String ecHeader = "Ext. Coefficient";
+		JOptionPane.showMessageDialog(editor.getFrame(), message,
+				"Molecular Properties", JOptionPane.INFORMATION_MESSAGE);
 
-		String smiles = null;
-		try {
-			smiles = ComplexNotationParser.getComplexPolymerSMILES(notation,
-					editor.getMonomerStore());
-		} catch (Exception ex) {
-			Logger.getLogger(MoleculePropertyAction.class.getName()).log(
-					Level.SEVERE, null, ex);
-		}
-
-		if (null != smiles) {
-			try {
-				MoleculeInfo mi = StructureParser.getMoleculeInfo(smiles);
-				mf = mi.getMolecularFormula();
-				mw = nf.format(mi.getMolecularWeight());
-				em = nf.format(mi.getExactMass());
-			} catch (Exception ex) {
-				Logger.getLogger(MoleculePropertyAction.class.getName()).log(
-						Level.SEVERE, null, ex);
-			}
+		// components calculated so far stay memoized
+		if (worker != null) {
+			worker.cancel(true);
 		}
+	}
 
+	private DefaultTableModel createModel() {
+		String pending = MoleculePropertyWorker.PENDING_VALUE;
+		String ecHeader = "Ext. Coefficient";
 		try {
 			ecHeader = "Ext. Coefficient ("
 					+ ExtinctionCoefficientCalculator.getInstance().getUnit(
 							ExtinctionCoefficientCalculator.RNA_UNIT_TYPE)
 					+ ")";
-			float extc = ExtinctionCoefficientCalculator.getInstance()
-					.calculateFromComplexNotation(notation,
-							ExtinctionCoefficientCalculator.RNA_UNIT_TYPE);
-			ec = nf.format(extc);
 		} catch (Exception ex) {
 			Logger.getLogger(MoleculePropertyAction.class.getName()).log(
 					Level.SEVERE, null, ex);
 		}
 
 		String[] columns = { "Property", "Value" };
-		String[][] data = { { "Molecular Formula", mf },
-				{ "Moleular Weight", mw }, { "Exact Mass", em },
-				{ ecHeader, ec } };
-		TableModel model = new DefaultTableModel(data, columns);
+		String[][] data = { { "Molecular Formula", pending },
+				{ "Moleular Weight", pending }, { "Exact Mass", pending },
+				{ ecHeader, pending } };
+		return new DefaultTableModel(data, columns);
+	}
+
+	private JComponent createDisplay(TableModel model) {
 		JTable table = new JTable(model);
 
 		// align column header text to the left
@@ -134,8 +106,8 @@ public class MoleculePropertyAction extends AbstractAction {
 
 		// set viewport size based on content
 		Dimension scrollSize = new Dimension(
-				table.getPreferredScrollableViewportSize().width, data.length
-						* table.getRowHeight());
+				table.getPreferredScrollableViewportSize().width,
+				model.getRowCount() * table.getRowHeight());
 		table.setPreferredScrollableViewportSize(scrollSize);
 		JScrollPane scroll = new JScrollPane();
 		scroll.setViewportView(table);
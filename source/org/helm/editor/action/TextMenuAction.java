@@ -185,20 +185,36 @@ public class TextMenuAction extends AbstractAction {
 		return fileFilter;
 	}
 
-	protected void save(String text) {
-		String title = "Save " + textType + " File";
+	/**
+	 * asks for the file to save the current text type to
+	 * 
+	 * @return the file with the extension of the text type, or null if the
+	 *         user cancelled
+	 */
+	protected File chooseSaveFile() {
 		TextFileFilter fileFilter = getTextFileFilter(textType);
 		chooser.setFileFilter(fileFilter);
 
-		if (chooser.showSaveDialog(editor.getFrame()) == JFileChooser.APPROVE_OPTION) {
-			String name = chooser.getSelectedFile().toString();
-			if (!name.endsWith(fileFilter.getExtension())) {
-				name = name + "." + fileFilter.getExtension();
-			}
+		if (chooser.showSaveDialog(editor.getFrame()) != JFileChooser.APPROVE_OPTION) {
+			return null;
+		}
+		String name = chooser.getSelectedFile().toString();
+		if (!name.endsWith(fileFilter.getExtension())) {
+			name = name + "." + fileFilter.getExtension();
+		}
+		return new File(name);
+	}
+
+	protected void save(String text) {
+		String title = "Save " + textType + " File";
+		File file = chooseSaveFile();
+
+		if (file != null) {
+			String name = file.toString();
 			try {
 				editor.getFrame().setCursor(
 						Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-				FileOutputStream fos = new FileOutputStream(new File(name));
+				FileOutputStream fos = new FileOutputStream(file);
 				fos.write(text.getBytes());
 				fos.close();
 				JOptionPane.showMessageDialog(editor.getFrame(), textType
@@ -24,15 +24,19 @@ package org.helm.editor.componentPanel;
 import org.helm.editor.componentPanel.componentviewpanel.ComponentTableView;
 import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewController;
 import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewControllerImpl;
+import org.helm.editor.controller.ModelController;
 import org.helm.editor.data.NotationUpdateEvent;
 import org.helm.editor.data.DataListener;
 import org.helm.editor.data.GraphManager;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.utility.ExceptionHandler;
+import org.helm.editor.worker.SequenceViewWorker;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 import y.view.Graph2D;
 import y.view.Graph2DView;
 
@@ -46,6 +50,7 @@ public class SequenceViewPanes extends JPanel implements DataListener {
 	private SequenceViewController sequenceViewController;
 	private ComponentTableView componentTableView;
 	private String _owner;
+	private SequenceViewWorker viewWorker;
 
 	public SequenceViewPanes(String owner) {
 		_owner = owner;
@@ -55,7 +60,7 @@ public class SequenceViewPanes extends JPanel implements DataListener {
 		tabbedPane = new JTabbedPane();
 		tabbedPane.setPreferredSize(new Dimension(100, 50));
 
-		sequenceViewController = new SequenceViewControllerImpl();
+		sequenceViewController = new SequenceViewControllerImpl(false);
 		JPanel sequenceView = new JPanel();
 		sequenceView.setLayout(new BorderLayout());
 		sequenceView.add(sequenceViewController.getSequenceView(),
@@ -95,17 +100,92 @@ public class SequenceViewPanes extends JPanel implements DataListener {
 		}
 	}
 
+	/**
+	 * shows a notation that has already been parsed for another view
+	 * 
+	 * @param parsedNotation
+	 */
+	public void setNotation(ParsedNotation parsedNotation) {
+
+		try {
+			sequenceViewController.setNotation(parsedNotation);
+		} catch (Exception ex) {
+			ExceptionHandler.handleException(ex);
+		}
+
+		componentTableView.setNotation(parsedNotation);
+	}
+
 	public Graph2DView getSequenceView() {
 		return sequenceViewController.getView();
 	}
 
-	public void onUpdate(NotationUpdateEvent event) {
+	public void onUpdate(final NotationUpdateEvent event) {
 
 		if (!event.getOwner().equals(_owner)) {
 			return;
 		}
 
-		String notation = event.getData();
-		setNotation(notation);
+		// coalesce bursts of updates, only the latest one is shown
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				if (ModelController.getInstance().isSuperseded(event)) {
+					return;
+				}
+
+				cancelViewWorker();
+				String notation = event.getData();
+				if (notation == null || notation.length() == 0) {
+					setNotation(notation);
+					return;
+				}
+
+				// parsing (shared with the editor) and layout are done in the
+				// background, only the finished views are swapped in here
+				viewWorker = new SequenceViewWorker(SequenceViewPanes.this,
+						sequenceViewController, event, ModelController
+								.getInstance().getCancellationToken(event));
+				viewWorker.execute();
+			}
+		});
+	}
+
+	private void cancelViewWorker() {
+		if (viewWorker != null) {
+			viewWorker.cancel(false);
+			viewWorker = null;
+		}
+	}
+
+	/**
+	 * Called on the event dispatch thread when a view worker is done. Results
+	 * of workers that have been superseded are ignored.
+	 * 
+	 * @param worker
+	 * @param result
+	 *            the built views, or null if the worker failed or was
+	 *            cancelled
+	 */
+	public void sequenceViewBuilt(SequenceViewWorker worker,
+			SequenceViewWorker.Result result) {
+		if (worker != viewWorker) {
+			return;
+		}
+		viewWorker = null;
+		if (result == null) {
+			return;
+		}
+
+		if (result.getGraph() != null) {
+			sequenceViewController.showGraph(result.getGraph());
+		} else {
+			ExceptionHandler.handleException(result.getGraphException());
+		}
+
+		if (result.getRows() != null) {
+			componentTableView.setData(result.getRows());
+		} else {
+			ExceptionHandler.handleException(result.getRowsException());
+		}
 	}
 }
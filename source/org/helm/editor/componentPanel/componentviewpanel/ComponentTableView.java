@@ -24,6 +24,7 @@ package org.helm.editor.componentPanel.componentviewpanel;
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
+import java.util.List;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -38,9 +39,11 @@ import org.helm.notation.MonomerException;
 import org.helm.notation.NotationException;
 import org.helm.notation.StructureException;
 import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewLayout;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.renderer.HELMGraphTableCellRenderer;
 import org.helm.editor.renderer.PeptideTableCellRenderer;
 import org.helm.editor.renderer.RNATableCellRenderer;
+import org.helm.editor.renderer.TableRowPrefetcher;
 import org.helm.editor.utility.JTableRowResizer;
 import java.awt.Dimension;
 import java.awt.event.ActionListener;
@@ -127,6 +130,7 @@ public class ComponentTableView extends JPanel {
 		}
 
 		JScrollPane scrollPane = new JScrollPane(table);
+		TableRowPrefetcher.install(table);
 		return scrollPane;
 	}
 
@@ -155,6 +159,27 @@ public class ComponentTableView extends JPanel {
 		tableModel.init(notation);
 	}
 
+	/**
+	 * shows the components of a notation that has already been parsed
+	 * 
+	 * @param parsedNotation
+	 */
+	public synchronized void setNotation(ParsedNotation parsedNotation) {
+		tableModel.init(parsedNotation);
+		repaint();
+	}
+
+	/**
+	 * shows rows built off the event dispatch thread by
+	 * {@link SequenceTableModel#createData(ParsedNotation)}
+	 * 
+	 * @param rows
+	 */
+	public void setData(List<SequenceTableDataModel> rows) {
+		tableModel.setData(rows);
+		repaint();
+	}
+
 	public synchronized void reset() {
 		tableModel.clear();
 	}
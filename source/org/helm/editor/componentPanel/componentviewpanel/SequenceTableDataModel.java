@@ -22,9 +22,9 @@
 package org.helm.editor.componentPanel.componentviewpanel;
 
 import org.helm.editor.data.MonomerStoreCache;
+import org.helm.editor.utility.MolecularPropertyCalculator;
 import org.helm.notation.MonomerStore;
 import org.helm.notation.model.MoleculeInfo;
-import org.helm.notation.tools.ComplexNotationParser;
 import org.helm.notation.tools.ExtinctionCoefficientCalculator;
 
 import java.text.DecimalFormat;
@@ -111,8 +111,8 @@ public class SequenceTableDataModel {
 			// ComplexNotationParser.getComplexPolymerSMILES(notation);
 			// MoleculeInfo mi = StructureParser.getMoleculeInfo(smiles);
 
-			MoleculeInfo mi = ComplexNotationParser.getMoleculeInfo(notation,
-					monomerStore);
+			MoleculeInfo mi = MolecularPropertyCalculator.getInstance()
+					.getMoleculeInfo(notation, monomerStore);
 			dataModel.molWt = decimalFormat.format(mi.getMolecularWeight());
 			dataModel.molFormula = mi.getMolecularFormula();
 		} catch (Exception e) {
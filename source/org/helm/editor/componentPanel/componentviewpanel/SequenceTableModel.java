@@ -22,11 +22,16 @@
 package org.helm.editor.componentPanel.componentviewpanel;
 
 import org.helm.editor.data.MonomerStoreCache;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.utility.ExceptionHandler;
+import org.helm.notation.MonomerException;
 import org.helm.notation.MonomerStore;
+import org.helm.notation.NotationException;
+import org.helm.notation.StructureException;
 import org.helm.notation.tools.ComplexNotationParser;
 import org.helm.notation.tools.ExtinctionCoefficientCalculator;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -34,6 +39,8 @@ import java.util.logging.Logger;
 
 import javax.swing.table.AbstractTableModel;
 
+import org.jdom.JDOMException;
+
 public class SequenceTableModel extends AbstractTableModel {
 
 	private static String ecColumn = "Ext. Coefficient";
@@ -64,18 +71,24 @@ public class SequenceTableModel extends AbstractTableModel {
 		try {
 			MonomerStore monomerStore = MonomerStoreCache.getInstance()
 					.getCombinedMonomerStore();
-			String[] compNotations = ComplexNotationParser.decompose(notation,
+			init(ComplexNotationParser.decompose(notation, monomerStore),
 					monomerStore);
-			List<SequenceTableDataModel> list = new ArrayList<SequenceTableDataModel>();
-			for (int rowNumber = 1; rowNumber <= compNotations.length; rowNumber++) {
-				SequenceTableDataModel dataModel = SequenceTableDataModel
-						.createSequenceTableDataModel(
-								compNotations[rowNumber - 1], monomerStore);
-				dataModel.setAnnotation(String.valueOf(rowNumber));
-				list.add(dataModel);
-			}
-			setData(list);
+		} catch (Exception ex) {
+			ExceptionHandler.handleException(ex);
+			Logger.getLogger(SequenceTableModel.class.getName()).log(
+					Level.SEVERE, null, ex);
+		}
+	}
 
+	/**
+	 * fills the table from the components of an already parsed notation
+	 * 
+	 * @param parsedNotation
+	 */
+	public void init(ParsedNotation parsedNotation) {
+		try {
+			init(parsedNotation.getComponentNotations(),
+					parsedNotation.getMonomerStore());
 		} catch (Exception ex) {
 			ExceptionHandler.handleException(ex);
 			Logger.getLogger(SequenceTableModel.class.getName()).log(
@@ -83,6 +96,39 @@ public class SequenceTableModel extends AbstractTableModel {
 		}
 	}
 
+	private void init(String[] compNotations, MonomerStore monomerStore) {
+		setData(createData(compNotations, monomerStore));
+	}
+
+	/**
+	 * builds the rows for the components of a parsed notation without
+	 * touching the table, so that it can be done off the event dispatch
+	 * thread; the rows are shown with {@link #setData(List)}
+	 * 
+	 * @param parsedNotation
+	 * @return one row per component
+	 */
+	public static List<SequenceTableDataModel> createData(
+			ParsedNotation parsedNotation) throws NotationException,
+			MonomerException, IOException, JDOMException, StructureException,
+			ClassNotFoundException {
+		return createData(parsedNotation.getComponentNotations(),
+				parsedNotation.getMonomerStore());
+	}
+
+	private static List<SequenceTableDataModel> createData(
+			String[] compNotations, MonomerStore monomerStore) {
+		List<SequenceTableDataModel> list = new ArrayList<SequenceTableDataModel>();
+		for (int rowNumber = 1; rowNumber <= compNotations.length; rowNumber++) {
+			SequenceTableDataModel dataModel = SequenceTableDataModel
+					.createSequenceTableDataModel(compNotations[rowNumber - 1],
+							monomerStore);
+			dataModel.setAnnotation(String.valueOf(rowNumber));
+			list.add(dataModel);
+		}
+		return list;
+	}
+
 	@Override
 	public String getColumnName(int col) {
 		return columnNames[col];
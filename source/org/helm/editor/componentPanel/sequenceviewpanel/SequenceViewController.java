@@ -32,6 +32,7 @@ import y.view.Graph2DView;
 import org.helm.notation.MonomerException;
 import org.helm.notation.NotationException;
 import org.helm.notation.StructureException;
+import org.helm.editor.data.ParsedNotation;
 
 public interface SequenceViewController {
 
@@ -42,6 +43,35 @@ public interface SequenceViewController {
 	void setNotation(String notation) throws NotationException,
 			MonomerException, IOException, JDOMException, StructureException;
 
+	/**
+	 * shows a notation that has already been parsed, e.g. by another view of
+	 * the same update
+	 * 
+	 * @param parsedNotation
+	 */
+	void setNotation(ParsedNotation parsedNotation) throws NotationException,
+			MonomerException, IOException, JDOMException, StructureException;
+
+	/**
+	 * Builds and lays out the graph of a parsed notation without showing it.
+	 * No view or other Swing component is created, so it can be called off
+	 * the event dispatch thread. Such graphs are not cached.
+	 * 
+	 * @param parsedNotation
+	 * @return graph to pass to {@link #showGraph(SequenceViewGraph)}
+	 */
+	SequenceViewGraph buildGraph(ParsedNotation parsedNotation)
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException;
+
+	/**
+	 * shows a graph built by {@link #buildGraph(ParsedNotation)}, must be
+	 * called on the event dispatch thread
+	 * 
+	 * @param graph
+	 */
+	void showGraph(SequenceViewGraph graph);
+
 	Graph2DView getView();
 
 	void minimizeGaps();
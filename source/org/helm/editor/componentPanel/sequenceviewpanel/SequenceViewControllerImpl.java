@@ -39,9 +39,11 @@ import org.helm.notation.MonomerException;
 import org.helm.notation.NotationException;
 import org.helm.notation.StructureException;
 import org.helm.editor.controller.CacheController;
+import org.helm.editor.controller.LayoutSnapshot;
 import org.helm.editor.data.EdgeMapKeys;
 import org.helm.editor.data.NodeMapKeys;
 import org.helm.editor.data.NotationUpdateEvent;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.editor.EditorViewModel;
 import org.helm.editor.editor.EditorViewModelImpl;
 
@@ -53,12 +55,27 @@ import org.helm.editor.editor.EditorViewModelImpl;
 public class SequenceViewControllerImpl implements SequenceViewController {
 
 	private volatile SequenceViewLayout _sequenceViewLayout;
-	private boolean layoutMode;
-	// IMPORTANT! TURN ON BEFORE PRODUCTION
-	private static final boolean USE_CACHE = false;
+	private volatile boolean layoutMode;
+	private static final boolean USE_CACHE = true;
 	private static final int DEFAULT_NUMBER_SEQUENCES = 2;
 
+	/**
+	 * false for controllers whose views have to stay editable, a cached view
+	 * carries no monomer data
+	 */
+	private final boolean cacheEnabled;
+
 	public SequenceViewControllerImpl() {
+		this(true);
+	}
+
+	/**
+	 * @param cacheEnabled
+	 *            whether laid out views may be taken from and put into the
+	 *            {@link CacheController}
+	 */
+	public SequenceViewControllerImpl(boolean cacheEnabled) {
+		this.cacheEnabled = cacheEnabled;
 
 		_sequenceViewLayout = new SequenceViewLayoutImpl();
 
@@ -74,7 +91,13 @@ public class SequenceViewControllerImpl implements SequenceViewController {
 			}
 		});
 
-		Graph2D graph = currnetView.getGraph2D();
+		addDataProviders(currnetView.getGraph2D());
+
+		currnetView.getCanvasComponent().addMouseWheelListener(
+				new Graph2DViewMouseWheelZoomListener());
+	}
+
+	private static void addDataProviders(Graph2D graph) {
 		NodeMap modificationCountMap = graph.createNodeMap();
 		graph.addDataProvider(SequenceViewModel.MODIFICATION_COUNT,
 				modificationCountMap);
@@ -84,9 +107,6 @@ public class SequenceViewControllerImpl implements SequenceViewController {
 		graph.addDataProvider(SequenceViewModel.LABELS_MAP,
 				graph.createNodeMap());
 		graph.addDataProvider(NodeMapKeys.LABEL_INFO_MAP, graph.createNodeMap());
-
-		currnetView.getCanvasComponent().addMouseWheelListener(
-				new Graph2DViewMouseWheelZoomListener());
 	}
 
 	/**
@@ -135,19 +155,56 @@ public class SequenceViewControllerImpl implements SequenceViewController {
 	public synchronized void setNotation(String notation)
 			throws NotationException, MonomerException, IOException,
 			JDOMException, StructureException {
+		setNotation(notation, null);
+	}
+
+	public synchronized void setNotation(ParsedNotation parsedNotation)
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException {
+		setNotation(parsedNotation.getNotation(), parsedNotation);
+	}
+
+	public SequenceViewGraph buildGraph(ParsedNotation parsedNotation)
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException {
+		Graph2D graph = new Graph2D();
+		addDataProviders(graph);
+
+		return _sequenceViewLayout.buildGraph(graph, new EditorViewModelImpl(
+				parsedNotation), layoutMode, isComposite(parsedNotation
+				.getNotation()));
+	}
+
+	public void showGraph(SequenceViewGraph graph) {
+		_sequenceViewLayout.showGraph(graph);
+	}
+
+	/**
+	 * @param notation
+	 * @param parsedNotation
+	 *            the parsed notation, or null if it has to be parsed here
+	 */
+	private void setNotation(String notation, ParsedNotation parsedNotation)
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException {
 		if (notation == null || notation.length() == 0) {
 			_sequenceViewLayout.reset();
 			return;
 		}
 
-		CacheController cacheController = CacheController.getInstance();
+		String cacheKey = isCacheEnabled() ? CacheController.createKey(
+				notation, layoutMode) : null;
+		LayoutSnapshot snapshot = checkCache(cacheKey);
 
-		if (checkCache(notation)) {
-			_sequenceViewLayout.replaceView(initializeCachedView(notation));
+		if (snapshot != null) {
+			_sequenceViewLayout.showGraph(new SequenceViewGraph(
+					createCachedGraph(snapshot), null, null, null, snapshot
+							.isComposite()));
 		} else {
 			EditorViewModel editorModel = null;
 			// try {
-			editorModel = new EditorViewModelImpl(notation);
+			editorModel = (parsedNotation != null) ? new EditorViewModelImpl(
+					parsedNotation) : new EditorViewModelImpl(notation);
 			// } catch (Exception e) {
 			// _sequenceViewLayout.appendErrorNode();
 			// return;
@@ -155,10 +212,15 @@ public class SequenceViewControllerImpl implements SequenceViewController {
 
 			_sequenceViewLayout.setLayoutMode(layoutMode);
 			_sequenceViewLayout.setupEditorModel(editorModel);
-			_sequenceViewLayout.setComposteFlag(isComposite(notation));
-
-			cacheController.addToCache(notation,
-					_sequenceViewLayout.copyGraph2DView());
+			boolean composite = isComposite(notation);
+			_sequenceViewLayout.setComposteFlag(composite);
+
+			if (isCacheEnabled()) {
+				CacheController.getInstance().addToCache(
+						cacheKey,
+						LayoutSnapshot.of(_sequenceViewLayout.getGraph2DView()
+								.getGraph2D(), composite));
+			}
 		}
 	}
 
@@ -204,44 +266,31 @@ public class SequenceViewControllerImpl implements SequenceViewController {
 		_sequenceViewLayout.updateAlignment();
 	}
 
-	private Graph2DView initializeCachedView(String notation) {
-
-		CacheController cacheController = CacheController.getInstance();
-
-		Graph2DView cachedView = cacheController.getCachedValue(notation);
+	/**
+	 * the graph of a snapshot is shown in the existing view, so the next
+	 * notation that is not cached is laid out into it as well and needs the
+	 * same data providers as the initial graph
+	 */
+	private static Graph2D createCachedGraph(LayoutSnapshot snapshot) {
 
-		Graph2D copyGraph = new Graph2D(cachedView.getGraph2D());
-		copyGraph.addDataProvider(SequenceViewModel.MODIFICATION_COUNT,
-				copyGraph.createNodeMap());
+		Graph2D copyGraph = snapshot.createGraph();
+		addDataProviders(copyGraph);
 		copyGraph.addDataProvider(NodeMapKeys.MONOMER_REF,
 				copyGraph.createNodeMap());
-		copyGraph.addDataProvider(EdgeMapKeys.EDGE_INFO,
-				copyGraph.createEdgeMap());
 
-		Graph2DView view = new Graph2DView(copyGraph);
-		return view;
+		return copyGraph;
 	}
 
-	private boolean checkCache(String notation) {
-		if (isFromPanes()) {
-			return false;
-		}
-
-		CacheController cacheController = CacheController.getInstance();
-		if (USE_CACHE && cacheController.isValueInCache(notation)) {
-			return true;
+	private LayoutSnapshot checkCache(String cacheKey) {
+		if (!isCacheEnabled()) {
+			return null;
 		}
 
-		return false;
+		return CacheController.getInstance().getCachedValue(cacheKey);
 	}
 
-	private boolean isFromPanes() {
-		for (StackTraceElement se : Thread.currentThread().getStackTrace()) {
-			if (se.getClassName().contains("SequenceViewPanes")) {
-				return true;
-			}
-		}
-		return false;
+	private boolean isCacheEnabled() {
+		return USE_CACHE && cacheEnabled;
 	}
 
 	public void setLayoutMode(boolean mode) {
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.componentPanel.sequenceviewpanel;
+
+import y.view.Graph2D;
+
+import org.helm.editor.editor.EditorView;
+import org.helm.editor.editor.EditorViewModel;
+
+/**
+ * A laid out sequence graph together with the models it was built from. It is
+ * not bound to a view, so it can be built off the event dispatch thread and
+ * handed to {@link SequenceViewLayout#showGraph(SequenceViewGraph)}. A graph
+ * taken from the layout cache comes without models.
+ */
+public class SequenceViewGraph {
+
+	private final Graph2D graph;
+	private final EditorViewModel editorModel;
+	private final EditorView editorView;
+	private final SequenceViewModel viewModel;
+	private final boolean composite;
+
+	public SequenceViewGraph(Graph2D graph, EditorViewModel editorModel,
+			EditorView editorView, SequenceViewModel viewModel,
+			boolean composite) {
+		this.graph = graph;
+		this.editorModel = editorModel;
+		this.editorView = editorView;
+		this.viewModel = viewModel;
+		this.composite = composite;
+	}
+
+	public Graph2D getGraph() {
+		return graph;
+	}
+
+	public EditorViewModel getEditorModel() {
+		return editorModel;
+	}
+
+	public EditorView getEditorView() {
+		return editorView;
+	}
+
+	public SequenceViewModel getViewModel() {
+		return viewModel;
+	}
+
+	public boolean isComposite() {
+		return composite;
+	}
+}
@@ -33,6 +33,7 @@ import org.helm.notation.NotationException;
 import org.helm.notation.StructureException;
 import org.helm.editor.editor.EditorViewModel;
 
+import y.view.Graph2D;
 import y.view.Graph2DView;
 
 public interface SequenceViewLayout {
@@ -59,6 +60,35 @@ public interface SequenceViewLayout {
 
 	void replaceView(Graph2DView view);
 
+	/**
+	 * lays out an editor model into a graph that is not shown, the shown graph
+	 * and the models of this layout are left alone. It only reads the metrics
+	 * of this layout and may be called off the event dispatch thread.
+	 * 
+	 * @param graph
+	 *            empty graph to build into
+	 * @param editorModel
+	 * @param layoutMode
+	 *            true for the component view layout
+	 * @param compositeFlag
+	 * @return the built graph to pass to {@link #showGraph(SequenceViewGraph)}
+	 */
+	SequenceViewGraph buildGraph(Graph2D graph, EditorViewModel editorModel,
+			boolean layoutMode, boolean compositeFlag)
+			throws NotationException, JDOMException, MonomerException,
+			IOException;
+
+	/**
+	 * shows a graph built by
+	 * {@link #buildGraph(Graph2D, EditorViewModel, boolean, boolean)}. Unlike
+	 * {@link #replaceView(Graph2DView)} the view of this layout and its
+	 * listeners are kept. Must be called on the event dispatch thread once the
+	 * layout is shown.
+	 * 
+	 * @param graph
+	 */
+	void showGraph(SequenceViewGraph graph);
+
 	void refreshLayout();
 
 	void updateAlignment();
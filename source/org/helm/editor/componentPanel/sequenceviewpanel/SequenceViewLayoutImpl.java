@@ -170,6 +170,21 @@ public class SequenceViewLayoutImpl extends JPanel implements
 		_view.getGraph2D().clear();
 
 		Graph2D viewGraph = _view.getGraph2D();
+		addViewDataProviders(viewGraph);
+
+		viewModel = new SequenceViewModelImpl(viewGraph);
+		_labelConstructor.setUpView(viewModel);
+
+		if (!editorModel.isEmpty()) {
+			transform(viewGraph, viewModel, editorModel, _elementsFactory);
+			runLayout(viewGraph, _labelConstructor, isLayoutForComponentView);
+			viewGraph.updateViews();
+		}
+
+		_layoutMetrics.updateView();
+	}
+
+	private static void addViewDataProviders(Graph2D viewGraph) {
 		viewGraph.addDataProvider(SequenceViewModel.MODIFICATION_COUNT,
 				viewGraph.createNodeMap());
 		viewGraph.addDataProvider(NodeMapKeys.MONOMER_REF,
@@ -187,16 +202,6 @@ public class SequenceViewLayoutImpl extends JPanel implements
 				viewGraph.createNodeMap());
 		viewGraph.addDataProvider(NodeMapKeys.HYPERNODE2STARTING_NODE,
 				viewGraph.createNodeMap());
-
-		viewModel = new SequenceViewModelImpl(viewGraph);
-		_labelConstructor.setUpView(viewModel);
-
-		if (!editorModel.isEmpty()) {
-			transform();
-			runLayout();
-		}
-
-		_layoutMetrics.updateView();
 	}
 
 	public void appendErrorNode() {
@@ -230,6 +235,55 @@ public class SequenceViewLayoutImpl extends JPanel implements
 		super.repaint();
 	}
 
+	public SequenceViewGraph buildGraph(Graph2D graph,
+			EditorViewModel builtEditorModel, boolean layoutMode,
+			boolean compositeFlag) throws NotationException, JDOMException,
+			MonomerException, IOException {
+		addViewDataProviders(graph);
+
+		EditorView builtEditorView = builtEditorModel.renderView();
+		SequenceViewModel builtViewModel = new SequenceViewModelImpl(graph);
+
+		// own constructors, the ones of this layout are bound to the shown
+		// graph
+		GraphElementConstructor elementsFactory = new ViewElementsConstructor(
+				graph, builtViewModel, _layoutMetrics);
+		LabelConstructor labelConstructor = new LabelConstructor(
+				_layoutMetrics, builtEditorView, builtEditorModel,
+				builtViewModel, elementsFactory, graph);
+
+		if (!builtEditorModel.isEmpty()) {
+			transform(graph, builtViewModel, builtEditorModel, elementsFactory);
+			runLayout(graph, labelConstructor, layoutMode);
+		}
+
+		return new SequenceViewGraph(graph, builtEditorModel, builtEditorView,
+				builtViewModel, compositeFlag);
+	}
+
+	public void showGraph(SequenceViewGraph built) {
+		Graph2D graph = built.getGraph();
+		_view.setGraph2D(graph);
+
+		viewModel = built.getViewModel();
+		editorModel = built.getEditorModel();
+		editorView = built.getEditorView();
+		isCompositeChain = built.isComposite();
+		startingNodelayoutNodeMap.clear();
+
+		// rebind to the shown graph so that later edits and error nodes end
+		// up in it
+		_elementsFactory = new ViewElementsConstructor(graph, viewModel,
+				_layoutMetrics);
+		_labelConstructor = new LabelConstructor(_layoutMetrics, editorView,
+				editorModel, viewModel, _elementsFactory, graph);
+
+		graph.updateViews();
+		_layoutMetrics.updateView();
+		revalidate();
+		super.repaint();
+	}
+
 	public void setupEditorModel(EditorViewModel newEditorModel)
 			throws NotationException, JDOMException, MonomerException,
 			IOException {
@@ -280,31 +334,31 @@ public class SequenceViewLayoutImpl extends JPanel implements
 		isLayoutForComponentView = mode;
 	}
 
-	private void runLayout() {
+	private void runLayout(Graph2D graph, LabelConstructor labelConstructor,
+			boolean componentViewLayout) {
 		// hack to use layout module
-		AbstractLayoutPrimitives layoutPrimitives = isLayoutForComponentView ? new ComponentViewLayoutPrimitives(
-				_labelConstructor, _layoutMetrics)
-				: new SequenceViewLayoutPrimitives(_labelConstructor,
+		AbstractLayoutPrimitives layoutPrimitives = componentViewLayout ? new ComponentViewLayoutPrimitives(
+				labelConstructor, _layoutMetrics)
+				: new SequenceViewLayoutPrimitives(labelConstructor,
 						_layoutMetrics);
 
 		StructuresLayoutModule layoutModule = new StructuresLayoutModule();
 		layoutModule.setLayoutPrimitives(layoutPrimitives);
-		layoutModule.start(_view.getGraph2D());
-
-		layoutPrimitives.arrangeNodesVisualisationSettings(_view.getGraph2D());
-		layoutPrimitives.arrangeEdgesVisualisationSettings(_view.getGraph2D());
+		layoutModule.start(graph);
 
-		_layoutMetrics.updateView();
-		_view.getGraph2D().updateViews();
+		layoutPrimitives.arrangeNodesVisualisationSettings(graph);
+		layoutPrimitives.arrangeEdgesVisualisationSettings(graph);
 	}
 
 	/**
 	 * remove the backbones and chemical s tructures
 	 */
-	private void transform() throws NotationException, JDOMException,
-			IOException, MonomerException {
+	private void transform(Graph2D graph, SequenceViewModel viewModel,
+			EditorViewModel editorModel,
+			GraphElementConstructor elementsFactory) throws NotationException,
+			JDOMException, IOException, MonomerException {
 
-		transformSequences();
+		transformSequences(graph, viewModel, editorModel);
 
 		Graph2D editorGraph = editorModel.getEditorGraph();
 
@@ -313,36 +367,36 @@ public class SequenceViewLayoutImpl extends JPanel implements
 				.getDataProvider(EdgeMapKeys.EDGE_INFO);
 		EdgeCursor edges = editorGraph.edges();
 
-		_elementsFactory.setUpViewModel(viewModel);
+		elementsFactory.setUpViewModel(viewModel);
 		for (; edges.ok(); edges.next()) {
 			Edge currentEdge = edges.edge();
 			EditorEdgeInfoData edgeInfo = (EditorEdgeInfoData) pairEdgeMap
 					.get(currentEdge);
 			if (edgeInfo != null && edgeInfo.isPair()) {
-				_elementsFactory.createEdge(currentEdge,
+				elementsFactory.createEdge(currentEdge,
 						edgeInfo.getSourceNodeAttachment(),
 						edgeInfo.getTargetNodeAttachment(),
 						ViewElementsConstructor.PAIR_EDGE);
 			} else if (edgeInfo != null && edgeInfo.isPBranchBackbone()
 					&& MonomerInfoUtils.isPBranchEdge(currentEdge)) {
-				_elementsFactory.createEdge(currentEdge,
+				elementsFactory.createEdge(currentEdge,
 						edgeInfo.getSourceNodeAttachment(),
 						edgeInfo.getTargetNodeAttachment(),
 						ViewElementsConstructor.BACKBONE_BRANCH_EDGE);
 			} else if (edgeInfo != null && edgeInfo.isPBranchBranch()
 					&& MonomerInfoUtils.isPBranchEdge(currentEdge)) {
-				_elementsFactory.createEdge(currentEdge,
+				elementsFactory.createEdge(currentEdge,
 						edgeInfo.getSourceNodeAttachment(),
 						edgeInfo.getTargetNodeAttachment(),
 						ViewElementsConstructor.BRANCH_BRANCH_EDGE);
 			} else if (GraphUtils.isChemEdge(currentEdge)) {
-				_elementsFactory.createEdge(currentEdge,
+				elementsFactory.createEdge(currentEdge,
 						edgeInfo.getSourceNodeAttachment(),
 						edgeInfo.getTargetNodeAttachment(),
 						ViewElementsConstructor.CHEM_EDGE);
 			} else if (MonomerInfoUtils.isPInterSequencrEdge(currentEdge)) {
 				// another realizer?
-				_elementsFactory.createEdge(currentEdge,
+				elementsFactory.createEdge(currentEdge,
 						edgeInfo.getSourceNodeAttachment(),
 						edgeInfo.getTargetNodeAttachment(),
 						ViewElementsConstructor.SIMPLE_EDGE);
@@ -350,8 +404,10 @@ public class SequenceViewLayoutImpl extends JPanel implements
 		}
 	}
 
-	private void transformSequences() throws NotationException,
-			MonomerException, JDOMException, IOException {
+	private void transformSequences(Graph2D graph,
+			SequenceViewModel viewModel, EditorViewModel editorModel)
+			throws NotationException, MonomerException, JDOMException,
+			IOException {
 
 		for (Node node : editorModel.getEditorStartingNodes()) {
 
@@ -366,12 +422,11 @@ public class SequenceViewLayoutImpl extends JPanel implements
 				// TODO: move all labeling to the label layouter //
 				// /////////////////////////////////////////////////
 				// /////////////////////////////////////////////////
-				NodeMap positionMap = (NodeMap) _view.getGraph2D()
+				NodeMap positionMap = (NodeMap) graph
 						.getDataProvider(NodeMapKeys.LABEL_INFO_MAP);
 				for (Node n : viewSequence) {
 					LabelInfo info = (LabelInfo) positionMap.get(n);
-					assignNumber(_view.getGraph2D(), info.getPositionNumber(),
-							n, false);
+					assignNumber(graph, info.getPositionNumber(), n, false);
 				}
 
 				// //////////////////////////////////////////////////
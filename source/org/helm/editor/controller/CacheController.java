@@ -21,166 +21,99 @@
  ******************************************************************************/
 package org.helm.editor.controller;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import y.view.Graph2DView;
+import org.helm.editor.data.MonomerStoreCache;
+import org.helm.editor.utility.WeightedLruCache;
 
 /**
- * Cache for faster loading Sequence and Component View
+ * Cache for faster loading Sequence and Component View. Keeps the laid out
+ * graphs as {@link LayoutSnapshot}s in least recently used order and evicts
+ * the oldest entries when either the entry count or the estimated heap size
+ * exceeds its limit.
  * 
  * @author Makarov Alexander
  * @version 1.0
  */
 public class CacheController {
 
-	private static CacheController _instance;
-
-	private Map<String, Graph2DView> _cache;
-	private Map<String, Integer> _effectiveness;
+	private static final CacheController _instance = new CacheController();
 
-	private static final int DEFAULT_CACHE_SIZE = 10;
-	private static final int MAXIMUM_CACHE_SIZE = 50;
+	private static final int MAXIMUM_CACHE_SIZE = 500;
+	private static final long MAXIMUM_CACHE_WEIGHT = 16L * 1024 * 1024;
 
-	// regex part
-	private static final int NOTATION_TYPE = 1;
-	private static final int NOTATION_VALUE = 2;
-	private static final Pattern PURY_NOTATION_PATTERN = Pattern
-			.compile("(RNA|PEPTIDE|CHEM)[1-9]+\\{([^}]+)");
+	private final WeightedLruCache<LayoutSnapshot> _cache = new WeightedLruCache<LayoutSnapshot>(
+			MAXIMUM_CACHE_SIZE, MAXIMUM_CACHE_WEIGHT,
+			new WeightedLruCache.Weigher<LayoutSnapshot>() {
+				public long getWeight(String key, LayoutSnapshot snapshot) {
+					return 2L * key.length() + snapshot.getWeight();
+				}
+			});
 
 	private CacheController() {
-		_cache = Collections.synchronizedMap(new HashMap<String, Graph2DView>(
-				DEFAULT_CACHE_SIZE));
-		_effectiveness = Collections
-				.synchronizedMap(new HashMap<String, Integer>(
-						DEFAULT_CACHE_SIZE));
 	}
 
-	public synchronized static CacheController getInstance() {
-		if (_instance == null) {
-			_instance = new CacheController();
-		}
-
+	public static CacheController getInstance() {
 		return _instance;
 	}
 
-	public boolean isValueInCache(String notation) {
-		notation = getClearNotation(notation);
-
-		if (notation == null) {
-			return false;
-		}
-
-		return _cache.containsKey(notation);
+	/**
+	 * Builds the cache key of a notation as the caller has it, the notation
+	 * is not parsed again for the lookup. Different layouts of the same
+	 * notation, and layouts made before the monomer store changed, are cached
+	 * separately.
+	 * 
+	 * @param notation
+	 *            complete notation, including connections and base pairs
+	 * @param layoutMode
+	 *            true for the component view layout
+	 * @return key
+	 */
+	public static String createKey(String notation, boolean layoutMode) {
+		return (layoutMode ? "C|" : "S|")
+				+ MonomerStoreCache.getInstance().getVersion() + "|"
+				+ notation.trim();
 	}
 
-	public synchronized void addToCache(String notation, Graph2DView view) {
-
-		notation = getClearNotation(notation);
-
-		if (notation == null || _cache.containsKey(notation)) {
-			return;
-		}
-
-		if (_cache.size() == MAXIMUM_CACHE_SIZE) {
-			String keyWithSmallestPriority = getKeyWithSmallestPriority();
-			deleteValue(keyWithSmallestPriority);
-		}
-
-		_effectiveness.put(notation, new Integer(0));
-		_cache.put(notation, view);
+	public boolean isValueInCache(String key) {
+		return _cache.containsKey(key);
 	}
 
-	public synchronized Graph2DView getCachedValue(String notation) {
-
-		notation = getClearNotation(notation);
-
-		if (notation == null) {
-			return null;
-		}
-
-		Integer effect = _effectiveness.get(notation);
-		effect++;
-		_effectiveness.put(notation, effect);
+	public void addToCache(String key, LayoutSnapshot snapshot) {
+		_cache.put(key, snapshot);
+	}
 
-		return _cache.get(notation);
+	/**
+	 * @param key
+	 * @return the cached snapshot or null; counts as hit or miss
+	 */
+	public LayoutSnapshot getCachedValue(String key) {
+		return _cache.get(key);
 	}
 
 	public void cacheClear() {
 		_cache.clear();
-		_effectiveness.clear();
 	}
 
-	private void deleteValue(String key) {
-		_cache.remove(key);
-		_effectiveness.remove(key);
+	public int getSize() {
+		return _cache.size();
 	}
 
 	/**
-	 * Weight = notation lenght + intensity of value using
-	 * 
-	 * @return notation with minimum weight
+	 * @return estimated heap size of all cached snapshots in bytes
 	 */
-	@SuppressWarnings("unchecked")
-	private String getKeyWithSmallestPriority() {
-
-		List<Integer> sortedValues = new ArrayList<Integer>(
-				_effectiveness.values());
-		Collections.sort(sortedValues);
-		Integer minValue = Collections.min(sortedValues);
-
-		List<String> valuesWithMinimumPriority = new ArrayList<String>();
-		for (String currNotation : _effectiveness.keySet()) {
-			Integer val = _effectiveness.get(currNotation);
-
-			if (val.equals(minValue)) {
-				valuesWithMinimumPriority.add(currNotation);
-			}
-		}
-
-		Collections.sort(valuesWithMinimumPriority, new Comparator<String>() {
-
-			public int compare(String o1, String o2) {
-				Integer l1 = o1.length();
-				Integer l2 = o2.length();
-
-				return l1.compareTo(l2);
-			}
-
-		});
-
-		return valuesWithMinimumPriority.get(0);
+	public long getWeight() {
+		return _cache.getWeight();
 	}
 
-	private String getClearNotation(String notation) {
-
-		// append main notation part
-		Matcher matcher = PURY_NOTATION_PATTERN.matcher(notation);
-		StringBuffer clearNotation = new StringBuffer();
-		while (matcher.find()) {
-			clearNotation.append(matcher.group(NOTATION_TYPE)
-					+ matcher.group(NOTATION_VALUE));
-		}
-
-		// append edges
-		int startEdgesPart = notation.indexOf("$");
-		if (startEdgesPart < notation.length()) {
-			String edgePart = notation.substring(startEdgesPart,
-					notation.length());
-
-			// remove '$' symbol
-			edgePart = edgePart.replaceAll("\\$", "");
+	public long getHitCount() {
+		return _cache.getHitCount();
+	}
 
-			clearNotation.append(edgePart);
-		}
+	public long getMissCount() {
+		return _cache.getMissCount();
+	}
 
-		return clearNotation.toString();
+	public long getEvictionCount() {
+		return _cache.getEvictionCount();
 	}
 
 }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.controller;
+
+import y.view.Graph2D;
+
+/**
+ * Laid out sequence or component view graph as kept by the
+ * {@link CacheController}. The snapshot owns a private copy of the graph
+ * with its realizers (coordinates, shapes and labels) and hands out a new
+ * copy on every {@link #createGraph()}, so it is never modified once
+ * created.
+ */
+public final class LayoutSnapshot {
+
+	/**
+	 * rough heap estimates of a copied node and edge with their realizers
+	 * and labels, used for the weight of a snapshot
+	 */
+	private static final int NODE_WEIGHT = 512;
+	private static final int EDGE_WEIGHT = 256;
+
+	private final Graph2D graph;
+
+	private final boolean composite;
+
+	private final int weight;
+
+	private LayoutSnapshot(Graph2D graph, boolean composite) {
+		this.graph = graph;
+		this.composite = composite;
+		this.weight = graph.nodeCount() * NODE_WEIGHT + graph.edgeCount()
+				* EDGE_WEIGHT;
+	}
+
+	/**
+	 * Takes a snapshot of the current layout of the given graph. Only the
+	 * graph structure and the realizers are copied, no data providers.
+	 * 
+	 * @param graph
+	 * @param composite
+	 *            composite flag of the sequence layout
+	 * @return snapshot
+	 */
+	public static LayoutSnapshot of(Graph2D graph, boolean composite) {
+		return new LayoutSnapshot(new Graph2D(graph), composite);
+	}
+
+	/**
+	 * @return a new graph with the laid out nodes and edges of this snapshot
+	 */
+	public Graph2D createGraph() {
+		return new Graph2D(graph);
+	}
+
+	public boolean isComposite() {
+		return composite;
+	}
+
+	/**
+	 * @return estimated heap size in bytes
+	 */
+	public int getWeight() {
+		return weight;
+	}
+}
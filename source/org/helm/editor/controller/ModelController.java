@@ -23,9 +23,13 @@ package org.helm.editor.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.helm.editor.data.NotationUpdateEvent;
 import org.helm.editor.data.DataListener;
+import org.helm.editor.utility.CancellationToken;
 
 /**
  * This class controls the structure rendering in MacromoleculeEditor,
@@ -33,12 +37,18 @@ import org.helm.editor.data.DataListener;
  * contains the new notation and owner code who fires the event. It is up to
  * each listener to determine if the event should be handled.
  * 
+ * The updates of every owner are numbered. Listeners doing expensive work
+ * for an update can check whether a newer update of the same owner has been
+ * fired in the meantime and drop the outdated work.
+ * 
  * @author zhangtianhong
  */
 public class ModelController {
 
 	private static ModelController instance;
 	private List<DataListener> listeners = new ArrayList<DataListener>();
+	/** latest update sequence number by owner */
+	private final ConcurrentMap<String, AtomicLong> sequences = new ConcurrentHashMap<String, AtomicLong>();
 
 	private ModelController() {
 	}
@@ -57,8 +67,51 @@ public class ModelController {
 	}
 
 	public static void notationUpdated(String notation, String owner) {
-		NotationUpdateEvent e = new NotationUpdateEvent(notation, owner);
-		getInstance().onEvent(e);
+		ModelController controller = getInstance();
+		NotationUpdateEvent e = new NotationUpdateEvent(notation, owner,
+				controller.getSequence(owner).incrementAndGet());
+		controller.onEvent(e);
+	}
+
+	/**
+	 * @param event
+	 * @return true if a newer update of the same owner has been fired since
+	 *         the given one. Events without a sequence number are never
+	 *         superseded.
+	 */
+	public boolean isSuperseded(NotationUpdateEvent event) {
+		return event.getSequence() != 0
+				&& event.getSequence() < getSequence(event.getOwner()).get();
+	}
+
+	/**
+	 * @param event
+	 * @return token that is cancelled as soon as the event is superseded
+	 */
+	public CancellationToken getCancellationToken(
+			final NotationUpdateEvent event) {
+		if (event.getSequence() == 0) {
+			return CancellationToken.NONE;
+		}
+		return new CancellationToken() {
+			@Override
+			public boolean isCancelled() {
+				return isSuperseded(event);
+			}
+		};
+	}
+
+	private AtomicLong getSequence(String owner) {
+		String key = (owner == null) ? "" : owner;
+		AtomicLong sequence = sequences.get(key);
+		if (sequence == null) {
+			AtomicLong newSequence = new AtomicLong();
+			sequence = sequences.putIfAbsent(key, newSequence);
+			if (sequence == null) {
+				sequence = newSequence;
+			}
+		}
+		return sequence;
 	}
 
 	public void registerListener(DataListener listener) {
@@ -154,6 +154,7 @@ public class Annotator {
 		if (annotation == null) {
 			return;
 		}
+		manager.annotationChanged();
 		if (startingNodeList.contains(node)) {
 			// MonomerFactory monomerFactory = MonomerFactory.getInstance();
 			// Map<String, Map<String, Monomer>> monomerDB =
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.helm.notation.model.Attachment;
+
+/**
+ * Shared, read-only attachment list of one monomer. A template is resolved
+ * once per (polymerType, alternateId) by {@link MonomerStoreCache} and is
+ * referenced by every {@link MonomerInfo} of that monomer; the connection
+ * state of a node is kept by the MonomerInfo as a bit mask indexed by the
+ * attachment ordinal in this template.
+ *
+ * The Attachment instances of a template must not be modified.
+ */
+public final class AttachmentTemplate {
+
+	/**
+	 * maximum number of attachments a template can address in the connection
+	 * bit mask of a MonomerInfo
+	 */
+	public static final int MAX_ATTACHMENTS = Long.SIZE;
+
+	/** template of an unknown monomer */
+	public static final AttachmentTemplate EMPTY = new AttachmentTemplate(
+			new ArrayList<Attachment>());
+
+	private final List<Attachment> attachmentList;
+
+	private final Attachment[] attachments;
+
+	private final String[] labels;
+
+	/**
+	 * @param attachmentList
+	 *            attachments of the monomer, in ordinal order. The list is
+	 *            copied, the attachments themselves are not.
+	 */
+	public AttachmentTemplate(List<Attachment> attachmentList) {
+		int size = Math.min(attachmentList.size(), MAX_ATTACHMENTS);
+		attachments = new Attachment[size];
+		labels = new String[size];
+		for (int i = 0; i < size; i++) {
+			attachments[i] = attachmentList.get(i);
+			labels[i] = attachments[i].getLabel();
+		}
+		List<Attachment> list = new ArrayList<Attachment>(size);
+		Collections.addAll(list, attachments);
+		this.attachmentList = Collections.unmodifiableList(list);
+	}
+
+	public int size() {
+		return attachments.length;
+	}
+
+	public Attachment get(int ordinal) {
+		return attachments[ordinal];
+	}
+
+	/**
+	 * @return unmodifiable view of the attachments
+	 */
+	public List<Attachment> getAttachmentList() {
+		return attachmentList;
+	}
+
+	/**
+	 * ordinal of the given attachment instance in this template
+	 *
+	 * @param att
+	 * @return ordinal or -1 if the attachment does not belong to this template
+	 */
+	public int indexOf(Attachment att) {
+		for (int i = 0; i < attachments.length; i++) {
+			if (attachments[i] == att) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * ordinal of the attachment with the given label, case insensitive
+	 *
+	 * @param label
+	 * @return ordinal or -1 if no such attachment exists
+	 */
+	public int indexOf(String label) {
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i].equalsIgnoreCase(label)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -67,6 +67,11 @@ public class GraphManager {
 	private Set<Node> startingFlippedNodes = new HashSet<Node>();
 	private List<DataListener> listeners;
 	private Annotator annotator;
+	/**
+	 * bumped on changes of the starting node list and the annotations, which
+	 * are part of the notation but not of the graph
+	 */
+	private int modificationCount = 0;
 
 	/**
 	 * constructor
@@ -123,6 +128,18 @@ public class GraphManager {
 		return annotator;
 	}
 
+	/**
+	 * @return a counter that changes whenever the starting node list or an
+	 *         annotation is modified through this manager
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
+	void annotationChanged() {
+		modificationCount++;
+	}
+
 	public List<Node> getStartingNodeList() {
 		return startingNodeList;
 	}
@@ -139,6 +156,7 @@ public class GraphManager {
 			MonomerException, JDOMException {
 		if (!startingNodeList.contains(node)) {
 			startingNodeList.add(node);
+			modificationCount++;
 			// annotate(node, "");
 			// needUpdate = true;
 		}
@@ -168,6 +186,7 @@ public class GraphManager {
 			MonomerException, JDOMException {
 		if (!startingNodeList.contains(node)) {
 			startingNodeList.add(index, node);
+			modificationCount++;
 		}
 	}
 
@@ -187,6 +206,7 @@ public class GraphManager {
 		}
 		annotator.removeLabel(node);
 		startingFlippedNodes.remove(node);
+		modificationCount++;
 		return startingNodeList.remove(node);
 
 	}
@@ -200,6 +220,7 @@ public class GraphManager {
 	}
 
 	public void reset() {
+		modificationCount++;
 		startingNodeList.clear();
 		annotationMap.clear();
 		listeners.clear();
@@ -223,6 +244,7 @@ public class GraphManager {
 	 */
 	public void sortStartingNodeList() throws NotationException,
 			MonomerException, JDOMException, IOException {
+		modificationCount++;
 
 		if (startingNodeList == null || startingNodeList.isEmpty()) {
 			return;
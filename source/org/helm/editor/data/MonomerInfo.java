@@ -21,84 +21,73 @@
  ******************************************************************************/
 package org.helm.editor.data;
 
-import org.helm.notation.MonomerException;
-import org.helm.notation.MonomerFactory;
-import org.helm.notation.tools.DeepCopy;
+import org.helm.notation.MonomerStore;
 import org.helm.notation.model.Attachment;
 import org.helm.notation.model.Monomer;
-import org.helm.notation.tools.MonomerParser;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-import org.jdom.JDOMException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class holds keys to get the monomer object from the monomer database. It
  * also keeps the attachment list
  * 
+ * The attachment list is a template shared by all nodes of the same monomer
+ * (see {@link MonomerStoreCache#getAttachmentTemplate(String, String)}), the
+ * connection state of this node is a bit mask indexed by attachment ordinal.
+ * 
  * @author Hongli Li
  */
 public class MonomerInfo {
 
+	/**
+	 * counts monomer changes of existing nodes, which are not reported by
+	 * graph events
+	 */
+	private static final AtomicInteger monomerChangeCount = new AtomicInteger();
+
+	/** nucleotide sugar, natural analog R */
+	public static final byte ROLE_SUGAR = 1;
+	/** nucleotide linker, natural analog P */
+	public static final byte ROLE_PHOSPHATE = 1 << 1;
+	/** nucleotide base */
+	public static final byte ROLE_BASE = 1 << 2;
+	/** backbone monomer of any polymer type */
+	public static final byte ROLE_BACKBONE = 1 << 3;
+	/** branch monomer of any polymer type */
+	public static final byte ROLE_BRANCH = 1 << 4;
+	/** chemical modifier */
+	public static final byte ROLE_CHEM = 1 << 5;
+
 	private String polymerType;
 	private String monomerID;
-	private List<Attachment> attachmentList;
-	Map<Attachment, Boolean> isConnectedMap;
+	private AttachmentTemplate attachmentTemplate;
+	private long connectedMask;
 
-	public MonomerInfo(String polymerType, String monomerID) {
-		try {
-			this.polymerType = polymerType;
-			this.monomerID = monomerID;
-			isConnectedMap = new HashMap<Attachment, Boolean>();
-			attachmentList = new ArrayList<Attachment>();
-
-			final Map<String, Map<String, Monomer>> monomerDB = MonomerStoreCache
-					.getInstance().getCombinedMonomerStore().getMonomerDB();
-			// do this only if monomer exists, Tianhong 7/3/08
-			Monomer monomer = monomerDB.get(polymerType).get(monomerID);
-			if (null != monomer) {
-				List<Attachment> idList = monomerDB.get(polymerType)
-						.get(monomerID).getAttachmentList();
-				for (Attachment att : idList) {
-					if (att.getCapGroupSMILES() == null) {
-						MonomerParser.fillAttachmentInfo(att);
-					}
-				}
-				attachmentList = DeepCopy.copy(idList);
-				// if this monomer is a base, then add a pairing attachment to
-				// this list
-				if (polymerType
-						.equalsIgnoreCase(Monomer.NUCLIEC_ACID_POLYMER_TYPE)
-						&& monomer.getMonomerType().equalsIgnoreCase(
-								Monomer.BRANCH_MOMONER_TYPE)) {
-					attachmentList.add(new Attachment(
-							Attachment.PAIR_ATTACHMENT, ""));
-				}
+	/**
+	 * monomer resolved from the combined store of version monomerVersion,
+	 * together with its role flags
+	 */
+	private Monomer monomer;
+	private byte roles;
+	private int monomerVersion = -1;
 
-			}
-			for (Attachment a : attachmentList) {
-				isConnectedMap.put(a, false);
-			}
+	public MonomerInfo(String polymerType, String monomerID) {
+		this.polymerType = polymerType;
+		this.monomerID = monomerID;
+		this.attachmentTemplate = MonomerStoreCache.getInstance()
+				.getAttachmentTemplate(polymerType, monomerID);
+	}
 
-		} catch (MonomerException ex) {
-			Logger.getLogger(MonomerInfo.class.getName()).log(Level.SEVERE,
-					null, ex);
-		} catch (IOException ex) {
-			Logger.getLogger(MonomerInfo.class.getName()).log(Level.SEVERE,
-					null, ex);
-		} catch (JDOMException ex) {
-			Logger.getLogger(MonomerInfo.class.getName()).log(Level.SEVERE,
-					null, ex);
-		} catch (Exception ex) {
-			Logger.getLogger(MonomerInfo.class.getName()).log(Level.SEVERE,
-					null, ex);
-		}
+	/**
+	 * @return number of setMonomerID and setPolymerType calls on any
+	 *         MonomerInfo so far, used to tell whether a memoized notation
+	 *         is still current
+	 */
+	public static int getMonomerChangeCount() {
+		return monomerChangeCount.get();
 	}
 
 	public String getMonomerID() {
@@ -106,15 +95,54 @@ public class MonomerInfo {
 	}
 
 	public void setConnection(Attachment sourceAtt, boolean isConnected) {
-		isConnectedMap.put(sourceAtt, isConnected);
+		int ordinal = ordinalOf(sourceAtt);
+		if (ordinal < 0) {
+			return;
+		}
+		if (isConnected) {
+			connectedMask |= (1L << ordinal);
+		} else {
+			connectedMask &= ~(1L << ordinal);
+		}
 	}
 
 	public boolean isConnected(Attachment att) {
-		return isConnectedMap.get(att);
+		int ordinal = ordinalOf(att);
+		return ordinal >= 0 && isConnected(ordinal);
+	}
+
+	private boolean isConnected(int ordinal) {
+		return (connectedMask & (1L << ordinal)) != 0;
+	}
+
+	/**
+	 * attachments of another template (e.g. taken from an edge created before
+	 * the monomer was replaced) are matched by label
+	 */
+	private int ordinalOf(Attachment att) {
+		if (att == null) {
+			return -1;
+		}
+		int ordinal = attachmentTemplate.indexOf(att);
+		if (ordinal < 0) {
+			ordinal = attachmentTemplate.indexOf(att.getLabel());
+		}
+		return ordinal;
 	}
 
+	/**
+	 * Changes the monomer of this node. The attachment template is resolved
+	 * for the new monomer, connections are kept by attachment label. Unknown
+	 * monomers keep the current attachments.
+	 * 
+	 * @param monomerID
+	 */
 	public void setMonomerID(String monomerID) {
 		this.monomerID = monomerID;
+		monomerVersion = -1;
+		monomerChangeCount.incrementAndGet();
+		rebindAttachmentTemplate(MonomerStoreCache.getInstance()
+				.getAttachmentTemplate(polymerType, monomerID));
 	}
 
 	public String getPolymerType() {
@@ -123,14 +151,119 @@ public class MonomerInfo {
 
 	public void setPolymerType(String polymerType) {
 		this.polymerType = polymerType;
+		monomerVersion = -1;
+		monomerChangeCount.incrementAndGet();
 	}
 
+	/**
+	 * Returns the monomer of this node. The lookup in the combined store is
+	 * done once and repeated only after the store changed.
+	 * 
+	 * @return monomer or null if the store does not contain it
+	 */
+	public Monomer getMonomer() {
+		MonomerStoreCache cache = MonomerStoreCache.getInstance();
+		int version = cache.getVersion();
+		if (version != monomerVersion) {
+			MonomerStore store = cache.getCombinedMonomerStore();
+			Map<String, Monomer> monomers = (store == null) ? null : store
+					.getMonomerDB().get(polymerType);
+			monomer = (monomers == null) ? null : monomers.get(monomerID);
+			roles = rolesOf(monomer);
+			monomerVersion = version;
+		}
+		return monomer;
+	}
+
+	/**
+	 * @return role flags of the monomer, a combination of the ROLE_
+	 *         constants
+	 */
+	public byte getRoles() {
+		getMonomer();
+		return roles;
+	}
+
+	/**
+	 * @param role
+	 *            one or more ROLE_ constants
+	 * @return true if the monomer has any of the given roles
+	 */
+	public boolean hasRole(byte role) {
+		return (getRoles() & role) != 0;
+	}
+
+	/**
+	 * @param monomer
+	 * @return role flags of the given monomer, 0 for null
+	 */
+	public static byte rolesOf(Monomer monomer) {
+		if (monomer == null) {
+			return 0;
+		}
+		byte result = 0;
+		String monomerType = monomer.getMonomerType();
+		String naturalAnalog = monomer.getNaturalAnalog();
+		boolean nucleotide = Monomer.NUCLIEC_ACID_POLYMER_TYPE
+				.equalsIgnoreCase(monomer.getPolymerType());
+		if (Monomer.BACKBONE_MOMONER_TYPE.equalsIgnoreCase(monomerType)) {
+			result |= ROLE_BACKBONE;
+		}
+		if (Monomer.BRANCH_MOMONER_TYPE.equalsIgnoreCase(monomerType)) {
+			result |= ROLE_BRANCH;
+			if (nucleotide) {
+				result |= ROLE_BASE;
+			}
+		}
+		if (nucleotide && Monomer.ID_R.equalsIgnoreCase(naturalAnalog)) {
+			result |= ROLE_SUGAR;
+		}
+		if (nucleotide && Monomer.ID_P.equalsIgnoreCase(naturalAnalog)) {
+			result |= ROLE_PHOSPHATE;
+		}
+		if (Monomer.CHEMICAL_POLYMER_TYPE.equalsIgnoreCase(monomer
+				.getPolymerType())) {
+			result |= ROLE_CHEM;
+		}
+		return result;
+	}
+
+	/**
+	 * @return unmodifiable attachment list, shared with other nodes of the
+	 *         same monomer
+	 */
 	public List<Attachment> getAttachmentList() {
-		return attachmentList;
+		return attachmentTemplate.getAttachmentList();
 	}
 
+	/**
+	 * Replaces the attachment list of this node only, connection state is
+	 * reset.
+	 * 
+	 * @param attachmentList
+	 */
 	public void setAttachmentList(List<Attachment> attachmentList) {
-		this.attachmentList = attachmentList;
+		this.attachmentTemplate = new AttachmentTemplate(attachmentList);
+		this.connectedMask = 0L;
+	}
+
+	private void rebindAttachmentTemplate(AttachmentTemplate template) {
+		if (template == attachmentTemplate
+				|| template == AttachmentTemplate.EMPTY) {
+			return;
+		}
+		long mask = 0L;
+		for (int i = 0; i < attachmentTemplate.size(); i++) {
+			if (isConnected(i)) {
+				int ordinal = template.indexOf(attachmentTemplate.get(i)
+						.getLabel());
+				if (ordinal >= 0) {
+					mask |= (1L << ordinal);
+				}
+			}
+		}
+		this.attachmentTemplate = template;
+		this.connectedMask = mask;
 	}
 
 	/**
@@ -141,8 +274,9 @@ public class MonomerInfo {
 	 */
 	public List<Attachment> getAvailableAttachmentList() {
 		List<Attachment> availableAttachmentList = new ArrayList<Attachment>();
-		for (Attachment att : attachmentList) {
-			if (!isConnectedMap.get(att)
+		for (int i = 0; i < attachmentTemplate.size(); i++) {
+			Attachment att = attachmentTemplate.get(i);
+			if (!isConnected(i)
 					&& !att.getLabel().equalsIgnoreCase(
 							Attachment.PAIR_ATTACHMENT)) {
 				availableAttachmentList.add(att);
@@ -154,8 +288,9 @@ public class MonomerInfo {
 	// TY
 	public List<Attachment> getUsedAttachmentList() {
 		List<Attachment> availableAttachmentList = new ArrayList<Attachment>();
-		for (Attachment att : attachmentList) {
-			if (isConnectedMap.get(att)
+		for (int i = 0; i < attachmentTemplate.size(); i++) {
+			Attachment att = attachmentTemplate.get(i);
+			if (isConnected(i)
 					&& !att.getLabel().equalsIgnoreCase(
 							Attachment.PAIR_ATTACHMENT)) {
 				availableAttachmentList.add(att);
@@ -165,11 +300,7 @@ public class MonomerInfo {
 	}
 
 	public Attachment getAttachment(String label) {
-		for (Attachment att : attachmentList) {
-			if (att.getLabel().equalsIgnoreCase(label)) {
-				return att;
-			}
-		}
-		return null;
+		int ordinal = attachmentTemplate.indexOf(label);
+		return (ordinal < 0) ? null : attachmentTemplate.get(ordinal);
 	}
 }
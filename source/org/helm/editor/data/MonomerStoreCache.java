@@ -2,10 +2,13 @@ package org.helm.editor.data;
 
 import java.awt.Component;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,9 +19,11 @@ import org.helm.notation.MonomerException;
 import org.helm.notation.MonomerFactory;
 import org.helm.notation.MonomerStore;
 import org.helm.notation.NotationException;
+import org.helm.notation.model.Attachment;
 import org.helm.notation.model.Monomer;
 import org.helm.notation.tools.ComplexNotationParser;
 import org.helm.notation.tools.DeepCopy;
+import org.helm.notation.tools.MonomerParser;
 import org.jdom.JDOMException;
 
 import java.awt.event.*;
@@ -36,15 +41,42 @@ public class MonomerStoreCache {
 		OK, CANCEL
 	}
 
-	private static MonomerStoreCache _instance = null;
+	private static final MonomerStoreCache _instance = new MonomerStoreCache();
 
-	private MonomerStore internalMonomerStore;
-	private MonomerStore externalMonomerStore;
+	/**
+	 * A published state of the combined store. The store and the maps it
+	 * holds are not modified by this cache once the snapshot is published;
+	 * changes create a new snapshot with a higher version.
+	 */
+	private static final class Snapshot {
+
+		private final MonomerStore store;
+
+		private final int version;
+
+		/**
+		 * Attachment templates by polymer type and alternate id, filled on
+		 * demand from the store of this snapshot.
+		 */
+		private final ConcurrentMap<String, ConcurrentMap<String, AttachmentTemplate>> attachmentTemplates;
+
+		private Snapshot(MonomerStore store, int version,
+				ConcurrentMap<String, ConcurrentMap<String, AttachmentTemplate>> attachmentTemplates) {
+			this.store = store;
+			this.version = version;
+			this.attachmentTemplates = attachmentTemplates;
+		}
+	}
+
+	private volatile MonomerStore internalMonomerStore;
+	private volatile MonomerStore externalMonomerStore;
 	/**
 	 * Contains both stores together. Needs to be synched, when changing one of
-	 * the others.
+	 * the others. Readers take the current snapshot without locking, writers
+	 * synchronize on this cache and publish a new snapshot.
 	 */
-	private MonomerStore combinedMonomerStore;
+	private volatile Snapshot snapshot = new Snapshot(null, 0,
+			new ConcurrentHashMap<String, ConcurrentMap<String, AttachmentTemplate>>());
 
 	private MonomerStoreCache() {
 	}
@@ -55,9 +87,6 @@ public class MonomerStoreCache {
 	 * @return instance.
 	 */
 	public static MonomerStoreCache getInstance() {
-		if (_instance == null)
-			_instance = new MonomerStoreCache();
-
 		return _instance;
 	}
 
@@ -148,7 +177,7 @@ public class MonomerStoreCache {
 	 * every internal monomer with an alternate id that is not yet included in
 	 * the externals. This ensures that every id is used only once.
 	 */
-	private void combineMonomerStores() {
+	private synchronized void combineMonomerStores() {
 		try {
 			this.internalMonomerStore = MonomerFactory.getInstance()
 					.getMonomerStore();
@@ -160,7 +189,7 @@ public class MonomerStoreCache {
 			return;
 		}
 
-		combinedMonomerStore = new MonomerStore();
+		MonomerStore combinedMonomerStore = new MonomerStore();
 
 		int notAdded = 0;
 
@@ -205,8 +234,127 @@ public class MonomerStoreCache {
 							notAdded
 									+ " monomers could not be added to combined monomer library.");
 
+		snapshot = new Snapshot(combinedMonomerStore, snapshot.version + 1,
+				new ConcurrentHashMap<String, ConcurrentMap<String, AttachmentTemplate>>());
+		MonomerFactory.resetDBChanged();
+
+	}
+
+	/**
+	 * Rebuilds the combined entries of one polymer type and publishes them
+	 * as a new snapshot. The monomer maps of all other polymer types and
+	 * their attachment templates are shared with the previous snapshot.
+	 * 
+	 * @param polymerType
+	 */
+	private synchronized void patchPolymerType(String polymerType) {
+		Snapshot current = snapshot;
+		if (current.store == null || this.internalMonomerStore == null) {
+			combineMonomerStores();
+			return;
+		}
+
+		// same precedence as combineMonomerStores: externals first
+		MonomerStore typeStore = new MonomerStore();
+		int notAdded = 0;
+		List<MonomerStore> sources = new ArrayList<MonomerStore>();
+		if (this.externalMonomerStore != null) {
+			sources.add(this.externalMonomerStore);
+		}
+		sources.add(this.internalMonomerStore);
+		for (MonomerStore source : sources) {
+			Map<String, Monomer> monomers = source.getMonomerDB().get(
+					polymerType);
+			if (monomers == null) {
+				continue;
+			}
+			for (Monomer mon : monomers.values()) {
+				try {
+					if (!typeStore.hasMonomer(polymerType,
+							mon.getAlternateId())) {
+						typeStore.addMonomer(mon);
+					}
+				} catch (Exception e) {
+					notAdded++;
+				}
+			}
+		}
+		if (notAdded > 0)
+			Logger.getLogger(MonomerStoreCache.class.getName()).log(
+					Level.WARNING,
+					notAdded + " monomers could not be added to combined monomer library.");
+
+		MonomerStore patched = new MonomerStore();
+		patched.getMonomerDB().putAll(current.store.getMonomerDB());
+		Map<String, Monomer> typeMonomers = typeStore.getMonomerDB().get(
+				polymerType);
+		if (typeMonomers == null) {
+			patched.getMonomerDB().remove(polymerType);
+		} else {
+			patched.getMonomerDB().put(polymerType, typeMonomers);
+		}
+		for (Map.Entry<String, Monomer> entry : current.store
+				.getSmilesMonomerDB().entrySet()) {
+			if (!polymerType.equalsIgnoreCase(entry.getValue()
+					.getPolymerType())) {
+				patched.getSmilesMonomerDB().put(entry.getKey(),
+						entry.getValue());
+			}
+		}
+		patched.getSmilesMonomerDB().putAll(typeStore.getSmilesMonomerDB());
+
+		ConcurrentMap<String, ConcurrentMap<String, AttachmentTemplate>> templates = new ConcurrentHashMap<String, ConcurrentMap<String, AttachmentTemplate>>(
+				current.attachmentTemplates);
+		templates.remove(polymerType);
+
+		snapshot = new Snapshot(patched, current.version + 1, templates);
 		MonomerFactory.resetDBChanged();
+	}
+
+	/**
+	 * Adds a monomer to the given store, which must be the internal or the
+	 * external store, and updates only the affected polymer type of the
+	 * combined store.
+	 * 
+	 * @param target
+	 * @param monomer
+	 * @param dbChanged
+	 *            passed on to {@link MonomerStore#addMonomer(Monomer, boolean)}
+	 * @throws IOException
+	 * @throws MonomerException
+	 */
+	public synchronized void addMonomer(MonomerStore target, Monomer monomer,
+			boolean dbChanged) throws IOException, MonomerException {
+		// settle pending changes of others before patching
+		getCombinedMonomerStore();
+		target.addMonomer(monomer, dbChanged);
+		patchPolymerType(monomer.getPolymerType());
+	}
+
+	/**
+	 * Same as {@link #addMonomer(MonomerStore, Monomer, boolean)} using
+	 * {@link MonomerStore#addNewMonomer(Monomer)}.
+	 * 
+	 * @param target
+	 * @param monomer
+	 * @throws IOException
+	 * @throws MonomerException
+	 */
+	public synchronized void addNewMonomer(MonomerStore target, Monomer monomer)
+			throws IOException, MonomerException {
+		getCombinedMonomerStore();
+		target.addNewMonomer(monomer);
+		patchPolymerType(monomer.getPolymerType());
+	}
 
+	/**
+	 * To be called after monomers of one polymer type were changed, renamed
+	 * or removed directly in the internal or external store.
+	 * 
+	 * @param polymerType
+	 */
+	public synchronized void polymerTypeChanged(String polymerType) {
+		patchPolymerType(polymerType);
 	}
 
 	/**
@@ -216,11 +364,98 @@ public class MonomerStoreCache {
 	 * @return MonomerStore
 	 */
 	public MonomerStore getCombinedMonomerStore() {
-		if (MonomerFactory.hasDBChanged())
-			combineMonomerStores();
+		return getSnapshot().store;
+	}
+
+	/**
+	 * Returns the version of the combined store. Values derived from the store
+	 * can be kept as long as the version does not change.
+	 * 
+	 * @return version
+	 */
+	public int getVersion() {
+		return getSnapshot().version;
+	}
+
+	private Snapshot getSnapshot() {
+		if (MonomerFactory.hasDBChanged()) {
+			synchronized (this) {
+				if (MonomerFactory.hasDBChanged())
+					combineMonomerStores();
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the shared attachment template of a monomer. The template is
+	 * built on first request and reused until the combined store is rebuilt.
+	 * For nucleotide branch monomers the template includes the pairing
+	 * attachment.
+	 * 
+	 * @param polymerType
+	 * @param alternateId
+	 * @return template, {@link AttachmentTemplate#EMPTY} for unknown monomers
+	 */
+	public AttachmentTemplate getAttachmentTemplate(String polymerType,
+			String alternateId) {
+		Snapshot current = getSnapshot();
+
+		ConcurrentMap<String, AttachmentTemplate> templates = current.attachmentTemplates
+				.get(polymerType);
+		if (templates == null) {
+			templates = new ConcurrentHashMap<String, AttachmentTemplate>();
+			ConcurrentMap<String, AttachmentTemplate> existing = current.attachmentTemplates
+					.putIfAbsent(polymerType, templates);
+			if (existing != null) {
+				templates = existing;
+			}
+		}
+
+		AttachmentTemplate template = templates.get(alternateId);
+		if (template == null) {
+			template = createAttachmentTemplate(current.store, polymerType,
+					alternateId);
+			AttachmentTemplate existing = templates.putIfAbsent(alternateId,
+					template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+		return template;
+	}
 
-		return combinedMonomerStore;
+	private AttachmentTemplate createAttachmentTemplate(MonomerStore store,
+			String polymerType, String alternateId) {
+		if (store == null) {
+			return AttachmentTemplate.EMPTY;
+		}
+		Map<String, Monomer> monomers = store.getMonomerDB().get(polymerType);
+		Monomer monomer = (monomers == null) ? null : monomers.get(alternateId);
+		if (monomer == null) {
+			return AttachmentTemplate.EMPTY;
+		}
 
+		List<Attachment> attachmentList = new ArrayList<Attachment>();
+		try {
+			for (Attachment att : monomer.getAttachmentList()) {
+				if (att.getCapGroupSMILES() == null) {
+					MonomerParser.fillAttachmentInfo(att);
+				}
+				attachmentList.add(att);
+			}
+			// if this monomer is a base, then add a pairing attachment
+			if (polymerType.equalsIgnoreCase(Monomer.NUCLIEC_ACID_POLYMER_TYPE)
+					&& monomer.getMonomerType().equalsIgnoreCase(
+							Monomer.BRANCH_MOMONER_TYPE)) {
+				attachmentList.add(new Attachment(Attachment.PAIR_ATTACHMENT,
+						""));
+			}
+		} catch (Exception ex) {
+			Logger.getLogger(MonomerStoreCache.class.getName()).log(
+					Level.SEVERE, null, ex);
+		}
+		return new AttachmentTemplate(attachmentList);
 	}
 
 	/**
@@ -230,7 +465,7 @@ public class MonomerStoreCache {
 	 * @param store
 	 *            monomer store to set.
 	 */
-	public void setExternalMonomers(MonomerStore store) {
+	public synchronized void setExternalMonomers(MonomerStore store) {
 		this.externalMonomerStore = store;
 
 		combineMonomerStores();
@@ -254,30 +489,79 @@ public class MonomerStoreCache {
 			String helmString) throws IOException, MonomerException,
 			IllegalArgumentException {
 
-		if (this.externalMonomerStore == null) {
-			this.externalMonomerStore = new MonomerStore();
-		}
+		// the conflicts are resolved in modal dialogs, which must not block
+		// the threads reading the cache; only the update of the stores holds
+		// the lock
+		LinkedList<Monomer> conflicts;
+		LinkedList<String> newNames;
+		LinkedList<String> oldNames = new LinkedList<String>();
+		do {
+			synchronized (this) {
+				conflicts = findConflictingMonomers(store);
+			}
+			newNames = new LinkedList<String>();
 
-		LinkedList<Monomer> dupMonomers = findDuplicateAdhocMonomers(store);
+			if (conflicts.size() > 0) {
 
-		System.out.println("Duplicate monomer count: " + dupMonomers.size());
-		LinkedList<Monomer> conflicts = findConflictingMonomers(store);
-		LinkedList<String> newNames = new LinkedList<String>();
+				boolean resolved = resolveConflicts(conflicts, newNames, store,
+						owner);
 
-		if (conflicts.size() > 0) {
+				if (!resolved) {
+					return null;
+				}
 
-			boolean resolved = resolveConflicts(conflicts, newNames, store,
-					owner);
+			}
+		} while (!addResolvedMonomers(store, conflicts, newNames, oldNames));
+		System.out.println(getCombinedMonomerStore());
 
-			if (!resolved) {
-				return null;
+		String newHelmString = helmString;
+		for (int i = 0; i < conflicts.size(); i++) {
+			try {
+				newHelmString = ComplexNotationParser.replaceMonomer(
+						newHelmString, conflicts.get(i).getPolymerType(),
+						oldNames.get(i), newNames.get(i),
+						getCombinedMonomerStore(), false);
+			} catch (JDOMException e) {
+				e.printStackTrace();
+			} catch (NotationException e) {
+				e.printStackTrace();
 			}
+		}
 
+		System.out.println(newHelmString);
+
+		return newHelmString;
+	}
+
+	/**
+	 * Adds the monomers of the store to the external store, renaming the
+	 * conflicting ones, and rebuilds the combined store.
+	 * 
+	 * @param store
+	 * @param conflicts
+	 *            conflicts the new names were entered for
+	 * @param newNames
+	 * @param oldNames
+	 *            filled with the previous names of the renamed monomers
+	 * @return false if the conflicts changed while the user entered the new
+	 *         names; nothing has been added then
+	 */
+	private synchronized boolean addResolvedMonomers(MonomerStore store,
+			LinkedList<Monomer> conflicts, LinkedList<String> newNames,
+			LinkedList<String> oldNames) throws IOException, MonomerException {
+		if (!findConflictingMonomers(store).equals(conflicts)) {
+			return false;
 		}
 
+		if (this.externalMonomerStore == null) {
+			this.externalMonomerStore = new MonomerStore();
+		}
+
+		LinkedList<Monomer> dupMonomers = findDuplicateAdhocMonomers(store);
+
+		System.out.println("Duplicate monomer count: " + dupMonomers.size());
 		System.out.println(store);
 		System.out.println(conflicts);
-		LinkedList<String> oldNames = new LinkedList<String>();
 		int monomerIndex = -1;
 		// add monomers to externalStore
 		for (String polymerType : store.getMonomerDB().keySet()) {
@@ -302,25 +586,7 @@ public class MonomerStoreCache {
 		}
 
 		combineMonomerStores();
-		System.out.println(getCombinedMonomerStore());
-
-		String newHelmString = helmString;
-		for (int i = 0; i < conflicts.size(); i++) {
-			try {
-				newHelmString = ComplexNotationParser.replaceMonomer(
-						newHelmString, conflicts.get(i).getPolymerType(),
-						oldNames.get(i), newNames.get(i),
-						getCombinedMonomerStore(), false);
-			} catch (JDOMException e) {
-				e.printStackTrace();
-			} catch (NotationException e) {
-				e.printStackTrace();
-			}
-		}
-
-		System.out.println(newHelmString);
-
-		return newHelmString;
+		return true;
 	}
 
 	/**
@@ -420,7 +686,7 @@ public class MonomerStoreCache {
 	/**
 	 * Clears all custom monomers in the database.
 	 */
-	public void clearCustomMonomerDB() {
+	public synchronized void clearCustomMonomerDB() {
 		if (this.externalMonomerStore != null) {
 			this.externalMonomerStore.clearMonomers();
 			// reload combined Store
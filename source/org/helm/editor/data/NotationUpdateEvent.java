@@ -21,10 +21,21 @@
  ******************************************************************************/
 package org.helm.editor.data;
 
+import java.io.IOException;
+
+import org.jdom.JDOMException;
+
+import org.helm.editor.utility.NotationParser;
+import org.helm.notation.MonomerException;
+import org.helm.notation.NotationException;
+import org.helm.notation.StructureException;
+
 public class NotationUpdateEvent {
 
 	private String _notataion;
 	private String _owner;
+	private long _sequence;
+	private ParsedNotation _parsedNotation;
 
 	public NotationUpdateEvent(String data) {
 		_notataion = data;
@@ -35,16 +46,56 @@ public class NotationUpdateEvent {
 		_owner = owner;
 	}
 
+	/**
+	 * @param data
+	 * @param owner
+	 * @param sequence
+	 *            number of the update among the updates of the owner, see
+	 *            {@link org.helm.editor.controller.ModelController#isSuperseded(NotationUpdateEvent)}
+	 */
+	public NotationUpdateEvent(String data, String owner, long sequence) {
+		_notataion = data;
+		_owner = owner;
+		_sequence = sequence;
+	}
+
 	public String getOwner() {
 		return _owner;
 	}
 
-	public void setNotation(String notataion) {
+	/**
+	 * @return sequence number of the update, 0 if the event is not numbered
+	 */
+	public long getSequence() {
+		return _sequence;
+	}
+
+	public synchronized void setNotation(String notataion) {
 		_notataion = notataion;
+		_parsedNotation = null;
 	}
 
 	public String getData() {
 		return _notataion;
 	}
 
+	/**
+	 * The notation parsed against the combined monomer store. It is parsed
+	 * by the first listener asking for it; all other listeners of the event
+	 * share that result. Blocks while another listener parses it, so it must
+	 * not be called on the event dispatch thread.
+	 * 
+	 * @return parsed notation
+	 * @throws org.helm.notation.NotationException
+	 */
+	public synchronized ParsedNotation getParsedNotation()
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException {
+		if (_parsedNotation == null) {
+			_parsedNotation = NotationParser.parseNotation(_notataion,
+					MonomerStoreCache.getInstance().getCombinedMonomerStore());
+		}
+		return _parsedNotation;
+	}
+
 }
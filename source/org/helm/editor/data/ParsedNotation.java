@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.data;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.jdom.JDOMException;
+
+import org.helm.notation.MonomerException;
+import org.helm.notation.MonomerStore;
+import org.helm.notation.NotationException;
+import org.helm.notation.StructureException;
+import org.helm.notation.model.ComplexPolymer;
+import org.helm.notation.model.PolymerNode;
+import org.helm.notation.tools.ComplexNotationParser;
+
+/**
+ * A validated complex notation together with everything the graph
+ * construction needs from it, so the notation string is tokenized only once.
+ * Instances are created by
+ * {@link org.helm.editor.utility.NotationParser#parseNotation(String, MonomerStore)}
+ * and are not modified afterwards, apart from derived values that are
+ * computed on first use. A single instance can be shared by all views of a
+ * notation update, see {@link NotationUpdateEvent#getParsedNotation()}.
+ */
+public class ParsedNotation {
+
+	private final String notation;
+	private final String resolvedNotation;
+	private final MonomerStore monomerStore;
+	private final ComplexPolymer complexPolymer;
+	private final List<PolymerNode> polymerNodeList;
+	private final String connectionNotation;
+	private final String pairNotation;
+	private String[] componentNotations;
+
+	/**
+	 * @param notation
+	 *            the notation as given by the user
+	 * @param resolvedNotation
+	 *            the notation with dynamic chemical modifiers replaced by
+	 *            monomer ids
+	 * @param monomerStore
+	 *            store the notation was validated against
+	 * @param complexPolymer
+	 *            model parsed from the resolved notation
+	 * @param polymerNodeList
+	 *            polymers with annotations
+	 * @param connectionNotation
+	 *            the regular connection section
+	 * @param pairNotation
+	 *            the base pair section
+	 */
+	public ParsedNotation(String notation, String resolvedNotation,
+			MonomerStore monomerStore, ComplexPolymer complexPolymer,
+			List<PolymerNode> polymerNodeList, String connectionNotation,
+			String pairNotation) {
+		this.notation = notation;
+		this.resolvedNotation = resolvedNotation;
+		this.monomerStore = monomerStore;
+		this.complexPolymer = complexPolymer;
+		this.polymerNodeList = Collections.unmodifiableList(polymerNodeList);
+		this.connectionNotation = connectionNotation;
+		this.pairNotation = pairNotation;
+	}
+
+	public String getNotation() {
+		return notation;
+	}
+
+	public String getResolvedNotation() {
+		return resolvedNotation;
+	}
+
+	public MonomerStore getMonomerStore() {
+		return monomerStore;
+	}
+
+	public ComplexPolymer getComplexPolymer() {
+		return complexPolymer;
+	}
+
+	public List<PolymerNode> getPolymerNodeList() {
+		return polymerNodeList;
+	}
+
+	public String getConnectionNotation() {
+		return connectionNotation;
+	}
+
+	public String getPairNotation() {
+		return pairNotation;
+	}
+
+	/**
+	 * the notations of the connected components, decomposed on first use
+	 * 
+	 * @return component notations, must not be modified
+	 * @throws org.helm.notation.NotationException
+	 */
+	public synchronized String[] getComponentNotations()
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException, ClassNotFoundException {
+		if (componentNotations == null) {
+			componentNotations = ComplexNotationParser.decompose(notation,
+					monomerStore);
+		}
+		return componentNotations;
+	}
+}
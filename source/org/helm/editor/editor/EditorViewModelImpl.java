@@ -33,6 +33,7 @@ import org.helm.notation.NotationException;
 import org.helm.notation.StructureException;
 import org.helm.editor.data.GraphManager;
 import org.helm.editor.data.GraphPair;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.utility.ExceptionHandler;
 import org.helm.editor.utility.Graph2NotationTranslator;
 import org.helm.editor.utility.NotationParser;
@@ -43,8 +44,17 @@ public class EditorViewModelImpl implements EditorViewModel {
 
 	public EditorViewModelImpl(String notation) throws NotationException,
 			MonomerException, IOException, JDOMException, StructureException {
-		GraphPair graphPair = NotationParser.getGraphPair(notation);
+		this(NotationParser.getGraphPair(notation));
+	}
+
+	public EditorViewModelImpl(ParsedNotation parsedNotation)
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException {
+		this(NotationParser.getGraphPair(parsedNotation));
+	}
 
+	private EditorViewModelImpl(GraphPair graphPair) throws NotationException,
+			MonomerException, IOException, JDOMException, StructureException {
 		editor = graphPair.getGraph();
 		editorGraphManager = graphPair.getGraphManager();
 
@@ -966,7 +966,7 @@ public abstract class GUIBase {
 					.getTargetNodeAttachment().getLabel());
 
 			sourceMonomerInfo.setConnection(sourceAtt, true);
-			sourceMonomerInfo.setConnection(targetAtt, true);
+			targetMonomerInfo.setConnection(targetAtt, true);
 
 			edgeMap.set(target, new EditorEdgeInfoData(sourceAtt, targetAtt));
 		}
@@ -234,7 +234,6 @@ public class MacroMoleculeViewer extends JPanel implements DataListener,
 		}
 
 		try {
-			ComplexNotationParser.validateComplexNotation(notation);
 			GraphPair pair = NotationParser.getGraphPair(notation);
 			Graph2NotationTranslator.updateHyperGraph(pair.getGraph(),
 					pair.getGraphManager());
@@ -23,6 +23,7 @@ package org.helm.editor.editor;
 
 import java.awt.Color;
 import java.awt.Container;
+import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -31,6 +32,7 @@ import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -54,6 +56,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 import javax.swing.JTree;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -83,6 +86,7 @@ import org.helm.editor.data.GraphPair;
 import org.helm.editor.data.MonomerInfo;
 import org.helm.editor.data.NodeMapKeys;
 import org.helm.editor.data.NotationUpdateEvent;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.monomerui.PropertyManager;
 import org.helm.editor.monomerui.UIConstructor;
 import org.helm.editor.monomerui.tabui.PolymerUI;
@@ -100,6 +104,7 @@ import org.helm.editor.utility.SequenceLayout;
 import org.helm.editor.utility.xmlparser.data.Template.UIType;
 import org.helm.editor.utility.xmlparser.parser.TemplateParsingException;
 import org.helm.editor.utility.xmlparser.validator.ValidationTemplateExcaption;
+import org.helm.editor.worker.NotationLayoutWorker;
 import org.helm.notation.MonomerException;
 import org.helm.notation.MonomerFactory;
 import org.helm.notation.MonomerStore;
@@ -121,6 +126,8 @@ import y.base.Edge;
 import y.base.EdgeCursor;
 import y.base.EdgeMap;
 import y.base.Graph;
+import y.base.GraphEvent;
+import y.base.GraphListener;
 import y.base.Node;
 import y.base.NodeCursor;
 import y.base.NodeList;
@@ -225,6 +232,38 @@ public class MacromoleculeEditor extends GUIBase implements DataListener,
 
 	private AbstractAction editMonomerStructureAction;
 
+	/**
+	 * revision of the displayed graph, bumped by a listener on every
+	 * structural change
+	 */
+	private int graphRevision = 0;
+	private Graph2D revisionGraph;
+	private final GraphListener revisionListener = new GraphListener() {
+		public void onGraphEvent(GraphEvent e) {
+			graphRevision++;
+		}
+	};
+	/**
+	 * notation and canonical notation memoized for the state described by
+	 * the corresponding key, see {@link #getNotationStateKey()}
+	 */
+	private Object[] notationKey;
+	private String notationMemo;
+	private Object[] canonicalNotationKey;
+	private String canonicalNotationMemo;
+
+	/**
+	 * worker building the graph of the latest notation update, null if the
+	 * displayed graph is up to date
+	 */
+	private NotationLayoutWorker layoutWorker;
+	/**
+	 * edit state of the displayed graph when the layout worker was started,
+	 * see {@link #getEditStateKey()}
+	 */
+	private Object[] layoutWorkerEditState;
+	private boolean asynchronousLayoutEnabled = true;
+
 	// private JMenuItem showSelectedStructItem;
 
 	public MacromoleculeEditor() throws MonomerException, IOException,
@@ -2426,10 +2465,23 @@ public class MacromoleculeEditor extends GUIBase implements DataListener,
 			// return;
 			// }
 
-			ComplexNotationParser.validateComplexNotation(notation,
-					monomerStore);
-			GraphPair pair = NotationParser
-					.getGraphPair(notation, monomerStore);
+			// validation, graph construction and connection wiring share
+			// one parse of the notation
+			updateNotation(NotationParser.parseNotation(notation, monomerStore));
+
+		} catch (Exception ex) {
+			ExceptionHandler.handleException(ex);
+		}
+	}
+
+	/**
+	 * show the graph of an already parsed notation
+	 * 
+	 * @param parsedNotation
+	 */
+	public void updateNotation(ParsedNotation parsedNotation) {
+		try {
+			GraphPair pair = NotationParser.getGraphPair(parsedNotation);
 
 			// set the graph and the graph manager
 			view.setGraph2D(pair.getGraph());
@@ -2453,9 +2505,7 @@ public class MacromoleculeEditor extends GUIBase implements DataListener,
 			return null;
 		} else {
 			try {
-				Graph2NotationTranslator.updateHyperGraph(view.getGraph2D(),
-						graphManager);
-				return Graph2NotationTranslator.getNewNotation(graphManager);
+				return getCurrentNotation();
 			} catch (Exception e) {
 				ExceptionHandler.handleException(e);
 			}
@@ -2465,6 +2515,72 @@ public class MacromoleculeEditor extends GUIBase implements DataListener,
 
 	}
 
+	/**
+	 * notation of the current graph, rebuilt only if the graph, the graph
+	 * manager or the monomer store changed since the last call
+	 */
+	private String getCurrentNotation() throws NotationException,
+			MonomerException, IOException, JDOMException,
+			ClassNotFoundException {
+		if (!Arrays.equals(getNotationStateKey(), notationKey)) {
+			notationKey = null;
+			// hiding and unhiding branch edges while the hyper graph is
+			// updated does not change the notation
+			Graph2D graph = view.getGraph2D();
+			graph.removeGraphListener(revisionListener);
+			try {
+				Graph2NotationTranslator.updateHyperGraph(graph, graphManager);
+			} finally {
+				graph.addGraphListener(revisionListener);
+			}
+			notationMemo = Graph2NotationTranslator
+					.getNewNotation(graphManager);
+			// the update itself changes the graph manager
+			notationKey = getNotationStateKey();
+		}
+		return notationMemo;
+	}
+
+	/**
+	 * describe everything the notation depends on: the graph and its
+	 * revision, the graph manager and its starting nodes and annotations,
+	 * monomer changes of existing nodes and the monomer store
+	 */
+	private Object[] getNotationStateKey() {
+		return new Object[] { view.getGraph2D(),
+				Integer.valueOf(getGraphRevision()), graphManager,
+				Integer.valueOf(graphManager.getModificationCount()),
+				Integer.valueOf(MonomerInfo.getMonomerChangeCount()),
+				MonomerStoreCache.getInstance().getCombinedMonomerStore() };
+	}
+
+	/**
+	 * @return revision of the displayed graph, starting to track the graph if
+	 *         it has been swapped in since the last call
+	 */
+	private int getGraphRevision() {
+		Graph2D graph = view.getGraph2D();
+		if (graph != revisionGraph) {
+			if (revisionGraph != null) {
+				revisionGraph.removeGraphListener(revisionListener);
+			}
+			graph.addGraphListener(revisionListener);
+			revisionGraph = graph;
+			graphRevision++;
+		}
+		return graphRevision;
+	}
+
+	/**
+	 * describe the edits of the displayed graph: its structure and the
+	 * monomers of its nodes
+	 */
+	private Object[] getEditStateKey() {
+		return new Object[] { view.getGraph2D(),
+				Integer.valueOf(getGraphRevision()), graphManager,
+				Integer.valueOf(MonomerInfo.getMonomerChangeCount()) };
+	}
+
 	public MonomerStore getMonomerStore() {
 		return MonomerStoreCache.getInstance().getCombinedMonomerStore();
 
@@ -2482,9 +2598,13 @@ public class MacromoleculeEditor extends GUIBase implements DataListener,
 		if (view.getGraph2D().isEmpty() || graphManager == null) {
 			return null;
 		} else {
-			return ComplexNotationParser
-					.getCanonicalNotation(Graph2NotationTranslator
-							.getNewNotation(graphManager));
+			String notation = getCurrentNotation();
+			if (notationKey != canonicalNotationKey) {
+				canonicalNotationMemo = ComplexNotationParser
+						.getCanonicalNotation(notation);
+				canonicalNotationKey = notationKey;
+			}
+			return canonicalNotationMemo;
 		}
 
 	}
@@ -2557,41 +2677,164 @@ public class MacromoleculeEditor extends GUIBase implements DataListener,
 			return;
 		}
 
+		String notation = event.getData();
+		if (asynchronousLayoutEnabled && SwingUtilities.isEventDispatchThread()
+				&& notation != null && !notation.equals("")
+				&& !notation.equals("$$$$")) {
+			startLayoutWorker(event);
+			return;
+		}
+
+		cancelLayoutWorker();
 		graphManager.reset();
 		synchronizeZoom();
 
 		try {
 
 			// always update graph in the editor..
-			updateNotation(event.getData(), MonomerStoreCache.getInstance()
-					.getCombinedMonomerStore());
+			if (notation == null || notation.equals("")
+					|| notation.equals("$$$$")
+					|| SwingUtilities.isEventDispatchThread()) {
+				// on the event dispatch thread the notation is parsed here:
+				// the shared parse of the event blocks while another listener
+				// is parsing it
+				updateNotation(notation, MonomerStoreCache.getInstance()
+						.getCombinedMonomerStore());
+			} else {
+				updateNotation(event.getParsedNotation());
+			}
 
 			updateAnnotator();
 			graphManager.getAnnotator().annotateAllBasePosition();
 
 			runLayout();
-			double zoom = view.getZoom();
+			fitLayoutedContent();
+		} catch (Exception e) {
+			ExceptionHandler.handleException(e);
+		}
+	}
 
-			boolean keepzoom = false;
-			// keep zoom
-			if ((Double.compare(zoom, this.zoom) < 0)
-					&& (Double.compare(this.zoom, 1.0) != 0)) {
-				keepzoom = true;
-			}
-			// else {
-			view.fitContent();
+	/**
+	 * Builds and lays out the graph of the notation on a background thread.
+	 * The current graph stays visible until the new one is swapped in by
+	 * {@link #graphLayouted(NotationLayoutWorker, GraphPair)}. A pending
+	 * update is dropped when a newer one arrives; if the current graph is
+	 * edited in the meantime, the user decides which one to keep.
+	 * 
+	 * @param event
+	 */
+	private void startLayoutWorker(NotationUpdateEvent event) {
+		if (layoutWorker == null) {
+			synchronizeZoom();
+		} else {
+			layoutWorker.cancel(false);
+		}
+
+		view.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		layoutWorkerEditState = getEditStateKey();
+		layoutWorker = new NotationLayoutWorker(this, event, ModelController
+				.getInstance().getCancellationToken(event));
+		layoutWorker.execute();
+	}
 
-			if (keepzoom) {
-				view.setZoom(this.zoom);
-				view.setCenter(zoomingAreaCenter.getX(),
-						zoomingAreaCenter.getY());
+	private void cancelLayoutWorker() {
+		if (layoutWorker != null) {
+			layoutWorker.cancel(false);
+			layoutWorker = null;
+			layoutWorkerEditState = null;
+			view.setCursor(Cursor.getDefaultCursor());
+		}
+	}
+
+	/**
+	 * Called on the event dispatch thread when a layout worker is done.
+	 * Results of workers that have been superseded are ignored. If the
+	 * displayed graph has been edited while the worker was running, the user
+	 * decides whether the edits or the new graph are kept; when the edits
+	 * are kept they are published, as the other views already show the
+	 * notation of the update.
+	 * 
+	 * @param worker
+	 * @param pair
+	 *            the laid out graph, or null if the worker failed or was
+	 *            cancelled
+	 */
+	public void graphLayouted(NotationLayoutWorker worker, GraphPair pair) {
+		if (worker != layoutWorker) {
+			return;
+		}
+		layoutWorker = null;
+		Object[] editState = layoutWorkerEditState;
+		layoutWorkerEditState = null;
+		view.setCursor(Cursor.getDefaultCursor());
+		if (pair == null) {
+			return;
+		}
+		if (!Arrays.equals(editState, getEditStateKey())) {
+			int answer = JOptionPane
+					.showConfirmDialog(
+							getContentComponent(),
+							"The structure was edited while the new notation was loaded.\n"
+									+ "Discard the edits and show the new notation?",
+							"Notation Update", JOptionPane.YES_NO_OPTION,
+							JOptionPane.QUESTION_MESSAGE);
+			if (layoutWorker != null) {
+				// a newer update arrived while the dialog was open
+				return;
 			}
-			// }
+			if (answer != JOptionPane.YES_OPTION) {
+				ModelController.notationUpdated(getNotation(), _ownerCode);
+				return;
+			}
+		}
 
-			view.updateView();
-		} catch (Exception e) {
-			ExceptionHandler.handleException(e);
+		graphManager.reset();
+		view.setGraph2D(pair.getGraph());
+		graphManager = pair.getGraphManager();
+		updateAnnotator();
+		fitLayoutedContent();
+	}
+
+	/**
+	 * @return true if notation updates are laid out on a background thread
+	 */
+	public boolean isAsynchronousLayoutEnabled() {
+		return asynchronousLayoutEnabled;
+	}
+
+	/**
+	 * @param asynchronousLayoutEnabled
+	 *            if false, notation updates are parsed and laid out on the
+	 *            calling thread
+	 */
+	public void setAsynchronousLayoutEnabled(boolean asynchronousLayoutEnabled) {
+		this.asynchronousLayoutEnabled = asynchronousLayoutEnabled;
+	}
+
+	/**
+	 * fit the freshly laid out graph into the view, keeping the zoom of the
+	 * previous graph if the user had zoomed in
+	 */
+	private void fitLayoutedContent() {
+		double zoom = view.getZoom();
+
+		boolean keepzoom = false;
+		// keep zoom
+		if ((Double.compare(zoom, this.zoom) < 0)
+				&& (Double.compare(this.zoom, 1.0) != 0)) {
+			keepzoom = true;
 		}
+		// else {
+		view.fitContent();
+
+		if (keepzoom) {
+			view.setZoom(this.zoom);
+			view.setCenter(zoomingAreaCenter.getX(),
+					zoomingAreaCenter.getY());
+		}
+		// }
+
+		view.updateView();
 	}
 
 	public void synchronizeZoom() {
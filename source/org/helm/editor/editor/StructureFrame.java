@@ -184,7 +184,8 @@ public class StructureFrame extends JFrame {
 
 			// add the new monomer to the dictionary
 			try {
-				storeToAdd.addNewMonomer(monomer);
+				MonomerStoreCache.getInstance().addNewMonomer(storeToAdd,
+						monomer);
 			} catch (Exception e) {
 				// JOptionPane.showMessageDialog(null, e.getMessage(), "Error",
 				// JOptionPane.WARNING_MESSAGE);
@@ -222,16 +223,12 @@ public class StructureFrame extends JFrame {
 			return;
 		}
 
-		// set up attachment points
+		// check attachment points, the node attachments are shared with other
+		// nodes and are rebound to the new monomer by setMonomerID
 		for (Attachment a1 : monomerInfo.getUsedAttachmentList()) {
 			boolean f = false;
 			for (Attachment a2 : monomer.getAttachmentList()) {
 				if (a1.getLabel().compareTo(a2.getLabel()) == 0) {
-					if (a1.getAlternateId().compareTo(a2.getAlternateId()) != 0) {
-						a1.setAlternateId(a2.getAlternateId());
-						a1.setCapGroupName(a2.getCapGroupName());
-						a1.setCapGroupSMILES(a2.getCapGroupSMILES());
-					}
 					f = true;
 					break;
 				}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.layout;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import y.base.DataProvider;
+import y.base.Edge;
+import y.base.EdgeCursor;
+import y.base.Graph;
+import y.base.Node;
+import y.base.NodeCursor;
+import y.base.YList;
+import y.geom.YPoint;
+import y.layout.LayoutGraph;
+
+import org.helm.editor.data.EdgeMapKeys;
+import org.helm.editor.data.MonomerInfo;
+import org.helm.editor.data.NodeMapKeys;
+
+/**
+ * Per graph record of the last computed layout of every connected component.
+ * A component whose monomers, monomer ids and connections are the same as in
+ * the recorded layout gets its recorded coordinates back instead of running
+ * the structure layouts again. Components are recognized by the identity of
+ * their MonomerInfo and edge info objects, which survive the graph copies made
+ * by the layouters.
+ */
+class ComponentLayoutCache {
+
+	private static final Map<Graph, ComponentLayoutCache> caches = new WeakHashMap<Graph, ComponentLayoutCache>();
+
+	private static class NodeState {
+		private final String monomerId;
+		private final double x;
+		private final double y;
+		private final LabelInfo labelInfo;
+		private final boolean flipped;
+
+		private NodeState(String monomerId, double x, double y,
+				LabelInfo labelInfo) {
+			this.monomerId = monomerId;
+			this.x = x;
+			this.y = y;
+			this.labelInfo = labelInfo;
+			this.flipped = labelInfo != null && labelInfo.isFlipped();
+		}
+	}
+
+	private static class EdgeState {
+		private final MonomerInfo source;
+		private final MonomerInfo target;
+		private final YPoint sourcePoint;
+		private final YPoint targetPoint;
+		private final YList points;
+
+		private EdgeState(MonomerInfo source, MonomerInfo target,
+				YPoint sourcePoint, YPoint targetPoint, YList points) {
+			this.source = source;
+			this.target = target;
+			this.sourcePoint = sourcePoint;
+			this.targetPoint = targetPoint;
+			this.points = points;
+		}
+	}
+
+	private static class ComponentState {
+		private final Map<MonomerInfo, NodeState> nodes = new IdentityHashMap<MonomerInfo, NodeState>();
+		private final Map<Object, EdgeState> edges = new IdentityHashMap<Object, EdgeState>();
+	}
+
+	/** recorded components by each of their monomers */
+	private final Map<MonomerInfo, ComponentState> components = new IdentityHashMap<MonomerInfo, ComponentState>();
+
+	/** components laid out or restored by the current run */
+	private final Set<ComponentState> used = new HashSet<ComponentState>();
+
+	private Object layoutKind;
+
+	private ComponentLayoutCache() {
+	}
+
+	/**
+	 * @param graph
+	 *            the graph given to the layout module
+	 * @return the cache of the graph, created on first use
+	 */
+	static synchronized ComponentLayoutCache getInstance(Graph graph) {
+		ComponentLayoutCache cache = caches.get(graph);
+		if (cache == null) {
+			cache = new ComponentLayoutCache();
+			caches.put(graph, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * to be called before the components are laid out
+	 * 
+	 * @param layoutKind
+	 *            identifies the layout settings, the recorded layouts are
+	 *            dropped when it changes
+	 */
+	synchronized void beginRun(Object layoutKind) {
+		if (this.layoutKind == null || !this.layoutKind.equals(layoutKind)) {
+			components.clear();
+			this.layoutKind = layoutKind;
+		}
+		used.clear();
+	}
+
+	/**
+	 * to be called after all components were laid out, forgets the
+	 * components that were not part of this run
+	 */
+	synchronized void endRun() {
+		components.values().retainAll(used);
+		used.clear();
+	}
+
+	/**
+	 * Restores the recorded layout of the given component if it did not
+	 * change since it was recorded.
+	 * 
+	 * @param graph
+	 *            layout graph showing exactly one component
+	 * @return true if the layout was restored
+	 */
+	synchronized boolean restore(LayoutGraph graph) {
+		ComponentState state = find(graph);
+		if (state == null) {
+			return false;
+		}
+
+		DataProvider monomerInfoDP = graph
+				.getDataProvider(NodeMapKeys.MONOMER_REF);
+		DataProvider edgeInfoDP = graph.getDataProvider(EdgeMapKeys.EDGE_INFO);
+		for (NodeCursor nodes = graph.nodes(); nodes.ok(); nodes.next()) {
+			Node node = nodes.node();
+			NodeState nodeState = state.nodes.get(monomerInfoDP.get(node));
+			graph.setCenter(node, nodeState.x, nodeState.y);
+			if (nodeState.labelInfo != null) {
+				nodeState.labelInfo.setFlipped(nodeState.flipped);
+			}
+		}
+		for (EdgeCursor edges = graph.edges(); edges.ok(); edges.next()) {
+			Edge edge = edges.edge();
+			EdgeState edgeState = state.edges.get(edgeInfoDP.get(edge));
+			graph.setPoints(edge, new YList(edgeState.points));
+			graph.setSourcePointRel(edge, edgeState.sourcePoint);
+			graph.setTargetPointRel(edge, edgeState.targetPoint);
+		}
+		used.add(state);
+		return true;
+	}
+
+	/**
+	 * Records the layout just computed for the given component.
+	 * 
+	 * @param graph
+	 *            layout graph showing exactly one component
+	 */
+	synchronized void record(LayoutGraph graph) {
+		DataProvider monomerInfoDP = graph
+				.getDataProvider(NodeMapKeys.MONOMER_REF);
+		DataProvider edgeInfoDP = graph.getDataProvider(EdgeMapKeys.EDGE_INFO);
+		DataProvider labelInfoDP = graph
+				.getDataProvider(NodeMapKeys.LABEL_INFO_MAP);
+		if (monomerInfoDP == null || edgeInfoDP == null) {
+			return;
+		}
+
+		ComponentState state = new ComponentState();
+		for (NodeCursor nodes = graph.nodes(); nodes.ok(); nodes.next()) {
+			Node node = nodes.node();
+			MonomerInfo monomerInfo = (MonomerInfo) monomerInfoDP.get(node);
+			if (monomerInfo == null) {
+				return;
+			}
+			LabelInfo labelInfo = (labelInfoDP == null) ? null
+					: (LabelInfo) labelInfoDP.get(node);
+			state.nodes.put(monomerInfo,
+					new NodeState(monomerInfo.getMonomerID(), graph
+							.getCenterX(node), graph.getCenterY(node),
+							labelInfo));
+		}
+		for (EdgeCursor edges = graph.edges(); edges.ok(); edges.next()) {
+			Edge edge = edges.edge();
+			Object edgeInfo = edgeInfoDP.get(edge);
+			if (edgeInfo == null || state.edges.containsKey(edgeInfo)) {
+				return;
+			}
+			state.edges.put(edgeInfo, new EdgeState(
+					(MonomerInfo) monomerInfoDP.get(edge.source()),
+					(MonomerInfo) monomerInfoDP.get(edge.target()), graph
+							.getSourcePointRel(edge), graph
+							.getTargetPointRel(edge), new YList(graph
+							.getPointList(edge))));
+		}
+		if (state.nodes.size() != graph.nodeCount()) {
+			return;
+		}
+
+		for (MonomerInfo monomerInfo : state.nodes.keySet()) {
+			components.put(monomerInfo, state);
+		}
+		used.add(state);
+	}
+
+	private ComponentState find(LayoutGraph graph) {
+		DataProvider monomerInfoDP = graph
+				.getDataProvider(NodeMapKeys.MONOMER_REF);
+		DataProvider edgeInfoDP = graph.getDataProvider(EdgeMapKeys.EDGE_INFO);
+		if (monomerInfoDP == null || edgeInfoDP == null || graph.isEmpty()) {
+			return null;
+		}
+
+		ComponentState state = components.get(monomerInfoDP.get(graph
+				.firstNode()));
+		if (state == null || state.nodes.size() != graph.nodeCount()
+				|| state.edges.size() != graph.edgeCount()) {
+			return null;
+		}
+
+		Set<MonomerInfo> matchedNodes = Collections
+				.newSetFromMap(new IdentityHashMap<MonomerInfo, Boolean>());
+		for (NodeCursor nodes = graph.nodes(); nodes.ok(); nodes.next()) {
+			MonomerInfo monomerInfo = (MonomerInfo) monomerInfoDP.get(nodes
+					.node());
+			NodeState nodeState = state.nodes.get(monomerInfo);
+			if (nodeState == null
+					|| !nodeState.monomerId.equals(monomerInfo.getMonomerID())
+					|| !matchedNodes.add(monomerInfo)) {
+				return null;
+			}
+		}
+
+		Set<EdgeState> matchedEdges = new HashSet<EdgeState>();
+		for (EdgeCursor edges = graph.edges(); edges.ok(); edges.next()) {
+			Edge edge = edges.edge();
+			EdgeState edgeState = state.edges.get(edgeInfoDP.get(edge));
+			if (edgeState == null
+					|| edgeState.source != monomerInfoDP.get(edge.source())
+					|| edgeState.target != monomerInfoDP.get(edge.target())
+					|| !matchedEdges.add(edgeState)) {
+				return null;
+			}
+		}
+		return state;
+	}
+}
@@ -21,8 +21,12 @@
  ******************************************************************************/
 package org.helm.editor.layout;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import y.algo.GraphChecker;
 import y.algo.GraphConnectivity;
@@ -30,11 +34,13 @@ import y.base.DataProvider;
 import y.base.EdgeCursor;
 import y.base.Graph;
 import y.base.Node;
+import y.base.NodeCursor;
 import y.base.NodeList;
 import y.base.NodeMap;
 import y.layout.BufferedLayouter;
 import y.layout.CanonicMultiStageLayouter;
 import y.layout.ComponentLayouter;
+import y.layout.CopiedLayoutGraph;
 import y.layout.LayoutGraph;
 import y.layout.LayoutMultiplexer;
 import y.layout.Layouter;
@@ -54,6 +60,7 @@ import org.helm.editor.layout.procedures.ComplementaryStructuresLayout;
 import org.helm.editor.layout.procedures.DumbbellStructureLayout;
 import org.helm.editor.layout.procedures.HairPinStructuresLayout;
 import org.helm.editor.layout.procedures.LinearStructureLayout;
+import org.helm.editor.utility.CancellationToken;
 import org.helm.editor.utility.MonomerInfoUtils;
 
 /**
@@ -62,26 +69,129 @@ import org.helm.editor.utility.MonomerInfoUtils;
 public class StructuresLayoutModule extends LayoutModule {
 	AbstractLayoutPrimitives layoutPrimitives = null;
 
-	private AbstratStructureLayout linearStructureLayout = null;
-	private AbstratStructureLayout complementaryStructuresLayout = null;
-	private AbstratStructureLayout circularStructureLayout = null;
-	private AbstratStructureLayout dumbbellStructureLayout = null;
-	private AbstratStructureLayout hairPinStructuresLayout = null;
-	private AbstratStructureLayout chemModifiersLayout = null;
+	/**
+	 * pool shared by all modules for the parallel layout of components
+	 */
+	private static final ForkJoinPool LAYOUT_POOL = new ForkJoinPool();
 
-	private CanonicMultiStageLayouter unsupportedStructuresLayout = null;
+	/**
+	 * The structure layouts keep state while they run, so every thread
+	 * laying out components needs its own set.
+	 */
+	private static class StructureLayouts {
+		private final LinearStructureLayout linearStructureLayout = new LinearStructureLayout();
+		private final AbstratStructureLayout complementaryStructuresLayout = new ComplementaryStructuresLayout();
+		private final AbstratStructureLayout circularStructureLayout = new CircularStructureLayout();
+		private final AbstratStructureLayout dumbbellStructureLayout = new DumbbellStructureLayout();
+		private final AbstratStructureLayout hairPinStructuresLayout = new HairPinStructuresLayout();
+		private final AbstratStructureLayout chemModifiersLayout = new ChemModifiersLayout();
+
+		private final CanonicMultiStageLayouter unsupportedStructuresLayout = new SmartOrganicLayouter();
+
+		private void setLayoutPrimitives(
+				AbstractLayoutPrimitives layoutPrimitives) {
+			linearStructureLayout.setLayoutPrimitives(layoutPrimitives);
+			complementaryStructuresLayout.setLayoutPrimitives(layoutPrimitives);
+			circularStructureLayout.setLayoutPrimitives(layoutPrimitives);
+			dumbbellStructureLayout.setLayoutPrimitives(layoutPrimitives);
+			hairPinStructuresLayout.setLayoutPrimitives(layoutPrimitives);
+			chemModifiersLayout.setLayoutPrimitives(layoutPrimitives);
+		}
+	}
+
+	/**
+	 * lays out a list of component copies, splitting it until single
+	 * components are left
+	 */
+	private class ComponentLayoutTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<CopiedLayoutGraph> components;
+
+		private final ComponentLayoutCache componentCache;
+
+		private ComponentLayoutTask(List<CopiedLayoutGraph> components,
+				ComponentLayoutCache componentCache) {
+			this.components = components;
+			this.componentCache = componentCache;
+		}
+
+		@Override
+		protected void compute() {
+			if (components.size() > 1) {
+				int middle = components.size() / 2;
+				invokeAll(new ComponentLayoutTask(components.subList(0, middle),
+						componentCache), new ComponentLayoutTask(components
+						.subList(middle, components.size()), componentCache));
+				return;
+			}
+
+			for (CopiedLayoutGraph component : components) {
+				if (cancellationToken.isCancelled()) {
+					return;
+				}
+				StructureLayouts layouts = new StructureLayouts();
+				layouts.setLayoutPrimitives(layoutPrimitives);
+				layoutComponent(component, layouts);
+				componentCache.record(component);
+			}
+		}
+	}
+
+	private final StructureLayouts structureLayouts = new StructureLayouts();
+
+	private boolean parallelLayoutEnabled = false;
+
+	private boolean linearFastPathEnabled = true;
+
+	private CancellationToken cancellationToken = CancellationToken.NONE;
 
 	public StructuresLayoutModule() {
 		super(StructuresLayoutModule.class.getName(), "", "Layout Module");
+	}
 
-		linearStructureLayout = new LinearStructureLayout();
-		complementaryStructuresLayout = new ComplementaryStructuresLayout();
-		circularStructureLayout = new CircularStructureLayout();
-		dumbbellStructureLayout = new DumbbellStructureLayout();
-		hairPinStructuresLayout = new HairPinStructuresLayout();
-		chemModifiersLayout = new ChemModifiersLayout();
+	/**
+	 * In parallel mode every connected component that needs a new layout is
+	 * copied to its own layout graph and laid out in a fork-join pool. The
+	 * results are written back to the graph in one pass on the calling
+	 * thread before the components are arranged.
+	 * 
+	 * @param parallelLayoutEnabled
+	 */
+	public void setParallelLayoutEnabled(boolean parallelLayoutEnabled) {
+		this.parallelLayoutEnabled = parallelLayoutEnabled;
+	}
 
-		unsupportedStructuresLayout = new SmartOrganicLayouter();
+	public boolean isParallelLayoutEnabled() {
+		return parallelLayoutEnabled;
+	}
+
+	/**
+	 * Components that are a plain linear strand get their coordinates
+	 * directly from the layout primitives instead of going through the
+	 * generic layouters. Enabled by default.
+	 * 
+	 * @param linearFastPathEnabled
+	 */
+	public void setLinearFastPathEnabled(boolean linearFastPathEnabled) {
+		this.linearFastPathEnabled = linearFastPathEnabled;
+	}
+
+	public boolean isLinearFastPathEnabled() {
+		return linearFastPathEnabled;
+	}
+
+	/**
+	 * Once the token is cancelled, the remaining components are left as they
+	 * are and the layout of the graph is incomplete. Callers must check the
+	 * token after the module has run.
+	 * 
+	 * @param cancellationToken
+	 */
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = (cancellationToken == null) ? CancellationToken.NONE
+				: cancellationToken;
 	}
 
 	@Override
@@ -89,72 +199,176 @@ public class StructuresLayoutModule extends LayoutModule {
 		// set module properties
 		setMorphingEnabled(false);
 
-		// component arrangement
+		// unchanged components keep their last layout, the component
+		// layouter only moves them as a block
+		final ComponentLayoutCache componentCache = ComponentLayoutCache
+				.getInstance(getGraph2D());
+
+		Layouter layouter;
+		if (parallelLayoutEnabled) {
+			layouter = new Layouter() {
+				public boolean canLayout(LayoutGraph arg0) {
+					return true;
+				}
+
+				public void doLayout(LayoutGraph graph) {
+					layoutComponentsInParallel(graph, componentCache);
+				}
+			};
+		} else {
+			// component arrangement
+			ComponentLayouter cl = createComponentLayouter();
+			cl.setCoreLayouter(new Layouter() {
+				public boolean canLayout(LayoutGraph arg0) {
+					return true;
+				}
+
+				public void doLayout(LayoutGraph graph) {
+					if (cancellationToken.isCancelled()
+							|| componentCache.restore(graph)) {
+						return;
+					}
+
+					layoutComponent(graph, structureLayouts);
+
+					componentCache.record(graph);
+				}
+			});
+			layouter = cl;
+		}
+
+		componentCache.beginRun(layoutPrimitives.getClass());
+		try {
+			launchLayouter(layouter);
+		} finally {
+			componentCache.endRun();
+		}
+	}
+
+	private static ComponentLayouter createComponentLayouter() {
 		ComponentLayouter cl = new ComponentLayouter();
 		cl.setComponentSpacing(10);
 		cl.setGridSpacing(10);
 		cl.setLabelAwarenessEnabled(true);
 		cl.setStyle(ComponentLayouter.STYLE_SINGLE_COLUMN);
+		return cl;
+	}
 
-		cl.setCoreLayouter(new Layouter() {
+	private void layoutComponentsInParallel(LayoutGraph graph,
+			final ComponentLayoutCache componentCache) {
+		// copy every component that needs a new layout, the component
+		// layouter shows one component at a time
+		final List<CopiedLayoutGraph> components = new ArrayList<CopiedLayoutGraph>();
+		ComponentLayouter collector = createComponentLayouter();
+		collector.setComponentArrangement(false);
+		collector.setCoreLayouter(new Layouter() {
 			public boolean canLayout(LayoutGraph arg0) {
 				return true;
 			}
 
-			public void doLayout(LayoutGraph graph) {
-				BufferedLayouter bufferedLayouter = new BufferedLayouter(
-						new Layouter() {
-							public void doLayout(LayoutGraph graph) {
-								GraphHider graphHider = new GraphHider(graph);
-								for (Node n : graph.getNodeArray()) {
-									if (MonomerInfoUtils
-											.isChemicalModifierPolymer(n)) {
-										graphHider.hide(n);
-									}
-								}
-
-								createLayoutTypeDataProvider(graph);
-
-								// ComponentLayouter uses LayoutMultiplexer as
-								// its core layouter, which, for
-								// each component, invokes the layouter
-								// retrieved from the data provider
-								// registered with the graph.
-								// Afterwards, the ComponentLayouter nicely
-								// arranges the components.
-								ComponentLayouter cl = new ComponentLayouter();
-								cl.setCoreLayouter(new LayoutMultiplexer());
-								cl.setComponentSpacing(10);
-								cl.setGridSpacing(10);
-								cl.setLabelAwarenessEnabled(true);
-								cl.setStyle(ComponentLayouter.STYLE_SINGLE_COLUMN);
-								cl.doLayout(graph);
-								graphHider.unhideAll();
-
-								// Remove the data providers from the graph.
-								deleteDataProviders();
-							}
+			public void doLayout(LayoutGraph component) {
+				if (!cancellationToken.isCancelled()
+						&& !componentCache.restore(component)) {
+					components.add(new CopiedLayoutGraph(component));
+				}
+			}
+		});
+		collector.doLayout(graph);
+		if (cancellationToken.isCancelled()) {
+			return;
+		}
 
-							public boolean canLayout(LayoutGraph arg0) {
-								return true;
-							}
-						});
-				bufferedLayouter.doLayout(graph);
+		if (!components.isEmpty()) {
+			LAYOUT_POOL.invoke(new ComponentLayoutTask(components,
+					componentCache));
+		}
+
+		// write all results back in one batch
+		for (CopiedLayoutGraph component : components) {
+			component.commitLayoutToOriginalGraph();
+		}
+
+		// the components are laid out now, only arrange them
+		ComponentLayouter arranger = createComponentLayouter();
+		arranger.setCoreLayouter(new Layouter() {
+			public boolean canLayout(LayoutGraph arg0) {
+				return true;
+			}
 
-				// layout chem nodes
-				chemModifiersLayout.doLayout(graph);
+			public void doLayout(LayoutGraph component) {
 			}
 		});
-
-		launchLayouter(cl);
+		arranger.doLayout(graph);
 	}
 
-	private void deleteDataProviders() {
-		getGraph2D().removeDataProvider(
-				getGraph2D().getDataProvider(LayoutMultiplexer.LAYOUTER_DPKEY));
+	/**
+	 * Runs the structure layouts and the chem modifier layout on a graph
+	 * showing a single connected component.
+	 * 
+	 * @param graph
+	 * @param layouts
+	 */
+	private void layoutComponent(LayoutGraph graph,
+			final StructureLayouts layouts) {
+		if (linearFastPathEnabled && isPlainLinearStrand(graph)) {
+			// one pass over the strand, without graph copies and layouter
+			// multiplexing
+			layouts.linearStructureLayout.layoutStrand(graph);
+			return;
+		}
+
+		// a structure of the same topology may have been laid out before
+		TopologyLayoutCache topologyCache = TopologyLayoutCache.getInstance();
+		TopologyLayoutCache.Topology topology = topologyCache.describe(graph,
+				layoutPrimitives.getLayoutKey());
+		if (topology != null && topologyCache.restore(graph, topology)) {
+			return;
+		}
+
+		BufferedLayouter bufferedLayouter = new BufferedLayouter(
+				new Layouter() {
+					public void doLayout(LayoutGraph graph) {
+						GraphHider graphHider = new GraphHider(graph);
+						for (Node n : graph.getNodeArray()) {
+							if (MonomerInfoUtils.isChemicalModifierPolymer(n)) {
+								graphHider.hide(n);
+							}
+						}
+
+						createLayoutTypeDataProvider(graph, layouts);
+
+						// ComponentLayouter uses LayoutMultiplexer as
+						// its core layouter, which, for
+						// each component, invokes the layouter
+						// retrieved from the data provider
+						// registered with the graph.
+						// Afterwards, the ComponentLayouter nicely
+						// arranges the components.
+						ComponentLayouter cl = createComponentLayouter();
+						cl.setCoreLayouter(new LayoutMultiplexer());
+						cl.doLayout(graph);
+						graphHider.unhideAll();
+
+						// Remove the data providers from the graph.
+						graph.removeDataProvider(LayoutMultiplexer.LAYOUTER_DPKEY);
+					}
+
+					public boolean canLayout(LayoutGraph arg0) {
+						return true;
+					}
+				});
+		bufferedLayouter.doLayout(graph);
+
+		// layout chem nodes
+		layouts.chemModifiersLayout.doLayout(graph);
+
+		if (topology != null) {
+			topologyCache.record(graph, topology);
+		}
 	}
 
-	private void createLayoutTypeDataProvider(LayoutGraph graph) {
+	private void createLayoutTypeDataProvider(LayoutGraph graph,
+			StructureLayouts layouts) {
 		NodeList[] components = GraphConnectivity.connectedComponents(graph);
 
 		// Create a node map that will be used as a data provider to hold a
@@ -197,54 +411,40 @@ public class StructuresLayoutModule extends LayoutModule {
 			boolean isCyclic = GraphChecker.isCyclic(temp);
 
 			Node startingHyperNode = getHyperNode(component.firstNode());
-			DataProvider hyperEdgeDescription = startingHyperNode.getGraph()
-					.getDataProvider(EdgeMapKeys.DESCRIPTION);
-			Set<Node> pairHyperNodesSet = new HashSet<Node>();
-			for (EdgeCursor edges = startingHyperNode.edges(); edges.ok(); edges
-					.next()) {
-				String description = (String) hyperEdgeDescription.get(edges
-						.edge());
-				// @@2@@
-				if (description.contains("pair")) {
-					Node pairHyperNode = startingHyperNode.equals(edges.edge()
-							.source()) ? edges.edge().target() : edges.edge()
-							.source();
-					pairHyperNodesSet.add(pairHyperNode);
-				}
-				// detect backbone-branch and branch-branch connections
-				if (description.contains("R3")) {
-					Node pairHyperNode = startingHyperNode.equals(edges.edge()
-							.source()) ? edges.edge().target() : edges.edge()
-							.source();
-					pairHyperNodesSet.add(pairHyperNode);
-				}
-			}
+			Set<Node> pairHyperNodesSet = getPairHyperNodes(startingHyperNode);
 			if (pairHyperNodesSet.size() == 0) {
 				// if this sequence has no paired sequence
 				if (isCyclic) {
-					nm.set(component.firstNode(), circularStructureLayout);
+					nm.set(component.firstNode(),
+							layouts.circularStructureLayout);
 				} else {
-					nm.set(component.firstNode(), linearStructureLayout);
+					nm.set(component.firstNode(),
+							layouts.linearStructureLayout);
 				}
 			} else if (pairHyperNodesSet.contains(startingHyperNode)) {
 				// the pair node is the same node
 				// if it is "stand alone" structure
 				if (pairHyperNodesSet.size() == 1) {
 					if (isCyclic) {
-						nm.set(component.firstNode(), dumbbellStructureLayout);
+						nm.set(component.firstNode(),
+								layouts.dumbbellStructureLayout);
 					} else {
-						nm.set(component.firstNode(), hairPinStructuresLayout);
+						nm.set(component.firstNode(),
+								layouts.hairPinStructuresLayout);
 					}
 				} else {
-					nm.set(component.firstNode(), unsupportedStructuresLayout);
+					nm.set(component.firstNode(),
+							layouts.unsupportedStructuresLayout);
 				}
 			} else { // doesn't contain
 				// if there is at least one cycle them unsupported structures
 				// layout should be used
 				if (isCyclic) {
-					nm.set(component.firstNode(), unsupportedStructuresLayout);
+					nm.set(component.firstNode(),
+							layouts.unsupportedStructuresLayout);
 				} else {
-					nm.set(component.firstNode(), complementaryStructuresLayout);
+					nm.set(component.firstNode(),
+							layouts.complementaryStructuresLayout);
 				}
 			}
 		}
@@ -261,6 +461,71 @@ public class StructuresLayoutModule extends LayoutModule {
 	// }
 	// }
 
+	/**
+	 * @param startingHyperNode
+	 * @return the hyper nodes paired or branch connected to the given one,
+	 *         including itself for intra polymer connections
+	 */
+	private Set<Node> getPairHyperNodes(Node startingHyperNode) {
+		DataProvider hyperEdgeDescription = startingHyperNode.getGraph()
+				.getDataProvider(EdgeMapKeys.DESCRIPTION);
+		Set<Node> pairHyperNodesSet = new HashSet<Node>();
+		for (EdgeCursor edges = startingHyperNode.edges(); edges.ok(); edges
+				.next()) {
+			String description = (String) hyperEdgeDescription.get(edges
+					.edge());
+			// @@2@@
+			if (description.contains("pair")) {
+				Node pairHyperNode = startingHyperNode.equals(edges.edge()
+						.source()) ? edges.edge().target() : edges.edge()
+						.source();
+				pairHyperNodesSet.add(pairHyperNode);
+			}
+			// detect backbone-branch and branch-branch connections
+			if (description.contains("R3")) {
+				Node pairHyperNode = startingHyperNode.equals(edges.edge()
+						.source()) ? edges.edge().target() : edges.edge()
+						.source();
+				pairHyperNodesSet.add(pairHyperNode);
+			}
+		}
+		return pairHyperNodesSet;
+	}
+
+	/**
+	 * A component is a plain linear strand if it is the tree of a single
+	 * polymer without chemical modifiers and without pair or branch
+	 * connections, the case in which createLayoutTypeDataProvider selects
+	 * the linear structure layout.
+	 * 
+	 * @param graph
+	 *            graph showing a single connected component
+	 * @return true if the component is a plain linear strand
+	 */
+	private boolean isPlainLinearStrand(LayoutGraph graph) {
+		if (graph.isEmpty() || graph.edgeCount() != graph.nodeCount() - 1) {
+			return false;
+		}
+
+		DataProvider node2Hipernode = graph
+				.getDataProvider(NodeMapKeys.NODE2PARENT_HYPERNODE);
+		if (node2Hipernode == null) {
+			return false;
+		}
+		Node hyperNode = (Node) node2Hipernode.get(graph.firstNode());
+		if (hyperNode == null) {
+			return false;
+		}
+		for (NodeCursor nodes = graph.nodes(); nodes.ok(); nodes.next()) {
+			if (node2Hipernode.get(nodes.node()) != hyperNode
+					|| MonomerInfoUtils.isChemicalModifierPolymer(nodes
+							.node())) {
+				return false;
+			}
+		}
+		return getPairHyperNodes(hyperNode).isEmpty();
+	}
+
 	private Node getHyperNode(Node node) {
 		DataProvider node2Hipernode = node.getGraph().getDataProvider(
 				NodeMapKeys.NODE2PARENT_HYPERNODE);
@@ -270,11 +535,6 @@ public class StructuresLayoutModule extends LayoutModule {
 	public void setLayoutPrimitives(AbstractLayoutPrimitives layoutPrimitives) {
 		this.layoutPrimitives = layoutPrimitives;
 
-		linearStructureLayout.setLayoutPrimitives(layoutPrimitives);
-		complementaryStructuresLayout.setLayoutPrimitives(layoutPrimitives);
-		circularStructureLayout.setLayoutPrimitives(layoutPrimitives);
-		dumbbellStructureLayout.setLayoutPrimitives(layoutPrimitives);
-		hairPinStructuresLayout.setLayoutPrimitives(layoutPrimitives);
-		chemModifiersLayout.setLayoutPrimitives(layoutPrimitives);
+		structureLayouts.setLayoutPrimitives(layoutPrimitives);
 	}
 }
@@ -0,0 +1,356 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.layout;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import y.base.DataProvider;
+import y.base.Edge;
+import y.base.EdgeCursor;
+import y.base.Node;
+import y.base.YList;
+import y.geom.YPoint;
+import y.layout.LayoutGraph;
+
+import org.helm.editor.data.AbstractEdgeInfo;
+import org.helm.editor.data.EdgeMapKeys;
+import org.helm.editor.data.MonomerInfo;
+import org.helm.editor.data.NodeMapKeys;
+import org.helm.notation.model.Attachment;
+
+/**
+ * Application wide cache of computed component layouts, keyed by a canonical
+ * hash of the component topology. The hash is built from the polymer types
+ * and monomer ids of the nodes and the attachment labels and types of the
+ * edges, refined over the neighbourhood of every node until it separates all
+ * nodes. Components with symmetric nodes have no unique node order and are
+ * not cached.
+ * 
+ * Coordinates are stored relative to the first node in canonical order, so
+ * a stored layout can be replayed onto any graph with the same topology.
+ */
+class TopologyLayoutCache {
+
+	private static final int MAXIMUM_CACHE_SIZE = 256;
+
+	private static final TopologyLayoutCache instance = new TopologyLayoutCache();
+
+	/**
+	 * canonical description of one component of a layout graph
+	 */
+	static class Topology {
+		private final String key;
+		private final long[] labels;
+		private final Node[] nodes;
+		private final Edge[] edges;
+
+		private Topology(String key, long[] labels, Node[] nodes, Edge[] edges) {
+			this.key = key;
+			this.labels = labels;
+			this.nodes = nodes;
+			this.edges = edges;
+		}
+	}
+
+	private static class StoredLayout {
+		private final long[] labels;
+		private final double[] x;
+		private final double[] y;
+		private final boolean[] flipped;
+		private final YPoint[] sourcePoints;
+		private final YPoint[] targetPoints;
+		private final YPoint[][] bends;
+
+		private StoredLayout(long[] labels, int nodeCount, int edgeCount) {
+			this.labels = labels;
+			x = new double[nodeCount];
+			y = new double[nodeCount];
+			flipped = new boolean[nodeCount];
+			sourcePoints = new YPoint[edgeCount];
+			targetPoints = new YPoint[edgeCount];
+			bends = new YPoint[edgeCount][];
+		}
+	}
+
+	private final Map<String, StoredLayout> layouts = new LinkedHashMap<String, StoredLayout>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, StoredLayout> eldest) {
+			return size() > MAXIMUM_CACHE_SIZE;
+		}
+	};
+
+	private TopologyLayoutCache() {
+	}
+
+	static TopologyLayoutCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Computes the canonical topology of the given component.
+	 * 
+	 * @param graph
+	 *            graph showing a single connected component
+	 * @param layoutKey
+	 *            identifies the layout settings, see
+	 *            {@link org.helm.editor.layout.primitives.AbstractLayoutPrimitives#getLayoutKey()}
+	 * @return topology or null if the component cannot be cached
+	 */
+	Topology describe(LayoutGraph graph, Object layoutKey) {
+		DataProvider monomerInfoDP = graph
+				.getDataProvider(NodeMapKeys.MONOMER_REF);
+		DataProvider edgeInfoDP = graph.getDataProvider(EdgeMapKeys.EDGE_INFO);
+		if (layoutKey == null || monomerInfoDP == null || edgeInfoDP == null
+				|| graph.isEmpty()) {
+			return null;
+		}
+
+		int nodeCount = graph.nodeCount();
+		Node[] nodes = graph.getNodeArray();
+		long[] labels = new long[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			MonomerInfo monomerInfo = (MonomerInfo) monomerInfoDP.get(nodes[i]);
+			if (monomerInfo == null) {
+				return null;
+			}
+			labels[i] = hash(hash(17, monomerInfo.getPolymerType()),
+					monomerInfo.getMonomerID());
+		}
+
+		Edge[] edges = graph.getEdgeArray();
+		long[] edgeLabels = new long[edges.length];
+		for (int i = 0; i < edges.length; i++) {
+			Object edgeInfo = edgeInfoDP.get(edges[i]);
+			if (!(edgeInfo instanceof AbstractEdgeInfo)) {
+				return null;
+			}
+			edgeLabels[edges[i].index()] = hash((AbstractEdgeInfo) edgeInfo);
+		}
+
+		// refine the labels by the neighbourhood until no more nodes get
+		// separated
+		int distinct = countDistinct(labels);
+		for (int round = 0; round < nodeCount && distinct < nodeCount; round++) {
+			long[] refined = new long[nodeCount];
+			for (int i = 0; i < nodeCount; i++) {
+				Node node = nodes[i];
+				long[] neighbours = new long[node.degree()];
+				int n = 0;
+				for (EdgeCursor out = node.outEdges(); out.ok(); out.next()) {
+					Edge edge = out.edge();
+					neighbours[n++] = mix(mix(1, edgeLabels[edge.index()]),
+							labels[edge.target().index()]);
+				}
+				for (EdgeCursor in = node.inEdges(); in.ok(); in.next()) {
+					Edge edge = in.edge();
+					neighbours[n++] = mix(mix(2, edgeLabels[edge.index()]),
+							labels[edge.source().index()]);
+				}
+				Arrays.sort(neighbours);
+				long label = labels[i];
+				for (long neighbour : neighbours) {
+					label = mix(label, neighbour);
+				}
+				refined[i] = label;
+			}
+			int refinedDistinct = countDistinct(refined);
+			labels = refined;
+			if (refinedDistinct == distinct) {
+				break;
+			}
+			distinct = refinedDistinct;
+		}
+		if (distinct < nodeCount) {
+			return null;
+		}
+
+		// canonical node order
+		long[] sortedLabels = labels.clone();
+		Arrays.sort(sortedLabels);
+		Node[] canonicalNodes = new Node[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			canonicalNodes[Arrays.binarySearch(sortedLabels, labels[i])] = nodes[i];
+		}
+
+		// canonical edge order by end point positions and edge label
+		long[] edgeKeys = new long[edges.length];
+		long[] sortedEdgeKeys = new long[edges.length];
+		for (int i = 0; i < edges.length; i++) {
+			Edge edge = edges[i];
+			long key = mix(mix(labels[edge.source().index()],
+					labels[edge.target().index()]), edgeLabels[edge.index()]);
+			edgeKeys[i] = key;
+			sortedEdgeKeys[i] = key;
+		}
+		Arrays.sort(sortedEdgeKeys);
+		if (countDistinct(sortedEdgeKeys) < edges.length) {
+			return null;
+		}
+		Edge[] canonicalEdges = new Edge[edges.length];
+		for (int i = 0; i < edges.length; i++) {
+			canonicalEdges[Arrays.binarySearch(sortedEdgeKeys, edgeKeys[i])] = edges[i];
+		}
+
+		long hash = 31;
+		for (long label : sortedLabels) {
+			hash = mix(hash, label);
+		}
+		for (long key : sortedEdgeKeys) {
+			hash = mix(hash, key);
+		}
+		String key = layoutKey + "|" + nodeCount + "|" + edges.length + "|"
+				+ Long.toHexString(hash);
+		return new Topology(key, sortedLabels, canonicalNodes, canonicalEdges);
+	}
+
+	/**
+	 * Replays a stored layout of the same topology onto the component.
+	 * 
+	 * @param graph
+	 * @param topology
+	 *            topology of the component in graph
+	 * @return true if a layout was found and applied
+	 */
+	boolean restore(LayoutGraph graph, Topology topology) {
+		StoredLayout layout;
+		synchronized (this) {
+			layout = layouts.get(topology.key);
+		}
+		if (layout == null || !Arrays.equals(layout.labels, topology.labels)) {
+			return false;
+		}
+
+		DataProvider labelInfoDP = graph
+				.getDataProvider(NodeMapKeys.LABEL_INFO_MAP);
+		for (int i = 0; i < topology.nodes.length; i++) {
+			Node node = topology.nodes[i];
+			graph.setCenter(node, layout.x[i], layout.y[i]);
+			LabelInfo labelInfo = (labelInfoDP == null) ? null
+					: (LabelInfo) labelInfoDP.get(node);
+			if (labelInfo != null) {
+				labelInfo.setFlipped(layout.flipped[i]);
+			}
+		}
+		for (int i = 0; i < topology.edges.length; i++) {
+			Edge edge = topology.edges[i];
+			YList points = new YList();
+			for (YPoint bend : layout.bends[i]) {
+				points.add(bend);
+			}
+			graph.setPoints(edge, points);
+			graph.setSourcePointRel(edge, layout.sourcePoints[i]);
+			graph.setTargetPointRel(edge, layout.targetPoints[i]);
+		}
+		return true;
+	}
+
+	/**
+	 * Stores the layout just computed for the component.
+	 * 
+	 * @param graph
+	 * @param topology
+	 *            topology of the component in graph
+	 */
+	void record(LayoutGraph graph, Topology topology) {
+		StoredLayout layout = new StoredLayout(topology.labels,
+				topology.nodes.length, topology.edges.length);
+		DataProvider labelInfoDP = graph
+				.getDataProvider(NodeMapKeys.LABEL_INFO_MAP);
+
+		// relative to the first node in canonical order
+		double originX = graph.getCenterX(topology.nodes[0]);
+		double originY = graph.getCenterY(topology.nodes[0]);
+		for (int i = 0; i < topology.nodes.length; i++) {
+			Node node = topology.nodes[i];
+			layout.x[i] = graph.getCenterX(node) - originX;
+			layout.y[i] = graph.getCenterY(node) - originY;
+			LabelInfo labelInfo = (labelInfoDP == null) ? null
+					: (LabelInfo) labelInfoDP.get(node);
+			layout.flipped[i] = labelInfo != null && labelInfo.isFlipped();
+		}
+		for (int i = 0; i < topology.edges.length; i++) {
+			Edge edge = topology.edges[i];
+			YList points = graph.getPointList(edge);
+			YPoint[] bends = new YPoint[points.size()];
+			int n = 0;
+			for (Object point : points) {
+				YPoint p = (YPoint) point;
+				bends[n++] = new YPoint(p.x - originX, p.y - originY);
+			}
+			layout.bends[i] = bends;
+			layout.sourcePoints[i] = graph.getSourcePointRel(edge);
+			layout.targetPoints[i] = graph.getTargetPointRel(edge);
+		}
+
+		synchronized (this) {
+			layouts.put(topology.key, layout);
+		}
+	}
+
+	synchronized void clear() {
+		layouts.clear();
+	}
+
+	private static int countDistinct(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = sorted.length == 0 ? 0 : 1;
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i] != sorted[i - 1]) {
+				distinct++;
+			}
+		}
+		return distinct;
+	}
+
+	private static long hash(AbstractEdgeInfo edgeInfo) {
+		long h = hash(mix(19, edgeInfo.isPair() ? 1 : 0),
+				String.valueOf(edgeInfo.getType()));
+		h = hash(h, getLabel(edgeInfo.getSourceNodeAttachment()));
+		return hash(h, getLabel(edgeInfo.getTargetNodeAttachment()));
+	}
+
+	private static String getLabel(Attachment attachment) {
+		return (attachment == null) ? "" : attachment.getLabel();
+	}
+
+	private static long hash(long h, String s) {
+		if (s == null) {
+			return mix(h, 0);
+		}
+		for (int i = 0; i < s.length(); i++) {
+			h = mix(h, s.charAt(i));
+		}
+		return mix(h, s.length());
+	}
+
+	private static long mix(long h, long value) {
+		h = (h ^ value) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 31);
+	}
+}
@@ -148,6 +148,17 @@ public abstract class AbstractLayoutPrimitives {
 
 	public abstract IViewMetrics getViewMetrics();
 
+	/**
+	 * Key under which layouts computed with these primitives can be shared
+	 * between structures of the same topology.
+	 * 
+	 * @return key, or null if the coordinates depend on the current view state
+	 *         and must not be shared
+	 */
+	public Object getLayoutKey() {
+		return null;
+	}
+
 	// ////////////////////////////////
 	// Chem nodes layout primitives //
 	// ////////////////////////////////
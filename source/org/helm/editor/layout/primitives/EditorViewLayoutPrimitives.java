@@ -408,6 +408,14 @@ public class EditorViewLayoutPrimitives extends AbstractLayoutPrimitives {
 		return viewMetrics;
 	}
 
+	/**
+	 * the editor view metrics are constant, so layouts can be shared
+	 */
+	@Override
+	public Object getLayoutKey() {
+		return getClass().getName();
+	}
+
 	// ////////////////////////////////
 	// Chem nodes layout primitives //
 	// ////////////////////////////////
@@ -37,6 +37,16 @@ public class LinearStructureLayout extends AbstratStructureLayout {
 
 	@Override
 	protected void doLayoutCore(LayoutGraph graph) {
+		layoutStrand(graph);
+	}
+
+	/**
+	 * Lays out a graph holding a single linear strand without running the
+	 * layout stages.
+	 * 
+	 * @param graph
+	 */
+	public void layoutStrand(LayoutGraph graph) {
 		Node startingNode = layoutPrimitives.getStartingNode(graph.firstNode());
 		layoutPrimitives.layoutSequence(graph, startingNode, null, true);
 		layoutPrimitives.setFlipState(graph.nodes(), false);
@@ -308,7 +308,8 @@ public class MonomerMergeManager extends javax.swing.JDialog {
 					extMon.setAttachmentList(tmp.getAttachmentList());
 					extMon.setMolfile(tmp.getMolfile());
 
-					localStore.addMonomer(extMon, true);
+					MonomerStoreCache.getInstance().addMonomer(localStore,
+							extMon, true);
 				}
 				// monomer comes from local store
 				else {
@@ -330,7 +331,8 @@ public class MonomerMergeManager extends javax.swing.JDialog {
 					Monomer m = monomers.remove(oldId);
 					monomers.put(locMon.getAlternateId(), m);
 
-					MonomerFactory.setDBChanged(true);
+					MonomerStoreCache.getInstance().polymerTypeChanged(
+							polymerType);
 
 				}
 
@@ -26,6 +26,7 @@ public class OligonucleotideFragmentDialog extends javax.swing.JDialog {
 
 	private MacromoleculeEditor editor;
 	private OligonucleotideFragmentTableModel model;
+	private OligonucleotideFragmenter fragmenter;
 
 	public OligonucleotideFragmentDialog(MacromoleculeEditor editor,
 			boolean modal) {
@@ -52,6 +53,15 @@ public class OligonucleotideFragmentDialog extends javax.swing.JDialog {
 		}
 	}
 
+	/**
+	 * adds the fragments a running fragmentation has published so far
+	 * 
+	 * @param fragments
+	 */
+	public void addResults(List<Fragment> fragments) {
+		model.addFragments(fragments);
+	}
+
 	public void refreshResults(List<Fragment> fragments) {
 		// remove table sorting first
 		fragmentTable.resetSortOrder();
@@ -377,9 +387,13 @@ public class OligonucleotideFragmentDialog extends javax.swing.JDialog {
 			return;
 		}
 
-		OligonucleotideFragmenter worker = new OligonucleotideFragmenter(this,
-				parameter);
-		worker.execute();
+		if (fragmenter != null) {
+			fragmenter.cancel(true);
+		}
+		fragmentTable.resetSortOrder();
+		model.clear();
+		fragmenter = new OligonucleotideFragmenter(this, parameter);
+		fragmenter.execute();
 		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 	}// GEN-LAST:event_fragmentButtonActionPerformed
 
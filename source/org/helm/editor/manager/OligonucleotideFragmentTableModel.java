@@ -21,12 +21,18 @@
  ******************************************************************************/
 package org.helm.editor.manager;
 
+import org.helm.notation.MonomerException;
 import org.helm.notation.NotationException;
+import org.helm.notation.StructureException;
 import org.helm.notation.model.Monomer;
 import org.helm.notation.model.PolymerNode;
 import org.helm.notation.tools.ComplexNotationParser;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jdom.JDOMException;
 import javax.swing.table.AbstractTableModel;
 
 /**
@@ -86,15 +92,41 @@ public class OligonucleotideFragmentTableModel extends AbstractTableModel {
 		fireTableDataChanged();
 	}
 
+	/**
+	 * appends fragments while a fragmentation is still running
+	 * 
+	 * @param newFragments
+	 */
+	public void addFragments(List<Fragment> newFragments) {
+		if (newFragments.isEmpty()) {
+			return;
+		}
+		int firstRow = fragments.size();
+		fragments.addAll(newFragments);
+		fireTableRowsInserted(firstRow, fragments.size() - 1);
+	}
+
 	public void clear() {
 		this.fragments = new ArrayList<Fragment>();
 		fireTableDataChanged();
 	}
 
 	public static class Fragment {
+
+		/**
+		 * creates the notation of a fragment when it is first requested, so
+		 * only the notations of displayed rows are generated
+		 */
+		public interface NotationFactory {
+			String createNotation() throws NotationException,
+					MonomerException, StructureException, JDOMException,
+					IOException;
+		}
+
 		private int fiveEndStep;
 		private int threeEndStep;
 		private String notation;
+		private NotationFactory notationFactory;
 		private double molWeight;
 
 		public double getMolWeight() {
@@ -105,12 +137,29 @@ public class OligonucleotideFragmentTableModel extends AbstractTableModel {
 			this.molWeight = molWeight;
 		}
 
-		public String getNotation() {
+		public synchronized String getNotation() {
+			if (notation == null && notationFactory != null) {
+				try {
+					notation = notationFactory.createNotation();
+				} catch (Exception ex) {
+					Logger.getLogger(Fragment.class.getName()).log(
+							Level.SEVERE, null, ex);
+					notation = "";
+				}
+				notationFactory = null;
+			}
 			return notation;
 		}
 
-		public void setNotation(String notation) {
+		public synchronized void setNotation(String notation) {
 			this.notation = notation;
+			this.notationFactory = null;
+		}
+
+		public synchronized void setNotationFactory(
+				NotationFactory notationFactory) {
+			this.notation = null;
+			this.notationFactory = notationFactory;
 		}
 
 		public int getFiveEndStep() {
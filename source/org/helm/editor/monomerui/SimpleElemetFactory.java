@@ -24,6 +24,8 @@ package org.helm.editor.monomerui;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.jdom.JDOMException;
 import org.helm.notation.MonomerException;
@@ -36,13 +38,11 @@ import org.helm.editor.realizer.MonomerNodeRealizer;
 import org.helm.editor.utility.ColorMap;
 import org.helm.editor.utility.NotationParser;
 import org.helm.editor.utility.SequenceGraphTools;
-import org.helm.editor.utility.xmlparser.data.Polymer;
-import org.helm.editor.utility.xmlparser.data.ShapedXmlFragment;
+import org.helm.editor.utility.xmlparser.data.MonomerStyle;
 import org.helm.editor.utility.xmlparser.data.XmlElement;
 import org.helm.notation.model.Monomer;
 
 import java.awt.Color;
-import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -63,10 +63,19 @@ public class SimpleElemetFactory {
 
 	// private static Map<String, Map<String, Monomer>> monomerDB;
 	private static final double DEFAULT_NODE_SIZE = 30;
-	private static SimpleElemetFactory instance;
+	private static volatile SimpleElemetFactory instance;
 	private static final Logger log = Logger
 			.getLogger(SimpleElemetFactory.class.toString());
 
+	/**
+	 * Realizer prototypes by polymer type and monomer id, see
+	 * {@link #createMonomerNode(Graph2D, String, String)}. Nodes are created
+	 * from several threads, so the prototypes of one monomer store live in an
+	 * immutable holder that is replaced as a whole when the store changes.
+	 */
+	private volatile NodeRealizerPrototypes nodeRealizerPrototypes = new NodeRealizerPrototypes(
+			null);
+
 	private SimpleElemetFactory() throws MonomerException, IOException,
 			JDOMException {
 		MonomerFactory monomerFactory = MonomerFactory.getInstance();
@@ -94,11 +103,18 @@ public class SimpleElemetFactory {
 	 */
 	public static SimpleElemetFactory getInstance() throws MonomerException,
 			IOException, JDOMException {
-		if (instance == null) {
-			instance = new SimpleElemetFactory();
+		SimpleElemetFactory result = instance;
+		if (result == null) {
+			synchronized (SimpleElemetFactory.class) {
+				result = instance;
+				if (result == null) {
+					result = new SimpleElemetFactory();
+					instance = result;
+				}
+			}
 		}
 
-		return instance;
+		return result;
 	}
 
 	private Map<String, Map<String, Monomer>> getMonomerDB() {
@@ -261,19 +277,104 @@ public class SimpleElemetFactory {
 			return null;
 		}
 
-		ShapedXmlFragment shapedXmlFragment = getShapedXmlFragment(polymerType,
+		MonomerStyle style = getMonomerStyle(polymerType, monomerId);
+		if (style == null) {
+			return createMonomerNode(polymerType, monomerId, null, null);
+		}
+		return createMonomerNode(polymerType, monomerId, style.getShape(),
+				style.getBackgroundColor());
+
+	}
+
+	/**
+	 * Creates a monomer node directly in the given graph and registers its
+	 * MonomerInfo in the graph's MONOMER_REF map. The realizer is copied from
+	 * a prototype that is built once per monomer.
+	 * 
+	 * @param graph
+	 *            target graph, must provide a MONOMER_REF node map
+	 * @param polymerType
+	 * @param monomerId
+	 * @return the new node
+	 * @throws MonomerException
+	 *             if the monomer is unknown
+	 */
+	public Node createMonomerNode(Graph2D graph, String polymerType,
+			String monomerId) throws MonomerException {
+		NodeRealizer prototype = getNodeRealizerPrototype(polymerType,
 				monomerId);
-		if (shapedXmlFragment == null) {
-			shapedXmlFragment = new ShapedXmlFragment(monomerId, null);
+		if (prototype == null) {
+			throw new MonomerException("No data found for monomer id "
+					+ monomerId + " in " + polymerType);
+		}
+
+		Node node = graph.createNode(prototype.createCopy());
+		NodeMap nodeMap = (NodeMap) graph
+				.getDataProvider(NodeMapKeys.MONOMER_REF);
+		nodeMap.set(node, new MonomerInfo(polymerType, monomerId));
+		return node;
+	}
+
+	/**
+	 * Drops the cached node realizer prototypes, needed when the monomer UI
+	 * templates (shapes and colors) are reloaded.
+	 */
+	public void clearNodeRealizerPrototypes() {
+		nodeRealizerPrototypes = new NodeRealizerPrototypes(null);
+	}
+
+	private NodeRealizer getNodeRealizerPrototype(String polymerType,
+			String monomerId) throws MonomerException {
+		MonomerStore store = MonomerStoreCache.getInstance()
+				.getCombinedMonomerStore();
+		NodeRealizerPrototypes current = nodeRealizerPrototypes;
+		if (current.store != store) {
+			current = new NodeRealizerPrototypes(store);
+			nodeRealizerPrototypes = current;
+		}
+
+		ConcurrentMap<String, NodeRealizer> prototypes = current.byPolymerType
+				.get(polymerType);
+		if (prototypes == null) {
+			prototypes = new ConcurrentHashMap<String, NodeRealizer>();
+			ConcurrentMap<String, NodeRealizer> existing = current.byPolymerType
+					.putIfAbsent(polymerType, prototypes);
+			if (existing != null) {
+				prototypes = existing;
+			}
+		}
+
+		NodeRealizer prototype = prototypes.get(monomerId);
+		if (prototype == null) {
+			Graph2D graph = createMonomerNode(polymerType, monomerId);
+			if (graph == null) {
+				return null;
+			}
+			prototype = graph.getRealizer(graph.firstNode());
+			NodeRealizer existing = prototypes.putIfAbsent(monomerId,
+					prototype);
+			if (existing != null) {
+				prototype = existing;
+			}
 		}
-		return createMonomerNode(polymerType, monomerId,
-				shapedXmlFragment.getShape(),
-				shapedXmlFragment.getBackgroundColor());
+		return prototype;
+	}
+
+	/**
+	 * Node realizer prototypes built from one monomer store. Prototypes are
+	 * only read (copied) once they are published.
+	 */
+	private static final class NodeRealizerPrototypes {
+
+		private final MonomerStore store;
+		private final ConcurrentMap<String, ConcurrentMap<String, NodeRealizer>> byPolymerType = new ConcurrentHashMap<String, ConcurrentMap<String, NodeRealizer>>();
 
+		private NodeRealizerPrototypes(MonomerStore store) {
+			this.store = store;
+		}
 	}
 
-	private ShapedXmlFragment getShapedXmlFragment(String polymerType,
-			String monomerId) {
+	private MonomerStyle getMonomerStyle(String polymerType, String monomerId) {
 		UIConstructor uiConstructor = null;
 		try {
 			uiConstructor = UIConstructor.getInstance();
@@ -282,19 +383,8 @@ public class SimpleElemetFactory {
 			return null;
 		}
 
-		Iterator<Polymer> it = uiConstructor.getUITemplateManager()
-				.getPolymerIntertor();
-		while (it.hasNext()) {
-			Polymer p = it.next();
-			if (p.getName().equalsIgnoreCase(polymerType)) {
-				ShapedXmlFragment result = p.getXmlFragmentByName(monomerId);
-				if (null != result) {
-					return result;
-				}
-			}
-		}
-		return null;
-
+		return uiConstructor.getUITemplateManager().getMonomerStyle(
+				polymerType, monomerId);
 	}
 
 	private byte getNodeShage(String nodeShape) {
@@ -106,6 +106,7 @@ public class UIConstructor {
 			TemplateParsingException {
 		String realPath = PropertyManager.PROPERTY_FOLDER + path;
 		templateManager.setUITemplatePath(realPath);
+		clearNodeRealizerPrototypes();
 	}
 
 	/**
@@ -166,6 +167,7 @@ public class UIConstructor {
 		} catch (Exception e) {
 			log.log(Level.SEVERE, "Can't load UI Monomer templates", e);
 		}
+		clearNodeRealizerPrototypes();
 		try {
 			tree = new XmlTree(templateManager.getPolymerList(), editor, view);
 			tree.constructTree();
@@ -186,6 +188,14 @@ public class UIConstructor {
 
 	}
 
+	private void clearNodeRealizerPrototypes() {
+		try {
+			SimpleElemetFactory.getInstance().clearNodeRealizerPrototypes();
+		} catch (Exception e) {
+			log.log(Level.WARNING, "Can't reset monomer node prototypes", e);
+		}
+	}
+
 	public UITemplateManager getUITemplateManager() {
 		return templateManager;
 	}
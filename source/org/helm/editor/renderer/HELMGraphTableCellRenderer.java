@@ -21,13 +21,14 @@
  ******************************************************************************/
 package org.helm.editor.renderer;
 
-import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewController;
-import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewControllerImpl;
 import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewLayout;
 
 import org.helm.editor.data.RNAPolymer;
 import java.awt.Component;
+import java.awt.Image;
+import java.awt.Rectangle;
 
+import javax.swing.ImageIcon;
 import javax.swing.JTable;
 import javax.swing.table.DefaultTableCellRenderer;
 
@@ -35,21 +36,23 @@ import javax.swing.table.DefaultTableCellRenderer;
  * A custom TableCellRenderer based on Graph2DView and complex HELM notation
  * string Could be big and slow, but can deal with hybrid structures
  * 
+ * The structures are rendered to images by the {@link SequenceImageRenderer}
+ * in the background. A cell shows a placeholder until its image is ready and
+ * is repainted then.
+ * 
  * @author zhangtianhong
  */
 public class HELMGraphTableCellRenderer extends DefaultTableCellRenderer {
 
 	public static final int DEFAULT_VIEW_TYPE = 10;
 	public static final int MINIMAL_GAP_VIEW_TYPE = 11;
-	private SequenceViewController _sequenceViewController;
+	private static final String PLACEHOLDER_TEXT = "Rendering...";
 	private int viewType;
 	private int alignment;
 
 	public HELMGraphTableCellRenderer() {
 		viewType = MINIMAL_GAP_VIEW_TYPE;
 		alignment = SequenceViewLayout.LEFT_ALIGNMENT;
-
-		configureView();
 	}
 
 	public HELMGraphTableCellRenderer(int viewType, int alignment) {
@@ -57,45 +60,57 @@ public class HELMGraphTableCellRenderer extends DefaultTableCellRenderer {
 
 		this.viewType = viewType;
 		this.alignment = alignment;
-
-		configureView();
 	}
 
+	/**
+	 * drop all rendered images, the cells are rendered again on their next
+	 * paint
+	 */
 	public void refreshData() {
-		_sequenceViewController.refreshSequenceView();
+		RenderedImageCache.getInstance().cacheClear();
+	}
+
+	public int getViewType() {
+		return viewType;
 	}
 
-	public Component getTableCellRendererComponent(JTable table,
-			Object notation, boolean isSelected, boolean hasFocus, int row,
-			int column) {
+	public int getAlignment() {
+		return alignment;
+	}
 
-		int cellWidth = (int) table.getCellRect(row, column, true).getWidth();
-		int cellHeight = (int) table.getCellRect(row, column, true).getHeight();
-		_sequenceViewController.getView().setSize(cellWidth, cellHeight);
+	public Component getTableCellRendererComponent(final JTable table,
+			Object notation, boolean isSelected, boolean hasFocus,
+			final int row, final int column) {
+		super.getTableCellRendererComponent(table, null, isSelected, hasFocus,
+				row, column);
+		setIcon(null);
 
 		if (notation instanceof RNAPolymer) {
 			RNAPolymer oligo = (RNAPolymer) notation;
 			notation = oligo.getNotation();
 		}
-		try {
-			_sequenceViewController.setNotation((String) notation);
-			// _sequenceViewController.updateAlignment();
-		} catch (Exception ex) {
-			_sequenceViewController.appendErrorNode();
-		}
-		_sequenceViewController.updateAlignment();
 
-		return _sequenceViewController.getSequenceView();
-	}
-
-	private void configureView() {
-		_sequenceViewController = new SequenceViewControllerImpl();
-		_sequenceViewController.setLayoutMode(true);
+		Rectangle cell = table.getCellRect(row, column, true);
+		if (notation == null || cell.width <= 0 || cell.height <= 0) {
+			return this;
+		}
 
-		if (viewType == MINIMAL_GAP_VIEW_TYPE) {
-			_sequenceViewController.minimizeGaps();
+		SequenceImageRenderer imageRenderer = SequenceImageRenderer
+				.getInstance();
+		Image image = imageRenderer.getImage((String) notation, cell.width,
+				cell.height, viewType, alignment);
+		if (image != null) {
+			setIcon(new ImageIcon(image));
+		} else {
+			setText(PLACEHOLDER_TEXT);
+			imageRenderer.requestImage((String) notation, cell.width,
+					cell.height, viewType, alignment, new Runnable() {
+						public void run() {
+							table.repaint(table.getCellRect(row, column, true));
+						}
+					});
 		}
 
-		_sequenceViewController.setAligment(alignment);
+		return this;
 	}
 }
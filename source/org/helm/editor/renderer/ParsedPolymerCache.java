@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.renderer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.helm.editor.data.MonomerStoreCache;
+import org.helm.editor.data.RNAPolymer;
+import org.helm.editor.protein.view.PeptidePolymer;
+
+/**
+ * Least recently used cache of the polymers parsed for the RNA and peptide
+ * table cell renderers, filled at paint time or ahead of time by a
+ * {@link TableRowPrefetcher}. The cached polymers are only read afterwards.
+ * They are dropped when the version of the monomer store changes, as they
+ * were parsed against the previous store.
+ */
+public class ParsedPolymerCache {
+
+	private static final int MAXIMUM_CACHE_SIZE = 5000;
+
+	private static final ParsedPolymerCache _instance = new ParsedPolymerCache();
+
+	private final Map<String, RNAPolymer> rnaPolymers = createCache();
+
+	private final Map<String, PeptidePolymer> peptidePolymers = createCache();
+
+	/** version of the monomer store the cached polymers were parsed with */
+	private int storeVersion = -1;
+
+	private ParsedPolymerCache() {
+	}
+
+	public static ParsedPolymerCache getInstance() {
+		return _instance;
+	}
+
+	/**
+	 * @param notation
+	 * @return the cached polymer or null
+	 */
+	public synchronized RNAPolymer getRNAPolymer(String notation) {
+		checkStoreVersion();
+		return rnaPolymers.get(notation);
+	}
+
+	/**
+	 * @param notation
+	 * @return the cached polymer, parsed on the calling thread if missing
+	 */
+	public RNAPolymer loadRNAPolymer(String notation) {
+		RNAPolymer polymer = getRNAPolymer(notation);
+		if (polymer == null) {
+			int version = MonomerStoreCache.getInstance().getVersion();
+			polymer = new RNAPolymer(notation);
+			synchronized (this) {
+				if (version == storeVersion) {
+					rnaPolymers.put(notation, polymer);
+				}
+			}
+		}
+		return polymer;
+	}
+
+	/**
+	 * @param notation
+	 * @return the cached polymer or null
+	 */
+	public synchronized PeptidePolymer getPeptidePolymer(String notation) {
+		checkStoreVersion();
+		return peptidePolymers.get(notation);
+	}
+
+	/**
+	 * @param notation
+	 * @return the cached polymer, parsed on the calling thread if missing
+	 */
+	public PeptidePolymer loadPeptidePolymer(String notation) {
+		PeptidePolymer polymer = getPeptidePolymer(notation);
+		if (polymer == null) {
+			int version = MonomerStoreCache.getInstance().getVersion();
+			polymer = new PeptidePolymer(notation);
+			synchronized (this) {
+				if (version == storeVersion) {
+					peptidePolymers.put(notation, polymer);
+				}
+			}
+		}
+		return polymer;
+	}
+
+	public synchronized void cacheClear() {
+		rnaPolymers.clear();
+		peptidePolymers.clear();
+	}
+
+	/**
+	 * drops the polymers parsed against an older monomer store, called with
+	 * the lock held
+	 */
+	private void checkStoreVersion() {
+		int version = MonomerStoreCache.getInstance().getVersion();
+		if (version != storeVersion) {
+			rnaPolymers.clear();
+			peptidePolymers.clear();
+			storeVersion = version;
+		}
+	}
+
+	private static <T> Map<String, T> createCache() {
+		return new LinkedHashMap<String, T>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+				return size() > MAXIMUM_CACHE_SIZE;
+			}
+		};
+	}
+}
@@ -80,16 +80,35 @@ public class PeptideTableCellRenderer extends DefaultTableCellRenderer {
 	}
 
 	@Override
-	public Component getTableCellRendererComponent(JTable table, Object value,
-			boolean isSelected, boolean hasFocus, int row, int column) {
+	public Component getTableCellRendererComponent(final JTable table,
+			Object value, boolean isSelected, boolean hasFocus, final int row,
+			final int column) {
 
-		PeptidePolymer polymer = new PeptidePolymer();
+		PeptidePolymer polymer = null;
 		if (value instanceof PeptidePolymer) {
 			polymer = (PeptidePolymer) value;
 		} else if (value instanceof String) {
-			polymer = new PeptidePolymer((String) value);
+			String notation = (String) value;
+			TableRowPrefetcher prefetcher = TableRowPrefetcher
+					.getPrefetcher(table);
+			if (prefetcher == null) {
+				polymer = ParsedPolymerCache.getInstance().loadPeptidePolymer(
+						notation);
+			} else {
+				polymer = ParsedPolymerCache.getInstance().getPeptidePolymer(
+						notation);
+				if (polymer == null) {
+					// show an empty polymer until the notation is parsed
+					prefetcher.requestPeptidePolymer(notation, new Runnable() {
+						public void run() {
+							table.repaint(table.getCellRect(row, column, true));
+						}
+					});
+				}
+			}
 		}
-		viewer.setPeptidePolymer(polymer);
+		viewer.setPeptidePolymer(polymer == null ? new PeptidePolymer()
+				: polymer);
 		return viewer;
 	}
 
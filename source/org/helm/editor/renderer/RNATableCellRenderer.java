@@ -105,8 +105,9 @@ public class RNATableCellRenderer extends DefaultTableCellRenderer {
 	}
 
 	@Override
-	public Component getTableCellRendererComponent(JTable table, Object value,
-			boolean isSelected, boolean hasFocus, int row, int column) {
+	public Component getTableCellRendererComponent(final JTable table,
+			Object value, boolean isSelected, boolean hasFocus, final int row,
+			final int column) {
 		oligo = null;
 		cell_rect = null;
 
@@ -114,7 +115,27 @@ public class RNATableCellRenderer extends DefaultTableCellRenderer {
 			oligo = (RNAPolymer) value;
 		} else {
 			if (value instanceof String) {
-				oligo = new RNAPolymer((String) value);
+				String notation = (String) value;
+				TableRowPrefetcher prefetcher = TableRowPrefetcher
+						.getPrefetcher(table);
+				if (prefetcher == null) {
+					oligo = ParsedPolymerCache.getInstance().loadRNAPolymer(
+							notation);
+				} else {
+					oligo = ParsedPolymerCache.getInstance().getRNAPolymer(
+							notation);
+					if (oligo == null) {
+						// leave the cell empty until the polymer is parsed
+						prefetcher.requestRNAPolymer(notation, new Runnable() {
+							public void run() {
+								table.repaint(table.getCellRect(row, column,
+										true));
+							}
+						});
+						return super.getTableCellRendererComponent(table,
+								null, isSelected, hasFocus, row, column);
+					}
+				}
 			} else {
 				return super.getTableCellRendererComponent(table, value,
 						isSelected, hasFocus, row, column);
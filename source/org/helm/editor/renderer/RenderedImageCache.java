@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.renderer;
+
+import java.awt.Image;
+
+import org.helm.editor.utility.WeightedLruCache;
+
+/**
+ * Least recently used cache of rendered structure images, bounded by the
+ * number of images and by their estimated size in bytes.
+ */
+public class RenderedImageCache {
+
+	private static final RenderedImageCache _instance = new RenderedImageCache();
+
+	private static final int MAXIMUM_CACHE_SIZE = 2000;
+
+	private static final long MAXIMUM_CACHE_WEIGHT = 64L * 1024 * 1024;
+
+	private final WeightedLruCache<Image> _cache = new WeightedLruCache<Image>(
+			MAXIMUM_CACHE_SIZE, MAXIMUM_CACHE_WEIGHT,
+			new WeightedLruCache.Weigher<Image>() {
+				public long getWeight(String key, Image image) {
+					// 4 bytes per pixel
+					long pixels = (long) Math.max(image.getWidth(null), 0)
+							* Math.max(image.getHeight(null), 0);
+					return 2L * key.length() + 4L * pixels;
+				}
+			});
+
+	private RenderedImageCache() {
+	}
+
+	public static RenderedImageCache getInstance() {
+		return _instance;
+	}
+
+	/**
+	 * Builds the cache key of an image.
+	 * 
+	 * @param notation
+	 * @param width
+	 * @param height
+	 * @param viewType
+	 *            view type of the renderer, see
+	 *            {@link HELMGraphTableCellRenderer#MINIMAL_GAP_VIEW_TYPE}
+	 * @param alignment
+	 * @param monomerStoreVersion
+	 *            version of the combined monomer store the image was rendered
+	 *            with
+	 * @return key
+	 */
+	public static String createKey(String notation, int width, int height,
+			int viewType, int alignment, int monomerStoreVersion) {
+		return width + "x" + height + "|" + viewType + "|" + alignment + "|"
+				+ monomerStoreVersion + "|" + notation.trim();
+	}
+
+	public void addToCache(String key, Image image) {
+		_cache.put(key, image);
+	}
+
+	/**
+	 * @param key
+	 * @return the cached image or null; counts as hit or miss
+	 */
+	public Image getCachedValue(String key) {
+		return _cache.get(key);
+	}
+
+	public void cacheClear() {
+		_cache.clear();
+	}
+
+	public int getSize() {
+		return _cache.size();
+	}
+
+	/**
+	 * @return estimated size of all cached images in bytes
+	 */
+	public long getWeight() {
+		return _cache.getWeight();
+	}
+
+	public long getHitCount() {
+		return _cache.getHitCount();
+	}
+
+	public long getMissCount() {
+		return _cache.getMissCount();
+	}
+
+	public long getEvictionCount() {
+		return _cache.getEvictionCount();
+	}
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.renderer;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewController;
+import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewControllerImpl;
+import org.helm.editor.data.MonomerStoreCache;
+
+/**
+ * Renders notations to sequence view images on a pool of background threads.
+ * Every thread has its own sequence view controllers, so images are rendered
+ * in parallel without sharing view state. Rendered images are kept in the
+ * {@link RenderedImageCache}.
+ */
+public class SequenceImageRenderer {
+
+	private static final SequenceImageRenderer _instance = new SequenceImageRenderer();
+
+	/** shown instead of images that could not be rendered */
+	private static final String ERROR_TEXT = "Unable to render";
+
+	private final ExecutorService executor;
+
+	/** images being rendered, with the callbacks waiting for them */
+	private final Map<String, PendingImage> pending = new HashMap<String, PendingImage>();
+
+	private final ThreadLocal<Map<String, SequenceViewController>> controllers = new ThreadLocal<Map<String, SequenceViewController>>() {
+		@Override
+		protected Map<String, SequenceViewController> initialValue() {
+			return new HashMap<String, SequenceViewController>();
+		}
+	};
+
+	private static class PendingImage {
+		private Future<?> future;
+		private final List<Runnable> callbacks = new ArrayList<Runnable>();
+	}
+
+	private SequenceImageRenderer() {
+		int threadCount = Math.max(1, Runtime.getRuntime()
+				.availableProcessors() - 1);
+		executor = Executors.newFixedThreadPool(threadCount,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "SequenceImageRenderer-"
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	public static SequenceImageRenderer getInstance() {
+		return _instance;
+	}
+
+	/**
+	 * @param notation
+	 * @param width
+	 * @param height
+	 * @param viewType
+	 * @param alignment
+	 * @return the cached image or null if it has not been rendered yet
+	 */
+	public Image getImage(String notation, int width, int height,
+			int viewType, int alignment) {
+		return RenderedImageCache.getInstance().getCachedValue(
+				createKey(notation, width, height, viewType, alignment));
+	}
+
+	/**
+	 * Schedules the rendering of an image unless it is already being
+	 * rendered.
+	 * 
+	 * @param notation
+	 * @param width
+	 * @param height
+	 * @param viewType
+	 * @param alignment
+	 * @param onReady
+	 *            run on the event dispatch thread once the image is in the
+	 *            cache, may be null
+	 * @return future of the rendering task, can be used to cancel it
+	 */
+	public Future<?> requestImage(final String notation, final int width,
+			final int height, final int viewType, final int alignment,
+			Runnable onReady) {
+		final String key = createKey(notation, width, height, viewType,
+				alignment);
+		synchronized (pending) {
+			PendingImage pendingImage = pending.get(key);
+			if (pendingImage == null || pendingImage.future.isCancelled()) {
+				pendingImage = new PendingImage();
+				pending.put(key, pendingImage);
+				pendingImage.future = executor.submit(new Runnable() {
+					public void run() {
+						renderPendingImage(key, notation, width, height,
+								viewType, alignment);
+					}
+				});
+			}
+			if (onReady != null) {
+				pendingImage.callbacks.add(onReady);
+			}
+			return pendingImage.future;
+		}
+	}
+
+	/**
+	 * Cancels the rendering of a requested image that no cell is waiting for,
+	 * unless the rendering has already started.
+	 * 
+	 * @param notation
+	 * @param width
+	 * @param height
+	 * @param viewType
+	 * @param alignment
+	 */
+	public void cancelRequest(String notation, int width, int height,
+			int viewType, int alignment) {
+		String key = createKey(notation, width, height, viewType, alignment);
+		synchronized (pending) {
+			PendingImage pendingImage = pending.get(key);
+			if (pendingImage != null && pendingImage.callbacks.isEmpty()
+					&& pendingImage.future.cancel(false)) {
+				pending.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Renders an image on the calling thread, without using the cache.
+	 * 
+	 * @param notation
+	 * @param width
+	 * @param height
+	 * @param viewType
+	 * @param alignment
+	 * @return image, showing an error node if the notation could not be
+	 *         displayed
+	 */
+	public Image renderImage(String notation, int width, int height,
+			int viewType, int alignment) {
+		SequenceViewController controller = getController(viewType, alignment);
+		controller.getView().setSize(width, height);
+		try {
+			controller.setNotation(notation);
+		} catch (Exception ex) {
+			controller.appendErrorNode();
+		}
+		controller.updateAlignment();
+
+		return controller.getView().getImage();
+	}
+
+	private void renderPendingImage(String key, String notation, int width,
+			int height, int viewType, int alignment) {
+		Image image;
+		try {
+			image = renderImage(notation, width, height, viewType, alignment);
+		} catch (RuntimeException ex) {
+			Logger.getLogger(SequenceImageRenderer.class.getName()).log(
+					Level.WARNING, "Unable to render " + notation, ex);
+			// cached as well, or the waiting cells would request the image
+			// over and over again
+			image = createErrorImage(width, height);
+		}
+		RenderedImageCache.getInstance().addToCache(key, image);
+
+		List<Runnable> callbacks;
+		synchronized (pending) {
+			PendingImage pendingImage = pending.remove(key);
+			callbacks = (pendingImage == null) ? new ArrayList<Runnable>()
+					: pendingImage.callbacks;
+		}
+
+		for (Runnable callback : callbacks) {
+			SwingUtilities.invokeLater(callback);
+		}
+	}
+
+	private static Image createErrorImage(int width, int height) {
+		BufferedImage image = new BufferedImage(Math.max(width, 1), Math.max(
+				height, 1), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g.setColor(Color.RED);
+			FontMetrics metrics = g.getFontMetrics();
+			g.drawString(ERROR_TEXT, 4,
+					(image.getHeight() + metrics.getAscent()) / 2);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	private SequenceViewController getController(int viewType, int alignment) {
+		Map<String, SequenceViewController> threadControllers = controllers
+				.get();
+		String key = viewType + "|" + alignment;
+		SequenceViewController controller = threadControllers.get(key);
+		if (controller == null) {
+			controller = createController(viewType, alignment);
+			threadControllers.put(key, controller);
+		}
+		return controller;
+	}
+
+	static SequenceViewController createController(int viewType,
+			int alignment) {
+		SequenceViewController controller = new SequenceViewControllerImpl();
+		controller.setLayoutMode(true);
+
+		if (viewType == HELMGraphTableCellRenderer.MINIMAL_GAP_VIEW_TYPE) {
+			controller.minimizeGaps();
+		}
+
+		controller.setAligment(alignment);
+		return controller;
+	}
+
+	private static String createKey(String notation, int width, int height,
+			int viewType, int alignment) {
+		return RenderedImageCache.createKey(notation, width, height, viewType,
+				alignment, MonomerStoreCache.getInstance().getVersion());
+	}
+}
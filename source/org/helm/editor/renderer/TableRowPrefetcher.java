@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.renderer;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JTable;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+
+import org.helm.editor.data.RNAPolymer;
+
+/**
+ * Prepares the cells of the visible rows of a table, plus a number of rows
+ * above and below, before they are painted: the polymers of the
+ * {@link RNATableCellRenderer} and {@link PeptideTableCellRenderer} cells are
+ * parsed and the images of the {@link HELMGraphTableCellRenderer} cells are
+ * rendered in the background. Work for rows that scrolled out of range is
+ * dropped.
+ * 
+ * While a prefetcher is installed, the renderers of the table do not parse on
+ * the event dispatch thread; a cell whose polymer is not ready yet stays
+ * empty until it is.
+ */
+public class TableRowPrefetcher {
+
+	public static final int DEFAULT_LOOK_AHEAD = 20;
+
+	private static final String CLIENT_PROPERTY = TableRowPrefetcher.class
+			.getName();
+
+	private static final ExecutorService parsePool = Executors
+			.newFixedThreadPool(Math.max(1, Math.min(4, Runtime.getRuntime()
+					.availableProcessors() - 1)), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "TableRowPrefetcher-"
+							+ count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/** polymers being parsed, with the callbacks waiting for them */
+	private static final Map<String, PendingParse> pendingParses = new HashMap<String, PendingParse>();
+
+	private static class PendingParse {
+		private Future<?> future;
+		private final List<Runnable> callbacks = new ArrayList<Runnable>();
+	}
+
+	/**
+	 * work scheduled for a cell
+	 */
+	private static abstract class CellRequest {
+		abstract void cancel();
+	}
+
+	private final JTable table;
+
+	private int lookAhead;
+
+	private JViewport viewport;
+
+	private TableModel model;
+
+	/** work by row, only used on the event dispatch thread */
+	private final Map<Integer, List<CellRequest>> scheduled = new HashMap<Integer, List<CellRequest>>();
+
+	private boolean updatePending = false;
+
+	private final ChangeListener viewportListener = new ChangeListener() {
+		public void stateChanged(ChangeEvent e) {
+			scheduleUpdate();
+		}
+	};
+
+	private final TableModelListener modelListener = new TableModelListener() {
+		public void tableChanged(TableModelEvent e) {
+			cancelAll();
+			scheduleUpdate();
+		}
+	};
+
+	private final PropertyChangeListener tableListener = new PropertyChangeListener() {
+		public void propertyChange(PropertyChangeEvent evt) {
+			if ("ancestor".equals(evt.getPropertyName())) {
+				bindViewport();
+			} else if ("model".equals(evt.getPropertyName())) {
+				bindModel();
+			}
+			cancelAll();
+			scheduleUpdate();
+		}
+	};
+
+	private TableRowPrefetcher(JTable table, int lookAhead) {
+		this.table = table;
+		this.lookAhead = lookAhead;
+	}
+
+	/**
+	 * Installs a prefetcher with the default look ahead on the table. Must be
+	 * called on the event dispatch thread.
+	 * 
+	 * @param table
+	 * @return the prefetcher of the table
+	 */
+	public static TableRowPrefetcher install(JTable table) {
+		return install(table, DEFAULT_LOOK_AHEAD);
+	}
+
+	/**
+	 * Installs a prefetcher on the table, replacing a previously installed
+	 * one. Must be called on the event dispatch thread.
+	 * 
+	 * @param table
+	 * @param lookAhead
+	 *            number of rows prepared above and below the visible rows
+	 * @return the prefetcher of the table
+	 */
+	public static TableRowPrefetcher install(JTable table, int lookAhead) {
+		TableRowPrefetcher previous = getPrefetcher(table);
+		if (previous != null) {
+			previous.uninstall();
+		}
+
+		TableRowPrefetcher prefetcher = new TableRowPrefetcher(table,
+				lookAhead);
+		table.putClientProperty(CLIENT_PROPERTY, prefetcher);
+		table.addPropertyChangeListener(prefetcher.tableListener);
+		prefetcher.bindViewport();
+		prefetcher.bindModel();
+		prefetcher.scheduleUpdate();
+		return prefetcher;
+	}
+
+	/**
+	 * @param table
+	 * @return the prefetcher installed on the table or null
+	 */
+	public static TableRowPrefetcher getPrefetcher(JTable table) {
+		Object prefetcher = table.getClientProperty(CLIENT_PROPERTY);
+		return (prefetcher instanceof TableRowPrefetcher) ? (TableRowPrefetcher) prefetcher
+				: null;
+	}
+
+	public void uninstall() {
+		table.removePropertyChangeListener(tableListener);
+		if (viewport != null) {
+			viewport.removeChangeListener(viewportListener);
+			viewport = null;
+		}
+		if (model != null) {
+			model.removeTableModelListener(modelListener);
+			model = null;
+		}
+		cancelAll();
+		if (getPrefetcher(table) == this) {
+			table.putClientProperty(CLIENT_PROPERTY, null);
+		}
+	}
+
+	public int getLookAhead() {
+		return lookAhead;
+	}
+
+	public void setLookAhead(int lookAhead) {
+		this.lookAhead = lookAhead;
+		scheduleUpdate();
+	}
+
+	/**
+	 * Parses an RNA polymer in the background.
+	 * 
+	 * @param notation
+	 * @param onReady
+	 *            run on the event dispatch thread once the polymer is in the
+	 *            {@link ParsedPolymerCache}, may be null
+	 */
+	public void requestRNAPolymer(final String notation, Runnable onReady) {
+		requestParse("R|" + notation, new Runnable() {
+			public void run() {
+				ParsedPolymerCache.getInstance().loadRNAPolymer(notation);
+			}
+		}, onReady);
+	}
+
+	/**
+	 * Parses a peptide polymer in the background.
+	 * 
+	 * @param notation
+	 * @param onReady
+	 *            run on the event dispatch thread once the polymer is in the
+	 *            {@link ParsedPolymerCache}, may be null
+	 */
+	public void requestPeptidePolymer(final String notation, Runnable onReady) {
+		requestParse("P|" + notation, new Runnable() {
+			public void run() {
+				ParsedPolymerCache.getInstance().loadPeptidePolymer(notation);
+			}
+		}, onReady);
+	}
+
+	private void bindViewport() {
+		if (viewport != null) {
+			viewport.removeChangeListener(viewportListener);
+			viewport = null;
+		}
+		if (table.getParent() instanceof JViewport) {
+			viewport = (JViewport) table.getParent();
+			viewport.addChangeListener(viewportListener);
+		}
+	}
+
+	private void bindModel() {
+		if (model != null) {
+			model.removeTableModelListener(modelListener);
+		}
+		model = table.getModel();
+		model.addTableModelListener(modelListener);
+	}
+
+	/**
+	 * coalesce the viewport events of one scroll step into one update
+	 */
+	private void scheduleUpdate() {
+		if (updatePending) {
+			return;
+		}
+		updatePending = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				updatePending = false;
+				if (getPrefetcher(table) == TableRowPrefetcher.this) {
+					update();
+				}
+			}
+		});
+	}
+
+	private void update() {
+		int rowCount = table.getRowCount();
+		Rectangle visible = table.getVisibleRect();
+		if (rowCount == 0 || visible.isEmpty()) {
+			cancelAll();
+			return;
+		}
+
+		int first = table.rowAtPoint(new Point(visible.x, visible.y));
+		int last = table.rowAtPoint(new Point(visible.x, visible.y
+				+ visible.height - 1));
+		first = (first < 0) ? 0 : first;
+		last = (last < 0) ? rowCount - 1 : last;
+		int from = Math.max(0, first - lookAhead);
+		int to = Math.min(rowCount - 1, last + lookAhead);
+
+		// drop the work for rows that scrolled out of range
+		Iterator<Map.Entry<Integer, List<CellRequest>>> it = scheduled
+				.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Integer, List<CellRequest>> entry = it.next();
+			int row = entry.getKey();
+			if (row < from || row > to) {
+				cancel(entry.getValue());
+				it.remove();
+			}
+		}
+
+		// visible rows first, then the rows below and above
+		for (int row = first; row <= to; row++) {
+			prefetchRow(row);
+		}
+		for (int row = first - 1; row >= from; row--) {
+			prefetchRow(row);
+		}
+	}
+
+	private void prefetchRow(int row) {
+		if (scheduled.containsKey(row)) {
+			return;
+		}
+
+		List<CellRequest> requests = new ArrayList<CellRequest>();
+		for (int column = 0; column < table.getColumnCount(); column++) {
+			TableCellRenderer renderer = table.getCellRenderer(row, column);
+			Object value = table.getValueAt(row, column);
+			CellRequest request = null;
+			if (renderer instanceof HELMGraphTableCellRenderer) {
+				request = prefetchImage((HELMGraphTableCellRenderer) renderer,
+						value, table.getCellRect(row, column, true));
+			} else if (renderer instanceof RNATableCellRenderer
+					&& value instanceof String) {
+				request = prefetchRNAPolymer((String) value);
+			} else if (renderer instanceof PeptideTableCellRenderer
+					&& value instanceof String) {
+				request = prefetchPeptidePolymer((String) value);
+			}
+			if (request != null) {
+				requests.add(request);
+			}
+		}
+		scheduled.put(row, requests);
+	}
+
+	private CellRequest prefetchImage(HELMGraphTableCellRenderer renderer,
+			Object value, final Rectangle cell) {
+		if (value instanceof RNAPolymer) {
+			value = ((RNAPolymer) value).getNotation();
+		}
+		if (!(value instanceof String) || cell.width <= 0 || cell.height <= 0) {
+			return null;
+		}
+
+		final String notation = (String) value;
+		final int viewType = renderer.getViewType();
+		final int alignment = renderer.getAlignment();
+		final SequenceImageRenderer imageRenderer = SequenceImageRenderer
+				.getInstance();
+		if (imageRenderer.getImage(notation, cell.width, cell.height, viewType,
+				alignment) != null) {
+			return null;
+		}
+
+		imageRenderer.requestImage(notation, cell.width, cell.height,
+				viewType, alignment, null);
+		return new CellRequest() {
+			@Override
+			void cancel() {
+				imageRenderer.cancelRequest(notation, cell.width, cell.height,
+						viewType, alignment);
+			}
+		};
+	}
+
+	private CellRequest prefetchRNAPolymer(String notation) {
+		if (ParsedPolymerCache.getInstance().getRNAPolymer(notation) != null) {
+			return null;
+		}
+		requestRNAPolymer(notation, null);
+		return createParseRequest("R|" + notation);
+	}
+
+	private CellRequest prefetchPeptidePolymer(String notation) {
+		if (ParsedPolymerCache.getInstance().getPeptidePolymer(notation) != null) {
+			return null;
+		}
+		requestPeptidePolymer(notation, null);
+		return createParseRequest("P|" + notation);
+	}
+
+	private void cancelAll() {
+		for (List<CellRequest> requests : scheduled.values()) {
+			cancel(requests);
+		}
+		scheduled.clear();
+	}
+
+	private static void cancel(List<CellRequest> requests) {
+		for (CellRequest request : requests) {
+			request.cancel();
+		}
+	}
+
+	private static void requestParse(final String key, final Runnable parse,
+			Runnable onReady) {
+		synchronized (pendingParses) {
+			PendingParse pendingParse = pendingParses.get(key);
+			if (pendingParse == null || pendingParse.future.isCancelled()) {
+				pendingParse = new PendingParse();
+				pendingParses.put(key, pendingParse);
+				pendingParse.future = parsePool.submit(new Runnable() {
+					public void run() {
+						try {
+							parse.run();
+						} finally {
+							List<Runnable> callbacks;
+							synchronized (pendingParses) {
+								PendingParse done = pendingParses.remove(key);
+								callbacks = (done == null) ? new ArrayList<Runnable>()
+										: done.callbacks;
+							}
+							for (Runnable callback : callbacks) {
+								SwingUtilities.invokeLater(callback);
+							}
+						}
+					}
+				});
+			}
+			if (onReady != null) {
+				pendingParse.callbacks.add(onReady);
+			}
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return request that cancels the parse unless a cell waits for it
+	 */
+	private static CellRequest createParseRequest(final String key) {
+		return new CellRequest() {
+			@Override
+			void cancel() {
+				synchronized (pendingParses) {
+					PendingParse pendingParse = pendingParses.get(key);
+					if (pendingParse != null
+							&& pendingParse.callbacks.isEmpty()
+							&& pendingParse.future.cancel(false)) {
+						pendingParses.remove(key);
+					}
+				}
+			}
+		};
+	}
+}
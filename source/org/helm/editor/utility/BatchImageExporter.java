@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility;
+
+import java.awt.Image;
+import java.awt.image.RenderedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewControllerImpl;
+
+/**
+ * Renders large numbers of notations to PNG files. Every worker thread owns
+ * its own sequence view controller, so the images are rendered in parallel
+ * without sharing view state.
+ * 
+ * The input has one record per line, either a notation or an identifier and
+ * a notation separated by a tab. The image of a record is written to
+ * &lt;identifier&gt;.png, or &lt;line number&gt;.png if the record has no
+ * identifier. Records whose file name is already taken by an earlier record,
+ * e.g. duplicate identifiers, get their line number appended,
+ * &lt;identifier&gt;_&lt;line number&gt;.png.
+ * 
+ * The exporter does not open any windows; run it with
+ * -Djava.awt.headless=true on machines without a display. The
+ * {@link #main(String[])} method sets this property itself.
+ */
+public class BatchImageExporter {
+
+	public static final int DEFAULT_WIDTH = 600;
+	public static final int DEFAULT_HEIGHT = 200;
+
+	private static final int MAXIMUM_REPORTED_FAILURES = 100;
+
+	private final File outputDirectory;
+	private final int width;
+	private final int height;
+	private final int threadCount;
+
+	private final ThreadLocal<SequenceViewControllerImpl> controllers = new ThreadLocal<SequenceViewControllerImpl>() {
+		@Override
+		protected SequenceViewControllerImpl initialValue() {
+			return createController();
+		}
+	};
+
+	/**
+	 * Summary of an export run.
+	 */
+	public static class Report {
+		private int itemCount;
+		private int failureCount;
+		private final List<String> failures = new ArrayList<String>();
+		private long[] latencies = new long[1024];
+		private int latencyCount;
+		private long elapsedNanos;
+
+		private synchronized void success(long latency) {
+			itemCount++;
+			addLatency(latency);
+		}
+
+		private synchronized void failure(String record, Exception ex,
+				long latency) {
+			itemCount++;
+			failureCount++;
+			addLatency(latency);
+			addFailure(record + ": " + ex);
+		}
+
+		/**
+		 * a record that was not rendered, it has no latency
+		 */
+		private synchronized void rejected(String record, String reason) {
+			itemCount++;
+			failureCount++;
+			addFailure(record + ": " + reason);
+		}
+
+		private void addFailure(String failure) {
+			if (failures.size() < MAXIMUM_REPORTED_FAILURES) {
+				failures.add(failure);
+			}
+		}
+
+		private void addLatency(long latency) {
+			if (latencyCount == latencies.length) {
+				latencies = Arrays.copyOf(latencies, latencies.length * 2);
+			}
+			latencies[latencyCount++] = latency;
+		}
+
+		public synchronized int getItemCount() {
+			return itemCount;
+		}
+
+		public synchronized int getFailureCount() {
+			return failureCount;
+		}
+
+		/**
+		 * @return the first failures, as record and error message
+		 */
+		public synchronized List<String> getFailures() {
+			return Collections.unmodifiableList(new ArrayList<String>(failures));
+		}
+
+		public synchronized long getElapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		}
+
+		/**
+		 * @return images per second
+		 */
+		public synchronized double getThroughput() {
+			return elapsedNanos == 0 ? 0 : itemCount
+					/ (elapsedNanos / 1000000000.0);
+		}
+
+		/**
+		 * @param percentile
+		 *            between 0 and 100
+		 * @return latency of a single image in milliseconds
+		 */
+		public synchronized double getLatencyPercentile(double percentile) {
+			if (latencyCount == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(latencies, latencyCount);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile / 100.0 * latencyCount) - 1;
+			index = Math.max(0, Math.min(latencyCount - 1, index));
+			return sorted[index] / 1000000.0;
+		}
+
+		@Override
+		public synchronized String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format(
+					"%d images, %d failures in %d ms (%.1f images/s)%n",
+					itemCount, failureCount, getElapsedMillis(),
+					getThroughput()));
+			sb.append(String.format(
+					"latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+					getLatencyPercentile(50), getLatencyPercentile(90),
+					getLatencyPercentile(99), getLatencyPercentile(100)));
+			for (String failure : failures) {
+				sb.append("failed: ").append(failure).append(
+						String.format("%n"));
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * @param outputDirectory
+	 *            directory the PNG files are written to, created if missing
+	 * @param width
+	 *            image width
+	 * @param height
+	 *            image height
+	 * @param threadCount
+	 *            number of images rendered in parallel
+	 */
+	public BatchImageExporter(File outputDirectory, int width, int height,
+			int threadCount) {
+		this.outputDirectory = outputDirectory;
+		this.width = width;
+		this.height = height;
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Renders all records of the input. The input is read as the workers
+	 * make progress, so only a few records are held in memory at a time.
+	 * 
+	 * @param input
+	 * @return report of the run
+	 * @throws IOException
+	 *             if the input cannot be read or the output directory cannot
+	 *             be created
+	 * @throws InterruptedException
+	 */
+	public Report export(BufferedReader input) throws IOException,
+			InterruptedException {
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			throw new IOException("Unable to create " + outputDirectory);
+		}
+
+		final Report report = new Report();
+		// lower case, file names may not be case sensitive
+		Set<String> fileNames = new HashSet<String>();
+		final Semaphore inFlight = new Semaphore(threadCount * 4);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "BatchImageExporter-"
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		long start = System.nanoTime();
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = input.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.length() == 0) {
+					continue;
+				}
+
+				final String id;
+				final String notation;
+				int tab = line.indexOf('\t');
+				if (tab >= 0) {
+					id = line.substring(0, tab).trim();
+					notation = line.substring(tab + 1).trim();
+				} else {
+					id = String.valueOf(lineNumber);
+					notation = line;
+				}
+
+				String name = toFileName(id);
+				if (!fileNames.add(name.toLowerCase())) {
+					name = toFileName(id + "_" + lineNumber);
+					if (!fileNames.add(name.toLowerCase())) {
+						report.rejected(id, "file name " + name
+								+ " is already used");
+						continue;
+					}
+				}
+				final File file = new File(outputDirectory, name);
+
+				inFlight.acquire();
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							exportRecord(id, notation, file, report);
+						} finally {
+							inFlight.release();
+						}
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			synchronized (report) {
+				report.elapsedNanos = System.nanoTime() - start;
+			}
+		}
+		return report;
+	}
+
+	private void exportRecord(String id, String notation, File file,
+			Report report) {
+		long start = System.nanoTime();
+		try {
+			SequenceViewControllerImpl controller = controllers.get();
+			controller.getView().setSize(width, height);
+			Image image = controller.toImage(notation, width, height);
+			RenderedImage renderedImage = (image instanceof RenderedImage) ? (RenderedImage) image
+					: SaveAsPNG.getBufferedImageFromImage(image);
+			ImageIO.write(renderedImage, "png", file);
+			report.success(System.nanoTime() - start);
+		} catch (Exception ex) {
+			// do not reuse a controller that failed half way
+			controllers.remove();
+			report.failure(id, ex, System.nanoTime() - start);
+		}
+	}
+
+	private static SequenceViewControllerImpl createController() {
+		SequenceViewControllerImpl controller = new SequenceViewControllerImpl(
+				false);
+		controller.setLayoutMode(true);
+		return controller;
+	}
+
+	private static String toFileName(String id) {
+		return id.replaceAll("[^A-Za-z0-9._-]", "_") + ".png";
+	}
+
+	/**
+	 * usage: BatchImageExporter &lt;input file or -&gt; &lt;output
+	 * directory&gt; [width height [threads]]
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+
+		// the width is only given together with the height
+		if (args.length < 2 || args.length == 3) {
+			System.err
+					.println("usage: BatchImageExporter <input file or -> <output directory> [width height [threads]]");
+			System.exit(1);
+		}
+
+		int width = (args.length > 3) ? Integer.parseInt(args[2])
+				: DEFAULT_WIDTH;
+		int height = (args.length > 3) ? Integer.parseInt(args[3])
+				: DEFAULT_HEIGHT;
+		int threads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime
+				.getRuntime().availableProcessors();
+
+		InputStream in = "-".equals(args[0]) ? System.in : new FileInputStream(
+				args[0]);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+				"UTF-8"));
+		try {
+			BatchImageExporter exporter = new BatchImageExporter(new File(
+					args[1]), width, height, threads);
+			System.out.print(exporter.export(reader));
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation of long running work such as parsing and layout.
+ * The work polls {@link #isCancelled()} at convenient points and stops early
+ * once it returns true.
+ */
+public abstract class CancellationToken {
+
+	/** token of work that cannot be cancelled */
+	public static final CancellationToken NONE = new CancellationToken() {
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+	};
+
+	public abstract boolean isCancelled();
+
+	/**
+	 * @throws CancellationException
+	 *             if the work has been cancelled
+	 */
+	public void checkCancelled() {
+		if (isCancelled()) {
+			throw new CancellationException();
+		}
+	}
+}
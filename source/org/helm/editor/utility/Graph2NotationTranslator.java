@@ -25,7 +25,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -57,8 +57,10 @@ import org.helm.editor.data.EdgeMapKeys;
 import org.helm.editor.data.EditorEdgeInfoData;
 import org.helm.editor.data.GraphManager;
 import org.helm.editor.data.MonomerInfo;
+import org.helm.editor.data.MonomerStoreCache;
 import org.helm.editor.data.NodeMapKeys;
 import org.helm.editor.editor.MacromoleculeEditor;
+import org.helm.editor.utility.PolymerNotationCache.PolymerFragment;
 import org.helm.editor.utility.notationcompositor.NotationCompositor;
 import org.helm.notation.model.Monomer;
 import org.helm.notation.tools.ComplexNotationParser;
@@ -81,7 +83,10 @@ public class Graph2NotationTranslator {
 	private static NotationCompositor _notationCompositor = new NotationCompositor();
 
 	/**
-	 * update the hyper graph according to current graph
+	 * update the hyper graph according to current graph. Polymers are cached
+	 * per starting node; only the polymers touched by graph edits since the
+	 * last update are walked again, the connection and pair sections are
+	 * always recomposed.
 	 * 
 	 * @param graph
 	 * @param graphManager
@@ -94,9 +99,7 @@ public class Graph2NotationTranslator {
 			final GraphManager graphManager) throws NotationException,
 			MonomerException, IOException, JDOMException {
 
-		// initializeIOHandler the new hyper graph
 		Graph hyperGraph = graphManager.getHyperGraph();
-		hyperGraph.clear();
 
 		NodeMap hyperNodeNameMap = (NodeMap) hyperGraph
 				.getDataProvider(NodeMapKeys.HYPERNODE_NAME);
@@ -109,21 +112,11 @@ public class Graph2NotationTranslator {
 		NodeMap hyperNodeMapPolymerName = (NodeMap) hyperGraph
 				.getDataProvider(NodeMapKeys.HYPERNODE_POLYMER_NOTATION);
 
-		hyperGraph.removeDataProvider(NodeMapKeys.EXSMIELS);
-		hyperGraph.addDataProvider(NodeMapKeys.EXSMIELS,
-				hyperGraph.createNodeMap());
-		NodeMap smilesMaps = (NodeMap) hyperGraph
-				.getDataProvider(NodeMapKeys.EXSMIELS);
-
 		// go through the graph and generate a new hyper graph
 		final List<Node> startingList = graphManager.getStartingNodeList();
 		final NodeMap nodeMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
 
-		// a Map that has the position information for each monomer
-		NodeMap positionNodeMap = graph.createNodeMap();
-		graph.addDataProvider(NodeMapKeys.POSITION, positionNodeMap);
-
 		// a map that is <Node,hyper node> pair
 		NodeMap parentNodeMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.NODE2PARENT_HYPERNODE);
@@ -133,12 +126,235 @@ public class Graph2NotationTranslator {
 					parentNodeMap);
 		}
 
-		MonomerInfo monomerInfo = null;
+		// a Map that has the position information for each monomer
+		NodeMap positionNodeMap = (NodeMap) graph
+				.getDataProvider(NodeMapKeys.POSITION);
+		NodeMap node2starting = (NodeMap) graph
+				.getDataProvider(NodeMapKeys.NODE2STARTING_NODE);
+		NodeMap hyper2starting = (NodeMap) hyperGraph
+				.getDataProvider(NodeMapKeys.HYPERNODE2STARTING_NODE);
+		NodeMap indexMap = (NodeMap) hyperGraph
+				.getDataProvider(NodeMapKeys.HYPERNODE2INDEX);
+		NodeMap smilesMaps = (NodeMap) hyperGraph
+				.getDataProvider(NodeMapKeys.EXSMIELS);
 
-		int rnaCount = 0;
-		int peptideCount = 0;
-		int chemCount = 0;
-		int monomerCount = 0;
+		PolymerNotationCache cache = PolymerNotationCache.getInstance(graph);
+		Object monomerStore = MonomerStoreCache.getInstance()
+				.getCombinedMonomerStore();
+		boolean rebuild = !cache.isValid(hyperGraph, monomerStore,
+				new NodeMap[] { parentNodeMap, positionNodeMap, node2starting,
+						hyper2starting, indexMap, smilesMaps });
+		if (rebuild) {
+			hyperGraph.clear();
+			positionNodeMap = clearNodeMap(graph, NodeMapKeys.POSITION);
+			node2starting = clearNodeMap(graph, NodeMapKeys.NODE2STARTING_NODE);
+			hyper2starting = clearNodeMap(hyperGraph,
+					NodeMapKeys.HYPERNODE2STARTING_NODE);
+			indexMap = clearNodeMap(hyperGraph, NodeMapKeys.HYPERNODE2INDEX);
+			smilesMaps = clearNodeMap(hyperGraph, NodeMapKeys.EXSMIELS);
+			cache.rebind(hyperGraph, monomerStore, new NodeMap[] {
+					parentNodeMap, positionNodeMap, node2starting,
+					hyper2starting, indexMap, smilesMaps });
+		}
+		clearNodeMap(graph, NodeMapKeys.NODE2PAIR_NODE);
+
+		boolean updated = false;
+		try {
+			// polymers whose starting node is gone
+			Set<Node> startingSet = new HashSet<Node>(startingList);
+			for (PolymerFragment fragment : cache.retainFragments(startingSet)) {
+				resetNodes(graph, cache, fragment, positionNodeMap,
+						parentNodeMap, node2starting);
+				if (fragment.getHyperNode().getGraph() == hyperGraph) {
+					hyperGraph.removeNode(fragment.getHyperNode());
+				}
+			}
+
+			for (Node startingNode : startingList) {
+				PolymerFragment fragment = cache.getFragment(startingNode);
+				if (fragment == null) {
+					fragment = cache.createFragment(startingNode);
+					fragment.setHyperNode(hyperGraph.createNode());
+					// a new starting node inside a known polymer splits it
+					PolymerFragment owner = cache.getOwner(startingNode);
+					if (owner != null) {
+						owner.markDirty();
+					}
+				} else if (!fragment.isDirty()
+						&& !fragment.isMonomerStateCurrent(nodeMap)) {
+					fragment.markDirty();
+				}
+			}
+
+			List<PolymerFragment> dirtyList = new ArrayList<PolymerFragment>();
+			Set<Node> touchedNodes = new HashSet<Node>(cache.getCreatedNodes());
+			for (Node startingNode : startingList) {
+				PolymerFragment fragment = cache.getFragment(startingNode);
+				if (fragment.isDirty() && !dirtyList.contains(fragment)) {
+					dirtyList.add(fragment);
+					touchedNodes.add(startingNode);
+					touchedNodes.addAll(fragment.getNodes());
+					cache.forgetNodes(fragment);
+				}
+			}
+			for (PolymerFragment fragment : dirtyList) {
+				resetNodes(graph, cache, fragment, positionNodeMap,
+						parentNodeMap, node2starting);
+				fragment.reset();
+			}
+
+			// hide branch edges, the walks follow the backbone only
+			GraphHider gh = new GraphHider(graph);
+			cache.setSuspended(true);
+			try {
+				if (rebuild) {
+					for (EdgeCursor alledges = graph.edges(); alledges.ok(); alledges
+							.next()) {
+						Edge e = alledges.edge();
+						if (MonomerInfoUtils.isPBranchEdge(e)) {
+							gh.hide(e);
+						}
+					}
+				} else {
+					Set<Edge> branchEdges = new HashSet<Edge>();
+					for (Node node : touchedNodes) {
+						if (node.getGraph() != graph) {
+							continue;
+						}
+						for (EdgeCursor edges = node.edges(); edges.ok(); edges
+								.next()) {
+							Edge e = edges.edge();
+							if (MonomerInfoUtils.isPBranchEdge(e)) {
+								branchEdges.add(e);
+							}
+						}
+					}
+					for (Edge e : branchEdges) {
+						gh.hide(e);
+					}
+				}
+
+				for (PolymerFragment fragment : dirtyList) {
+					translatePolymer(fragment, nodeMap, positionNodeMap,
+							parentNodeMap);
+				}
+			} finally {
+				// unhide branch edges
+				gh.unhideAll();
+				cache.setSuspended(false);
+			}
+
+			for (PolymerFragment fragment : dirtyList) {
+				for (Node node : fragment.getNodes()) {
+					node2starting.set(node, fragment.getStartingNode());
+					for (EdgeCursor edges = node.edges(); edges.ok(); edges
+							.next()) {
+						if (MonomerInfoUtils.isPBranchEdge(edges.edge())) {
+							fragment.addPolyEdge(edges.edge());
+						}
+					}
+				}
+				cache.recordNodes(fragment);
+			}
+
+			// hyper node index corresponds to the order at which starting
+			// nodes were added to the gm's starting node list.
+			// this is in turn corresponds to the order of polymer list in the
+			// notation
+			for (Edge hyperEdge : hyperGraph.getEdgeArray()) {
+				hyperGraph.removeEdge(hyperEdge);
+			}
+
+			int rnaCount = 0;
+			int peptideCount = 0;
+			int chemCount = 0;
+			int hyperNodeIndex = 0;
+			Set<Edge> polyEdgeSet = new LinkedHashSet<Edge>();
+			for (Node startingNode : startingList) {
+				PolymerFragment fragment = cache.getFragment(startingNode);
+				Node hyperNode = fragment.getHyperNode();
+				hyperGraph.moveToLast(hyperNode);
+
+				hyperNodeIndex++;
+				hyper2starting.set(hyperNode, startingNode);
+				indexMap.setInt(hyperNode, hyperNodeIndex);
+
+				String polyType = fragment.getPolymerType();
+				hyperNodeAnotationMap.set(hyperNode,
+						graphManager.getAnnotation(startingNode));
+				hyperNodeMapPolymerType.set(hyperNode, polyType);
+				hyperNodeMapPolymerName.set(hyperNode, fragment.getNotation());
+				// SM: ad hoc monomers should be exported as inline smiles code
+				smilesMaps.set(hyperNode, fragment.getSmiles());
+
+				if (polyType.equalsIgnoreCase(Monomer.NUCLIEC_ACID_POLYMER_TYPE)) {
+					rnaCount++;
+					hyperNodeNameMap.set(hyperNode,
+							Monomer.NUCLIEC_ACID_POLYMER_TYPE + rnaCount);
+				} else if (polyType
+						.equalsIgnoreCase(Monomer.PEPTIDE_POLYMER_TYPE)) {
+					peptideCount++;
+					hyperNodeNameMap.set(hyperNode,
+							Monomer.PEPTIDE_POLYMER_TYPE + peptideCount);
+				} else {
+					chemCount++;
+					hyperNodeNameMap.set(hyperNode,
+							Monomer.CHEMICAL_POLYMER_TYPE + chemCount);
+				}
+
+				polyEdgeSet.addAll(fragment.getPolyEdges());
+			}
+
+			// set up hyperEdges
+			for (Edge edge : polyEdgeSet) {
+				if (edge.getGraph() == graph) {
+					setUpHyperEdge(edge, graph, hyperGraph);
+					updatePairMap(edge, graph, hyperGraph);
+				}
+			}
+			updated = true;
+		} finally {
+			if (updated) {
+				cache.updated();
+			} else {
+				cache.invalidate();
+			}
+		}
+	}
+
+	/**
+	 * clear position, parent and starting node of the nodes of a polymer that
+	 * are not claimed by another polymer
+	 */
+	private static void resetNodes(Graph graph, PolymerNotationCache cache,
+			PolymerFragment fragment, NodeMap positionNodeMap,
+			NodeMap parentNodeMap, NodeMap node2starting) {
+		for (Node node : fragment.getNodes()) {
+			if (node.getGraph() == graph && cache.getOwner(node) == null) {
+				positionNodeMap.setInt(node, 0);
+				parentNodeMap.set(node, null);
+				node2starting.set(node, null);
+			}
+		}
+	}
+
+	private static void assignNode(Node node, PolymerFragment fragment,
+			NodeMap nodeMap, NodeMap parentNodeMap) {
+		if (parentNodeMap.get(node) != fragment.getHyperNode()) {
+			parentNodeMap.set(node, fragment.getHyperNode());
+			fragment.addNode(node, (MonomerInfo) nodeMap.get(node));
+		}
+	}
+
+	/**
+	 * walk one polymer from its starting node and store its notation in the
+	 * fragment
+	 */
+	private static void translatePolymer(PolymerFragment fragment,
+			NodeMap nodeMap, NodeMap positionNodeMap, NodeMap parentNodeMap)
+			throws NotationException, MonomerException, IOException,
+			JDOMException {
+		Node startingNode = fragment.getStartingNode();
 
 		NodeCursor successors = null;
 
@@ -146,121 +362,147 @@ public class Graph2NotationTranslator {
 		Node pNode = null;
 		Node baseNode = null;
 		Edge edge = null;
-		Monomer monomer = null;
 
-		Set<Edge> polyEdgeSet = new HashSet<Edge>();
+		MonomerInfo monomerInfo = (MonomerInfo) nodeMap.get(startingNode);
+		Monomer monomer = monomerInfo.getMonomer();
 
-		// hide branch nodes
-		EdgeCursor alledges = graph.edges();
-		EdgeMap edgeInfo = (EdgeMap) graph
-				.getDataProvider(EdgeMapKeys.EDGE_INFO);
+		StringBuilder code = new StringBuilder();
+		StringBuilder codeWithSmiles = new StringBuilder();
+		boolean containsSmiles = false;
+		String smiles = null;
+		int monomerCount = 0;
+		String polyType = monomerInfo.getPolymerType();
+		if (polyType.equalsIgnoreCase(Monomer.NUCLIEC_ACID_POLYMER_TYPE)) {
+			Set<Node> visitedRNA = new HashSet<Node>();
 
-		GraphHider gh = new GraphHider(graph);
+			// boolean containsSmiles = false;
 
-		for (; alledges.ok(); alledges.next()) {
-			Edge e = alledges.edge();
-			if (MonomerInfoUtils.isPBranchEdge(e)) {
-				gh.hide(e);
-				polyEdgeSet.add(e);
+			if (monomerInfo.hasRole(MonomerInfo.ROLE_PHOSPHATE)) {
+				visitedRNA.add(startingNode);
 			}
-		}
 
-		Node hyperNode = null;
+			// walk through this RNA sequence and get the notation
 
-		NodeMap hyper2starting = clearNodeMap(hyperGraph,
-				NodeMapKeys.HYPERNODE2STARTING_NODE);
-		clearNodeMap(graph, NodeMapKeys.NODE2PAIR_NODE);
-		clearNodeMap(graph, NodeMapKeys.NODE2STARTING_NODE);
-		NodeMap indexMap = clearNodeMap(hyperGraph, NodeMapKeys.HYPERNODE2INDEX);
-
-		int hyperNodeIndex = 0;
-		// hyper node index corresponds to the order at which starting nodes
-		// were added to the gm's starting node list.
-		// this is in turn corresponds to the order of polymer list in the
-		// notation
-		for (Node startingNode : startingList) {
-			// for each starting node, we create a hyper node
-			hyperNodeIndex++;
-			hyperNode = hyperGraph.createNode();
-			hyper2starting.set(hyperNode, startingNode);
-			indexMap.setInt(hyperNode, hyperNodeIndex);
-
-			monomerInfo = (MonomerInfo) nodeMap.get(startingNode);
-			monomer = GraphUtils.getMonomerDB()
-					.get(monomerInfo.getPolymerType())
-					.get(monomerInfo.getMonomerID());
-
-			StringBuilder code = new StringBuilder();
-			StringBuilder codeWithSmiles = new StringBuilder();
-			boolean containsSmiles = false;
-			monomerCount = 0;
-			String polyType = monomerInfo.getPolymerType();
-			String anotation = graphManager.getAnnotation(startingNode);
+			if (monomerInfo.hasRole(MonomerInfo.ROLE_SUGAR)) {
+				monomerCount = 1;
+				rNode = startingNode;
+			} else if (monomerInfo.hasRole(MonomerInfo.ROLE_PHOSPHATE)) {
+				monomerCount = 1;
+				pNode = startingNode;
+				positionNodeMap.setInt(startingNode, monomerCount++);
 
-			hyperNodeAnotationMap.set(hyperNode, anotation);
+				monomerInfo = (MonomerInfo) nodeMap.get(pNode);
 
-			hyperNodeMapPolymerType.set(hyperNode, polyType);
+				String monomerString = getMonomerString(monomerInfo);
 
-			if (polyType.equalsIgnoreCase(Monomer.NUCLIEC_ACID_POLYMER_TYPE)) {
-				Set<Node> visitedRNA = new HashSet<Node>();
+				code.append(monomerString);
 
-				// boolean containsSmiles = false;
+				if (monomer.isAdHocMonomer()) {
+					containsSmiles = true;
+					codeWithSmiles.append("[" + monomer.getCanSMILES()
+							+ "]");
+				} else {
+					codeWithSmiles.append(monomerString);
+				}
 
-				if (MonomerInfoUtils.isPMonomer(startingNode)) {
-					visitedRNA.add(startingNode);
+				assignNode(pNode, fragment, nodeMap, parentNodeMap);
+				successors = pNode.successors();
+				for (; successors.ok(); successors.next()) {
+					monomerInfo = (MonomerInfo) nodeMap.get(successors
+							.node());
+					monomer = monomerInfo.getMonomer();
+					if (monomerInfo.hasRole(MonomerInfo.ROLE_SUGAR)) {
+						rNode = successors.node();
+						// append seperator if there is a next unit
+						code.append(".");
+						codeWithSmiles.append(".");
+						break;
+					}
+				}
+			} else if (monomerInfo.hasRole(MonomerInfo.ROLE_BRANCH)) {
+				monomerCount = 1;
+				assignNode(startingNode, fragment, nodeMap, parentNodeMap);
+				positionNodeMap.setInt(startingNode, monomerCount++);
+				if (monomer.isAdHocMonomer()) {
+					containsSmiles = true;
+					codeWithSmiles.append("([" + monomer.getCanSMILES()
+							+ "])");
+				} else {
+					codeWithSmiles.append("("
+							+ getMonomerString(monomerInfo) + ")");
 				}
+				code.append("(");
+				code.append(getMonomerString(monomerInfo));
+				code.append(")");
+			}
 
-				// build an RNA String
-				rnaCount++;
-				// walk through this RNA sequence and get the notation
+			while ((rNode != null) && !visitedRNA.contains(rNode)) {
+				assignNode(rNode, fragment, nodeMap, parentNodeMap);
+				successors = rNode.successors();
+				// reset base node and p node
+				baseNode = null;
+				pNode = null;
+				visitedRNA.add(rNode);
+
+				for (; successors.ok(); successors.next()) {
+					if (visitedRNA.contains(successors.node())) {
+						pNode = null;
+						continue;
+					}
+					monomerInfo = (MonomerInfo) nodeMap.get(successors
+							.node());
+
+					if (monomerInfo.hasRole(MonomerInfo.ROLE_PHOSPHATE)
+							&& monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
+						// this should be a p node
+						pNode = successors.node();
+						assignNode(pNode, fragment, nodeMap, parentNodeMap);
+						visitedRNA.add(pNode);
+
+					} else if (monomerInfo.hasRole(MonomerInfo.ROLE_BRANCH)) {// base node
+						baseNode = successors.node();
+						assignNode(baseNode, fragment, nodeMap, parentNodeMap);
+						if (baseNode.successors().size() > 0) {
+							// if there are inter polymer edges connect
+							// between base and other polymer
+							NodeCursor baseSucc = baseNode.successors();
+							for (; baseSucc.ok(); baseSucc.next()) {
+								edge = baseNode.getEdgeTo(baseSucc.node());
+								fragment.addPolyEdge(edge);
+							}
+						}
 
-				if (monomer.getNaturalAnalog().equalsIgnoreCase(Monomer.ID_R)) {
-					monomerCount = 1;
-					rNode = startingNode;
-				} else if (monomer.getNaturalAnalog().equalsIgnoreCase(
-						Monomer.ID_P)) {
-					monomerCount = 1;
-					pNode = startingNode;
-					positionNodeMap.setInt(startingNode, monomerCount++);
+					} else { // this is an inter polymer edge between R and
+								// some other polymer
+						edge = rNode.getEdgeTo(successors.node());
+						fragment.addPolyEdge(edge);
+					}
+				}
+				// r node
+				monomerInfo = (MonomerInfo) nodeMap.get(rNode);
+				monomer = monomerInfo.getMonomer();
 
-					monomerInfo = (MonomerInfo) nodeMap.get(pNode);
+				String monomerString = getMonomerString(monomerInfo);
+				code.append(monomerString);
 
-					String monomerString = getMonomerString(monomerInfo);
+				if (monomer.isAdHocMonomer()) {
+					containsSmiles = true;
+					codeWithSmiles.append("[" + monomer.getCanSMILES()
+							+ "]");
+				} else {
+					codeWithSmiles.append(monomerString);
+				}
 
-					code.append(monomerString);
+				positionNodeMap.set(rNode, monomerCount++);
+				if (baseNode != null) {
+					positionNodeMap.setInt(baseNode, monomerCount++);
 
-					if (monomer.isAdHocMonomer()) {
-						containsSmiles = true;
-						codeWithSmiles.append("[" + monomer.getCanSMILES()
-								+ "]");
-					} else {
-						codeWithSmiles.append(monomerString);
-					}
+					monomerInfo = (MonomerInfo) nodeMap.get(baseNode);
+					monomer = monomerInfo.getMonomer();
 
-					parentNodeMap.set(pNode, hyperNode);
-					successors = pNode.successors();
-					for (; successors.ok(); successors.next()) {
-						monomerInfo = (MonomerInfo) nodeMap.get(successors
-								.node());
-						monomer = GraphUtils.getMonomerDB()
-								.get(monomerInfo.getPolymerType())
-								.get(monomerInfo.getMonomerID());
-						if (monomerInfo.getPolymerType().equalsIgnoreCase(
-								Monomer.NUCLIEC_ACID_POLYMER_TYPE)
-								&& monomer.getNaturalAnalog().equalsIgnoreCase(
-										Monomer.ID_R)) {
-							rNode = successors.node();
-							// append seperator if there is a next unit
-							code.append(".");
-							codeWithSmiles.append(".");
-							break;
-						}
-					}
-				} else if (monomer.getMonomerType().equalsIgnoreCase(
-						Monomer.BRANCH_MOMONER_TYPE)) {
-					monomerCount = 1;
-					parentNodeMap.set(startingNode, hyperNode);
-					positionNodeMap.setInt(startingNode, monomerCount++);
+					code.append("(");
+					code.append(getMonomerString(monomerInfo));
+					code.append(")");
 					if (monomer.isAdHocMonomer()) {
 						containsSmiles = true;
 						codeWithSmiles.append("([" + monomer.getCanSMILES()
@@ -269,68 +511,16 @@ public class Graph2NotationTranslator {
 						codeWithSmiles.append("("
 								+ getMonomerString(monomerInfo) + ")");
 					}
-					code.append("(");
-					code.append(getMonomerString(monomerInfo));
-					code.append(")");
 				}
+				if (pNode != null) {
+					positionNodeMap.setInt(pNode, monomerCount++);
+					assignNode(pNode, fragment, nodeMap, parentNodeMap);
 
-				while ((rNode != null) && !visitedRNA.contains(rNode)) {
-					parentNodeMap.set(rNode, hyperNode);
-					successors = rNode.successors();
-					// reset base node and p node
-					baseNode = null;
-					pNode = null;
-					visitedRNA.add(rNode);
-
-					for (; successors.ok(); successors.next()) {
-						if (visitedRNA.contains(successors.node())) {
-							pNode = null;
-							continue;
-						}
-						monomerInfo = (MonomerInfo) nodeMap.get(successors
-								.node());
-						monomer = GraphUtils.getMonomerDB()
-								.get(monomerInfo.getPolymerType())
-								.get(monomerInfo.getMonomerID());
-
-						if (monomer.getMonomerType().equalsIgnoreCase(
-								Monomer.BACKBONE_MOMONER_TYPE)
-								&& monomer.getNaturalAnalog().equalsIgnoreCase(
-										Monomer.ID_P)) {
-							// this should be a p node
-							pNode = successors.node();
-							parentNodeMap.set(pNode, hyperNode);
-							visitedRNA.add(pNode);
-
-						} else if (monomer.getMonomerType().equalsIgnoreCase(
-								Monomer.BRANCH_MOMONER_TYPE)) {// base node
-							baseNode = successors.node();
-							parentNodeMap.set(baseNode, hyperNode);
-							if (baseNode.successors().size() > 0) {
-								// if there are inter polymer edges connect
-								// between base and other polymer
-								NodeCursor baseSucc = baseNode.successors();
-								for (; baseSucc.ok(); baseSucc.next()) {
-									edge = baseNode.getEdgeTo(baseSucc.node());
-									polyEdgeSet.add(edge);
-								}
-							}
-
-						} else { // this is an inter polymer edge between R and
-									// some other polymer
-							edge = rNode.getEdgeTo(successors.node());
-							polyEdgeSet.add(edge);
-						}
-					}
-					// r node
-					monomerInfo = (MonomerInfo) nodeMap.get(rNode);
-					monomer = GraphUtils.getMonomerDB()
-							.get(monomerInfo.getPolymerType())
-							.get(monomerInfo.getMonomerID());
+					monomerInfo = (MonomerInfo) nodeMap.get(pNode);
+					monomer = monomerInfo.getMonomer();
 
-					String monomerString = getMonomerString(monomerInfo);
+					monomerString = getMonomerString(monomerInfo);
 					code.append(monomerString);
-
 					if (monomer.isAdHocMonomer()) {
 						containsSmiles = true;
 						codeWithSmiles.append("[" + monomer.getCanSMILES()
@@ -339,226 +529,144 @@ public class Graph2NotationTranslator {
 						codeWithSmiles.append(monomerString);
 					}
 
-					positionNodeMap.set(rNode, monomerCount++);
-					if (baseNode != null) {
-						positionNodeMap.setInt(baseNode, monomerCount++);
-
-						monomerInfo = (MonomerInfo) nodeMap.get(baseNode);
-						monomer = GraphUtils.getMonomerDB()
-								.get(monomerInfo.getPolymerType())
-								.get(monomerInfo.getMonomerID());
-
-						code.append("(");
-						code.append(getMonomerString(monomerInfo));
-						code.append(")");
-						if (monomer.isAdHocMonomer()) {
-							containsSmiles = true;
-							codeWithSmiles.append("([" + monomer.getCanSMILES()
-									+ "])");
-						} else {
-							codeWithSmiles.append("("
-									+ getMonomerString(monomerInfo) + ")");
-						}
-					}
-					if (pNode != null) {
-						positionNodeMap.setInt(pNode, monomerCount++);
-						parentNodeMap.set(pNode, hyperNode);
-
-						monomerInfo = (MonomerInfo) nodeMap.get(pNode);
-						monomer = GraphUtils.getMonomerDB()
-								.get(monomerInfo.getPolymerType())
-								.get(monomerInfo.getMonomerID());
-
-						monomerString = getMonomerString(monomerInfo);
-						code.append(monomerString);
-						if (monomer.isAdHocMonomer()) {
-							containsSmiles = true;
-							codeWithSmiles.append("[" + monomer.getCanSMILES()
-									+ "]");
+					successors = pNode.successors();
+					if (successors.ok()) {
+						if (successors.size() > 1) {
+							throw new NotationException(
+									"Phosphate can not have more than one connections");
 						} else {
-							codeWithSmiles.append(monomerString);
-						}
+							monomerInfo = (MonomerInfo) nodeMap
+									.get(successors.node());
 
-						successors = pNode.successors();
-						if (successors.ok()) {
-							if (successors.size() > 1) {
-								throw new NotationException(
-										"Phosphate can not have more than one connections");
+							if (monomerInfo.hasRole(MonomerInfo.ROLE_SUGAR)) {
+								rNode = successors.node();
 							} else {
-								monomerInfo = (MonomerInfo) nodeMap
-										.get(successors.node());
-								monomer = GraphUtils.getMonomerDB()
-										.get(monomerInfo.getPolymerType())
-										.get(monomerInfo.getMonomerID());
-
-								if (monomerInfo
-										.getPolymerType()
-										.equalsIgnoreCase(
-												Monomer.NUCLIEC_ACID_POLYMER_TYPE)
-										&& monomer.getNaturalAnalog()
-												.equalsIgnoreCase(Monomer.ID_R)) {
-									rNode = successors.node();
-								} else {
-									edge = pNode.getEdge(successors.node());
-									// setUpHyperEdge(edge, graph, hyperGraph);
-									polyEdgeSet.add(edge);
-									rNode = null;
-								}
+								edge = pNode.getEdge(successors.node());
+								// setUpHyperEdge(edge, graph, hyperGraph);
+								fragment.addPolyEdge(edge);
+								rNode = null;
 							}
-						} else {
-							rNode = null;
 						}
 					} else {
 						rNode = null;
 					}
-					code.append(".");
-					codeWithSmiles.append(".");
+				} else {
+					rNode = null;
 				}
+				code.append(".");
+				codeWithSmiles.append(".");
+			}
 
-				if (startingNode.inDegree() > 0) {
-					polyEdgeSet.add(startingNode.inEdges().edge());
-				}
+			if (startingNode.inDegree() > 0) {
+				fragment.addPolyEdge(startingNode.inEdges().edge());
+			}
 
-				if (code.lastIndexOf(".") != -1) {
-					code.deleteCharAt(code.lastIndexOf("."));
-				}
+			if (code.lastIndexOf(".") != -1) {
+				code.deleteCharAt(code.lastIndexOf("."));
+			}
 
-				//delete last point (XHELM-75)
-				if (codeWithSmiles.charAt(codeWithSmiles.length()-1)=='.'){
-					codeWithSmiles
-					.deleteCharAt(codeWithSmiles.length()-1);
-				}
-				// this code deletes valid point in [Na+].[O-]P([*])([*])=O |$;;;_R1;_R2;$|, if only one monomer is selected
+			//delete last point (XHELM-75)
+			if (codeWithSmiles.charAt(codeWithSmiles.length()-1)=='.'){
+				codeWithSmiles
+				.deleteCharAt(codeWithSmiles.length()-1);
+			}
+			// this code deletes valid point in [Na+].[O-]P([*])([*])=O |$;;;_R1;_R2;$|, if only one monomer is selected
 //				if (codeWithSmiles.lastIndexOf(".") != -1) {
 //					codeWithSmiles
 //							.deleteCharAt(codeWithSmiles.lastIndexOf("."));
 //				}
-				hyperNodeNameMap.set(hyperNode,
-						Monomer.NUCLIEC_ACID_POLYMER_TYPE + rnaCount);
+		} else if (polyType.equalsIgnoreCase(Monomer.PEPTIDE_POLYMER_TYPE)) {
+			monomerCount = 1;
+			positionNodeMap.setInt(startingNode, monomerCount++);
+			assignNode(startingNode, fragment, nodeMap, parentNodeMap);
 
-			} else if (polyType.equalsIgnoreCase(Monomer.PEPTIDE_POLYMER_TYPE)) {
-				peptideCount++;
-				monomerCount = 1;
-				positionNodeMap.setInt(startingNode, monomerCount++);
-				parentNodeMap.set(startingNode, hyperNode);
+			// StringBuilder codeWithSmiles = new StringBuilder();
 
-				// StringBuilder codeWithSmiles = new StringBuilder();
-
-				if (monomer.isAdHocMonomer()) {
-					containsSmiles = true;
-					codeWithSmiles.append("[" + monomer.getCanSMILES() + "]");
-				} else {
-					codeWithSmiles.append(getMonomerString(monomerInfo));
-				}
-
-				code.append(getMonomerString(monomerInfo));
+			if (monomer.isAdHocMonomer()) {
+				containsSmiles = true;
+				codeWithSmiles.append("[" + monomer.getCanSMILES() + "]");
+			} else {
+				codeWithSmiles.append(getMonomerString(monomerInfo));
+			}
 
-				successors = startingNode.successors();
-				Set<Node> visitedPeptides = new HashSet<Node>();
-				visitedPeptides.add(startingNode);
+			code.append(getMonomerString(monomerInfo));
 
-				while (successors != null && successors.ok()) {
-					Node currentNode = successors.node();
-					monomerInfo = (MonomerInfo) nodeMap.get(currentNode);
-					monomer = GraphUtils.getMonomerDB()
-							.get(monomerInfo.getPolymerType())
-							.get(monomerInfo.getMonomerID());
-					if (MonomerInfoUtils.isPeptidePolymer(currentNode)) {
-
-						// cycle
-						if (visitedPeptides.contains(currentNode)) {
-							polyEdgeSet.add(currentNode.inEdges().edge());
-							break;
-						}
+			successors = startingNode.successors();
+			Set<Node> visitedPeptides = new HashSet<Node>();
+			visitedPeptides.add(startingNode);
 
-						visitedPeptides.add(currentNode);
+			while (successors != null && successors.ok()) {
+				Node currentNode = successors.node();
+				monomerInfo = (MonomerInfo) nodeMap.get(currentNode);
+				monomer = monomerInfo.getMonomer();
+				if (MonomerInfoUtils.isPeptidePolymer(currentNode)) {
 
-						positionNodeMap.setInt(currentNode, monomerCount++);
-						parentNodeMap.set(currentNode, hyperNode);
+					// cycle
+					if (visitedPeptides.contains(currentNode)) {
+						fragment.addPolyEdge(currentNode.inEdges().edge());
+						break;
+					}
 
-						monomerInfo = (MonomerInfo) nodeMap.get(currentNode);
-						code.append(".");
-						code.append(getMonomerString(monomerInfo));
+					visitedPeptides.add(currentNode);
 
-						codeWithSmiles.append(".");
-						if (monomer.isAdHocMonomer()) {
-							containsSmiles = true;
-							codeWithSmiles.append("[" + monomer.getCanSMILES()
-									+ "]");
-						} else {
-							codeWithSmiles
-									.append(getMonomerString(monomerInfo));
-						}
+					positionNodeMap.setInt(currentNode, monomerCount++);
+					assignNode(currentNode, fragment, nodeMap, parentNodeMap);
 
-						successors = currentNode.successors();
+					monomerInfo = (MonomerInfo) nodeMap.get(currentNode);
+					code.append(".");
+					code.append(getMonomerString(monomerInfo));
 
-						successors.toFirst();
+					codeWithSmiles.append(".");
+					if (monomer.isAdHocMonomer()) {
+						containsSmiles = true;
+						codeWithSmiles.append("[" + monomer.getCanSMILES()
+								+ "]");
 					} else {
-						// there is only one edge
-						edge = currentNode.edges().edge();
-						polyEdgeSet.add(edge);
-						successors.next();
+						codeWithSmiles
+								.append(getMonomerString(monomerInfo));
 					}
 
-				}
-				// SM: ad hoc monomers should be exported as inline smiles code
-				if (containsSmiles) {
-					smilesMaps.set(hyperNode, codeWithSmiles.toString());
-				}
-				hyperNodeNameMap.set(hyperNode, Monomer.PEPTIDE_POLYMER_TYPE
-						+ peptideCount);
-				hyperNodeMapPolymerType.set(hyperNode,
-						Monomer.PEPTIDE_POLYMER_TYPE);
-				hyperNodeMapPolymerName.set(hyperNode, code.toString());
-
-			} else { // chemical structure
-				chemCount++;
-				monomerCount = 0;
-				code.append(monomerInfo.getMonomerID());
-				parentNodeMap.set(startingNode, hyperNode);
-				positionNodeMap.setInt(startingNode, 1);
+					successors = currentNode.successors();
 
-				if (monomer.isAdHocMonomer()) {
-					smilesMaps.set(hyperNode, monomer.getCanSMILES());
+					successors.toFirst();
+				} else {
+					// there is only one edge
+					edge = currentNode.edges().edge();
+					fragment.addPolyEdge(edge);
+					successors.next();
 				}
 
-				// TY
-				// String c = code.toString();
-				// if (c != null && c.length() > 3 && c.startsWith("AM#"))
-				// smilesMaps.set(hyperNode, monomer.getCanSMILES());
-
-				hyperNodeNameMap.set(hyperNode, Monomer.CHEMICAL_POLYMER_TYPE
-						+ chemCount);
-				hyperNodeMapPolymerType.set(hyperNode,
-						Monomer.CHEMICAL_POLYMER_TYPE);
-				hyperNodeMapPolymerName.set(hyperNode, code.toString());
-
-				EdgeCursor edges = startingNode.edges();
-				// setUpHyperEdge(edge, graph, hyperGraph);
-				for (; edges.ok(); edges.next()) {
-					polyEdgeSet.add(edges.edge());
-				}
 			}
-			hyperNodeMapPolymerName.set(hyperNode, code.toString());
-			// SM: ad hoc monomers should be exported as inline smiles code
-			if (containsSmiles) {
-				smilesMaps.set(hyperNode, codeWithSmiles.toString());
+			polyType = Monomer.PEPTIDE_POLYMER_TYPE;
+
+		} else { // chemical structure
+			monomerCount = 0;
+			code.append(monomerInfo.getMonomerID());
+			assignNode(startingNode, fragment, nodeMap, parentNodeMap);
+			positionNodeMap.setInt(startingNode, 1);
+
+			if (monomer.isAdHocMonomer()) {
+				smiles = monomer.getCanSMILES();
 			}
 
-		}
+			// TY
+			// String c = code.toString();
+			// if (c != null && c.length() > 3 && c.startsWith("AM#"))
+			// smilesMaps.set(hyperNode, monomer.getCanSMILES());
 
-		// unhide branch edges
-		gh.unhideAll();
+			polyType = Monomer.CHEMICAL_POLYMER_TYPE;
 
-		// set up hyperEdges
-		Iterator<Edge> polyEdgeIter = polyEdgeSet.iterator();
-		while (polyEdgeIter.hasNext()) {
-			edge = polyEdgeIter.next();
-			setUpHyperEdge(edge, graph, hyperGraph);
-			updatePairMap(edge, graph, hyperGraph);
+			EdgeCursor edges = startingNode.edges();
+			// setUpHyperEdge(edge, graph, hyperGraph);
+			for (; edges.ok(); edges.next()) {
+				fragment.addPolyEdge(edges.edge());
+			}
 		}
-
-		updateNodeStartingNodeMap(graph, hyperGraph);
+		// SM: ad hoc monomers should be exported as inline smiles code
+		if (containsSmiles) {
+			smiles = codeWithSmiles.toString();
+		}
+		fragment.setResult(polyType, code.toString(), smiles);
 	}
 
 	private static NodeMap clearNodeMap(final Graph graph, Object key) {
@@ -572,21 +680,6 @@ public class Graph2NotationTranslator {
 		return nodeMap;
 	}
 
-	private static void updateNodeStartingNodeMap(Graph graph, Graph hyperGraph) {
-		NodeMap node2starting = (NodeMap) graph
-				.getDataProvider(NodeMapKeys.NODE2STARTING_NODE);
-		NodeMap parentNodeMap = (NodeMap) graph
-				.getDataProvider(NodeMapKeys.NODE2PARENT_HYPERNODE);
-		NodeMap hyper2starting = (NodeMap) hyperGraph
-				.getDataProvider(NodeMapKeys.HYPERNODE2STARTING_NODE);
-
-		for (Node n : graph.getNodeArray()) {
-			Node hyperNode = (Node) parentNodeMap.get(n);
-			Node starting = (Node) hyper2starting.get(hyperNode);
-			node2starting.set(n, starting);
-		}
-	}
-
 	private static void updatePairMap(Edge edge, Graph graph, Graph hyperGraph) {
 		NodeMap pairMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.NODE2PAIR_NODE);
@@ -799,8 +892,7 @@ public class Graph2NotationTranslator {
 		for (int i = 0; i < nodes.length; i++) {
 			Node node = nodes[i];
 			final MonomerInfo mi = (MonomerInfo) nodeMap.get(node);
-			Monomer m = GraphUtils.getMonomerDB().get(mi.getPolymerType())
-					.get(mi.getMonomerID());
+			Monomer m = mi.getMonomer();
 			if (null != m
 					&& m.getPolymerType().equals(Monomer.CHEMICAL_POLYMER_TYPE)
 					&& m.getCanSMILES() == null) {
@@ -820,8 +912,7 @@ public class Graph2NotationTranslator {
 		for (int i = 0; i < nodes.length; i++) {
 			Node node = nodes[i];
 			final MonomerInfo mi = (MonomerInfo) nodeMap.get(node);
-			m = GraphUtils.getMonomerDB().get(mi.getPolymerType())
-					.get(mi.getMonomerID());
+			m = mi.getMonomer();
 			if (m.isNewMonomer()) {
 				monomers.add(m);
 			}
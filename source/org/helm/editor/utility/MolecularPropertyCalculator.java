@@ -0,0 +1,865 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import chemaxon.marvin.plugin.PluginException;
+
+import org.jdom.JDOMException;
+
+import org.helm.editor.data.MonomerStoreCache;
+import org.helm.notation.MonomerException;
+import org.helm.notation.MonomerStore;
+import org.helm.notation.NotationException;
+import org.helm.notation.StructureException;
+import org.helm.notation.model.Attachment;
+import org.helm.notation.model.MoleculeInfo;
+import org.helm.notation.model.Monomer;
+import org.helm.notation.model.Nucleotide;
+import org.helm.notation.model.PolymerNode;
+import org.helm.notation.tools.ComplexNotationParser;
+import org.helm.notation.tools.MonomerParser;
+import org.helm.notation.tools.SimpleNotationParser;
+import org.helm.notation.tools.StructureParser;
+
+/**
+ * Calculates molecular formula, molecular weight and exact mass of a complex
+ * notation by adding up the contributions of its monomers, instead of
+ * assembling the SMILES of the whole molecule.
+ * 
+ * The elemental composition of every monomer without its leaving groups and
+ * of each of its cap groups is computed once from the monomer SMILES and
+ * kept until the version of the {@link MonomerStoreCache} changes. A
+ * molecule is then the sum of its monomers plus the cap groups of all
+ * attachments that are not used by a connection.
+ * 
+ * Notations the additive model cannot describe, like monomers without
+ * SMILES or inline SMILES that do not map to a monomer, are passed on to the
+ * SMILES based calculation.
+ */
+public class MolecularPropertyCalculator {
+
+	private static final MolecularPropertyCalculator _instance = new MolecularPropertyCalculator();
+
+	/** R group atoms of extended SMILES, [*] or [*:1] */
+	private static final Pattern R_GROUP_PATTERN = Pattern
+			.compile("\\[\\*(:\\d+)?\\]");
+
+	private static final Pattern FORMULA_PATTERN = Pattern
+			.compile("([A-Z][a-z]?)(\\d*)");
+
+	private static final String HYDROGEN = "H";
+
+	/**
+	 * elemental composition with average and monoisotopic mass
+	 */
+	static final class Composition {
+
+		private final Map<String, Integer> elements = new TreeMap<String, Integer>();
+		private double molecularWeight;
+		private double exactMass;
+
+		void add(Composition composition, int factor) {
+			for (Map.Entry<String, Integer> entry : composition.elements
+					.entrySet()) {
+				addElement(entry.getKey(), entry.getValue() * factor);
+			}
+			molecularWeight += composition.molecularWeight * factor;
+			exactMass += composition.exactMass * factor;
+		}
+
+		void addElement(String element, int count) {
+			Integer current = elements.get(element);
+			int sum = (current == null ? 0 : current) + count;
+			if (sum == 0) {
+				elements.remove(element);
+			} else {
+				elements.put(element, sum);
+			}
+		}
+
+		boolean isValid() {
+			for (Integer count : elements.values()) {
+				if (count < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return formula in Hill order
+		 */
+		String getFormula() {
+			StringBuilder sb = new StringBuilder();
+			Integer carbon = elements.get("C");
+			if (carbon != null) {
+				appendElement(sb, "C", carbon);
+				Integer hydrogen = elements.get(HYDROGEN);
+				if (hydrogen != null) {
+					appendElement(sb, HYDROGEN, hydrogen);
+				}
+			}
+			for (Map.Entry<String, Integer> entry : elements.entrySet()) {
+				String element = entry.getKey();
+				if (carbon != null
+						&& (element.equals("C") || element.equals(HYDROGEN))) {
+					continue;
+				}
+				appendElement(sb, element, entry.getValue());
+			}
+			return sb.toString();
+		}
+
+		private static void appendElement(StringBuilder sb, String element,
+				int count) {
+			sb.append(element);
+			if (count > 1) {
+				sb.append(count);
+			}
+		}
+	}
+
+	/**
+	 * a monomer without its leaving groups, together with the cap groups of
+	 * its attachments
+	 */
+	static final class MonomerComposition {
+
+		static final MonomerComposition UNSUPPORTED = new MonomerComposition(
+				null, null);
+
+		private final Composition core;
+		private final Map<String, Composition> capGroups;
+
+		MonomerComposition(Composition core, Map<String, Composition> capGroups) {
+			this.core = core;
+			this.capGroups = capGroups;
+		}
+
+		boolean isSupported() {
+			return core != null;
+		}
+
+		boolean hasAttachment(String label) {
+			return capGroups.containsKey(label.toUpperCase());
+		}
+	}
+
+	/**
+	 * a monomer of a molecule and the attachments used by its connections
+	 */
+	private static final class Unit {
+
+		private final MonomerComposition composition;
+		private final List<String> connected = new ArrayList<String>(3);
+
+		Unit(MonomerComposition composition) {
+			this.composition = composition;
+		}
+
+		/**
+		 * adds the monomer and the cap groups of its free attachments
+		 */
+		void addTo(Composition total) {
+			total.add(composition.core, 1);
+			for (Map.Entry<String, Composition> capGroup : composition.capGroups
+					.entrySet()) {
+				if (!connected.contains(capGroup.getKey())) {
+					total.add(capGroup.getValue(), 1);
+				}
+			}
+		}
+
+		Composition getCapGroup(String label) {
+			return composition.capGroups.get(label.toUpperCase());
+		}
+
+		boolean connect(String label) {
+			String key = label.toUpperCase();
+			if (!composition.hasAttachment(key) || connected.contains(key)) {
+				return false;
+			}
+			connected.add(key);
+			return true;
+		}
+	}
+
+	/**
+	 * the monomers of a nucleotide, each of them may be missing
+	 */
+	private static final class NucleotideUnits {
+
+		private Unit sugar;
+		private Unit base;
+		private Unit phosphate;
+
+		/**
+		 * @return the unit the previous nucleotide connects to
+		 */
+		Unit getFirst() {
+			return (sugar != null) ? sugar : phosphate;
+		}
+
+		void addTo(List<Unit> units) {
+			if (sugar != null) {
+				units.add(sugar);
+			}
+			if (base != null) {
+				units.add(base);
+			}
+			if (phosphate != null) {
+				units.add(phosphate);
+			}
+		}
+
+		void addTo(Composition total) {
+			if (sugar != null) {
+				sugar.addTo(total);
+			}
+			if (base != null) {
+				base.addTo(total);
+			}
+			if (phosphate != null) {
+				phosphate.addTo(total);
+			}
+		}
+	}
+
+	/**
+	 * monomer compositions derived from one version of the monomer store
+	 */
+	private static final class Cache {
+
+		private final MonomerStore store;
+		private final int version;
+		private final Composition hydrogen;
+		private final ConcurrentMap<String, MonomerComposition> monomers = new ConcurrentHashMap<String, MonomerComposition>();
+
+		Cache(MonomerStore store, int version, Composition hydrogen) {
+			this.store = store;
+			this.version = version;
+			this.hydrogen = hydrogen;
+		}
+	}
+
+	private volatile Cache cache;
+
+	private MolecularPropertyCalculator() {
+	}
+
+	public static MolecularPropertyCalculator getInstance() {
+		return _instance;
+	}
+
+	/**
+	 * molecular properties of a complex notation
+	 * 
+	 * @param notation
+	 * @param monomerStore
+	 * @return formula, molecular weight and exact mass
+	 * @throws org.helm.notation.NotationException
+	 */
+	public MoleculeInfo getMoleculeInfo(String notation,
+			MonomerStore monomerStore) throws NotationException,
+			MonomerException, StructureException, JDOMException, IOException,
+			PluginException {
+		MoleculeInfo mi = null;
+		try {
+			mi = calculate(notation, monomerStore);
+		} catch (Exception ex) {
+			Logger.getLogger(MolecularPropertyCalculator.class.getName()).log(
+					Level.FINE, "additive calculation failed for " + notation,
+					ex);
+		}
+		if (mi != null) {
+			return mi;
+		}
+
+		String smiles = ComplexNotationParser.getComplexPolymerSMILES(notation,
+				monomerStore);
+		return StructureParser.getMoleculeInfo(smiles);
+	}
+
+	/**
+	 * molecular properties of a complex notation using the combined monomer
+	 * store
+	 * 
+	 * @param notation
+	 * @return formula, molecular weight and exact mass
+	 * @throws org.helm.notation.NotationException
+	 */
+	public MoleculeInfo getMoleculeInfo(String notation)
+			throws NotationException, MonomerException, StructureException,
+			JDOMException, IOException, PluginException {
+		return getMoleculeInfo(notation, MonomerStoreCache.getInstance()
+				.getCombinedMonomerStore());
+	}
+
+	/**
+	 * Molecular weight of a single nucleotide of a linear nucleic acid,
+	 * including the cap groups of its backbone ends. The weight of a chain is
+	 * the sum of its nucleotides minus the
+	 * {@link #getLinkageWeight linkage weight} of each pair of neighbours.
+	 * 
+	 * @param nucleotide
+	 * @param first
+	 *            true if the nucleotide starts the chain
+	 * @param last
+	 *            true if the nucleotide ends the chain
+	 * @param monomerStore
+	 * @return weight or NaN if a monomer is not supported
+	 * @throws org.helm.notation.NotationException
+	 */
+	public double getNucleotideWeight(Nucleotide nucleotide, boolean first,
+			boolean last, MonomerStore monomerStore) throws NotationException,
+			MonomerException, StructureException, JDOMException, IOException,
+			PluginException {
+		Cache current = getCache(monomerStore);
+		NucleotideUnits units = getNucleotideUnits(current, nucleotide, first,
+				last);
+		if (units == null) {
+			return Double.NaN;
+		}
+		Composition total = new Composition();
+		units.addTo(total);
+		return total.molecularWeight;
+	}
+
+	/**
+	 * Weight of the two cap groups that are released when the backbone of
+	 * the left nucleotide is connected to the right one.
+	 * 
+	 * @param left
+	 * @param leftFirst
+	 *            true if the left nucleotide starts the chain
+	 * @param right
+	 * @param rightLast
+	 *            true if the right nucleotide ends the chain
+	 * @param monomerStore
+	 * @return weight, 0 if the nucleotides are not connected, or NaN if a
+	 *         monomer is not supported
+	 * @throws org.helm.notation.NotationException
+	 */
+	public double getLinkageWeight(Nucleotide left, boolean leftFirst,
+			Nucleotide right, boolean rightLast, MonomerStore monomerStore)
+			throws NotationException, MonomerException, StructureException,
+			JDOMException, IOException, PluginException {
+		Cache current = getCache(monomerStore);
+		NucleotideUnits leftUnits = getNucleotideUnits(current, left,
+				leftFirst, false);
+		NucleotideUnits rightUnits = getNucleotideUnits(current, right,
+				false, rightLast);
+		if (leftUnits == null || rightUnits == null) {
+			return Double.NaN;
+		}
+
+		Unit source = leftUnits.phosphate;
+		Unit target = rightUnits.getFirst();
+		if (source == null
+				|| target == null
+				|| !connect(source,
+						Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT, target,
+						Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT)) {
+			return 0;
+		}
+		return source.getCapGroup(
+				Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT).molecularWeight
+				+ target.getCapGroup(
+						Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT).molecularWeight;
+	}
+
+	/**
+	 * sums up the monomers of the notation, without falling back to the
+	 * SMILES of the whole notation
+	 * 
+	 * @param notation
+	 * @param monomerStore
+	 * @return properties or null if the notation cannot be handled additively
+	 */
+	public MoleculeInfo calculate(String notation, MonomerStore monomerStore)
+			throws NotationException, MonomerException, StructureException,
+			JDOMException, IOException, PluginException {
+		Cache current = getCache(monomerStore);
+
+		String resolvedNotation = NotationParser
+				.transferDynamicChemicalModifiersToMonomers(notation,
+						monomerStore);
+		List<PolymerNode> polymerNodes = ComplexNotationParser
+				.getPolymerNodeList(ComplexNotationParser
+						.getAllNodeString(resolvedNotation));
+
+		Map<String, List<Unit>> polymers = new HashMap<String, List<Unit>>();
+		for (PolymerNode polymerNode : polymerNodes) {
+			List<Unit> units;
+			String polymerId = polymerNode.getId();
+			if (polymerId.contains(Monomer.NUCLIEC_ACID_POLYMER_TYPE)) {
+				units = getNucleicAcidUnits(current, polymerNode.getLabel());
+			} else if (polymerId.contains(Monomer.PEPTIDE_POLYMER_TYPE)) {
+				units = getAminoAcidUnits(current, polymerNode.getLabel());
+			} else if (polymerId.contains(Monomer.CHEMICAL_POLYMER_TYPE)) {
+				units = getChemicalUnits(current, polymerNode.getLabel());
+			} else {
+				return null;
+			}
+			if (units == null) {
+				return null;
+			}
+			polymers.put(polymerId, units);
+		}
+
+		String[] sections = resolvedNotation.split(
+				NotationParser.TOP_LEVEL_DELIMITER_REGEX, -1);
+		if (sections.length > 1 && !connect(polymers, sections[1])) {
+			return null;
+		}
+
+		Composition total = new Composition();
+		for (List<Unit> units : polymers.values()) {
+			for (Unit unit : units) {
+				unit.addTo(total);
+			}
+		}
+		if (!total.isValid()) {
+			return null;
+		}
+
+		MoleculeInfo mi = new MoleculeInfo();
+		mi.setMolecularFormula(total.getFormula());
+		mi.setMolecularWeight(total.molecularWeight);
+		mi.setExactMass(total.exactMass);
+		return mi;
+	}
+
+	/**
+	 * same monomer order and backbone connections as
+	 * NotationParser.loadAminoAcidGraph
+	 */
+	private List<Unit> getAminoAcidUnits(Cache current, String label) {
+		String[] ids = label.split(NotationParser.UNIT_SEPERATION_SYMBOL);
+		List<Unit> units = new ArrayList<Unit>(ids.length);
+		Unit previous = null;
+		for (String id : ids) {
+			Unit unit = createUnit(current, Monomer.PEPTIDE_POLYMER_TYPE,
+					removeBrackets(id));
+			if (unit == null) {
+				return null;
+			}
+			units.add(unit);
+			if (previous != null) {
+				connect(previous,
+						Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT, unit,
+						Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT);
+			}
+			previous = unit;
+		}
+		return units;
+	}
+
+	/**
+	 * same monomer order and backbone connections as
+	 * NotationParser.loadNucleicAcidMonomerSequence
+	 */
+	private List<Unit> getNucleicAcidUnits(Cache current, String label)
+			throws NotationException, MonomerException, StructureException,
+			JDOMException, IOException {
+		List<Nucleotide> nucList = SimpleNotationParser.getNucleotideList(
+				label, current.store);
+		List<Unit> units = new ArrayList<Unit>(nucList.size() * 3);
+
+		Unit previous = null;
+		for (int i = 0; i < nucList.size(); i++) {
+			NucleotideUnits nucleotideUnits = getNucleotideUnits(current,
+					nucList.get(i), i == 0, i == nucList.size() - 1);
+			if (nucleotideUnits == null) {
+				return null;
+			}
+			nucleotideUnits.addTo(units);
+
+			Unit target = nucleotideUnits.getFirst();
+			if (previous != null && target != null) {
+				connect(previous,
+						Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT, target,
+						Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT);
+			}
+			previous = nucleotideUnits.phosphate;
+		}
+		return units;
+	}
+
+	/**
+	 * the monomers of a single nucleotide with the sugar-base and
+	 * sugar-phosphate connections made
+	 * 
+	 * @param first
+	 *            true for the first nucleotide of the polymer
+	 * @param last
+	 *            true for the last nucleotide of the polymer
+	 * @return units or null if a monomer is not supported
+	 */
+	private NucleotideUnits getNucleotideUnits(Cache current,
+			Nucleotide nuc, boolean first, boolean last)
+			throws NotationException, MonomerException, StructureException,
+			JDOMException, IOException {
+		Monomer sugarMonomer = nuc.getSugarMonomer(current.store);
+		Monomer phosphateMonomer = nuc.getPhosphateMonomer(current.store);
+		Monomer baseMonomer = nuc.getBaseMonomer(current.store);
+
+		NucleotideUnits units = new NucleotideUnits();
+
+		// the toolkit returns the single monomer of a nucleotide as sugar and
+		// phosphate
+		if (null != sugarMonomer
+				&& null != phosphateMonomer
+				&& sugarMonomer.getAlternateId().equals(
+						phosphateMonomer.getAlternateId())) {
+			if (first) {
+				units.phosphate = createUnit(current, phosphateMonomer);
+				if (units.phosphate == null) {
+					return null;
+				}
+			} else if (last) {
+				units.sugar = createUnit(current, sugarMonomer);
+				if (units.sugar == null) {
+					return null;
+				}
+			}
+		} else {
+			if (sugarMonomer != null) {
+				units.sugar = createUnit(current, sugarMonomer);
+				if (units.sugar == null) {
+					return null;
+				}
+			}
+			if (baseMonomer != null) {
+				units.base = createUnit(current, baseMonomer);
+				if (units.base == null) {
+					return null;
+				}
+			}
+			if (phosphateMonomer != null) {
+				units.phosphate = createUnit(current, phosphateMonomer);
+				if (units.phosphate == null) {
+					return null;
+				}
+			}
+		}
+
+		if (units.sugar != null && units.base != null) {
+			connect(units.sugar, Attachment.BACKBONE_MONOMER_BRANCH_ATTACHEMENT,
+					units.base, Attachment.BRANCH_MONOMER_ATTACHEMENT);
+		}
+		if (units.sugar != null && units.phosphate != null) {
+			connect(units.sugar, Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT,
+					units.phosphate,
+					Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT);
+		}
+		return units;
+	}
+
+	private List<Unit> getChemicalUnits(Cache current, String label) {
+		Unit unit = createUnit(current, Monomer.CHEMICAL_POLYMER_TYPE,
+				removeBrackets(label));
+		if (unit == null) {
+			return null;
+		}
+		List<Unit> units = new ArrayList<Unit>(1);
+		units.add(unit);
+		return units;
+	}
+
+	/**
+	 * applies the connection section of a notation, positions are numbered
+	 * like the MONOMER_POSITION map of the graph
+	 * 
+	 * @return false if a connection does not fit the additive model
+	 */
+	private boolean connect(Map<String, List<Unit>> polymers,
+			String connectionNotation) {
+		if (connectionNotation.length() == 0) {
+			return true;
+		}
+		for (String connection : connectionNotation
+				.split(NotationParser.LIST_LEVEL_DELIMITER_REGEX)) {
+			String[] edgeDesc = connection
+					.split(NotationParser.EDGE_COMPONENT_DELIMITER_REGEX);
+			if (edgeDesc.length < 3) {
+				return false;
+			}
+			String[] connectionDesc = edgeDesc[2]
+					.split(NotationParser.EDGE_PROPERTY_SEPARATOR_SYMBOL);
+			if (connectionDesc.length != 2) {
+				return false;
+			}
+			Unit source = getUnit(polymers.get(edgeDesc[0]),
+					connectionDesc[0]);
+			Unit target = getUnit(polymers.get(edgeDesc[1]),
+					connectionDesc[1]);
+			if (source == null || target == null) {
+				return false;
+			}
+			if (!connect(source, getAttachmentLabel(connectionDesc[0]),
+					target, getAttachmentLabel(connectionDesc[1]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean connect(Unit source, String sourceLabel,
+			Unit target, String targetLabel) {
+		if (source == target && sourceLabel.equalsIgnoreCase(targetLabel)) {
+			return false;
+		}
+		if (!source.connect(sourceLabel)) {
+			return false;
+		}
+		if (!target.connect(targetLabel)) {
+			source.connected.remove(sourceLabel.toUpperCase());
+			return false;
+		}
+		return true;
+	}
+
+	private static Unit getUnit(List<Unit> units, String attachmentDesc) {
+		int separator = attachmentDesc
+				.indexOf(NotationParser.MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL);
+		if (units == null || separator < 0) {
+			return null;
+		}
+		int position;
+		try {
+			position = Integer.parseInt(attachmentDesc.substring(0, separator));
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+		if (position < 1 || position > units.size()) {
+			return null;
+		}
+		return units.get(position - 1);
+	}
+
+	private static String getAttachmentLabel(String attachmentDesc) {
+		return attachmentDesc.substring(attachmentDesc
+				.indexOf(NotationParser.MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL) + 1);
+	}
+
+	private static String removeBrackets(String id) {
+		if (id.startsWith(NotationParser.MONOMER_MODIFICATION_START_SYMBOL)
+				&& id.endsWith(NotationParser.MONOMER_MODIFICATION_END_SYMBOL)) {
+			return id.substring(1, id.length() - 1);
+		}
+		return id;
+	}
+
+	private Unit createUnit(Cache current, Monomer monomer) {
+		return createUnit(current, monomer.getPolymerType(),
+				monomer.getAlternateId());
+	}
+
+	private Unit createUnit(Cache current, String polymerType,
+			String alternateId) {
+		MonomerComposition composition = getMonomerComposition(current,
+				polymerType, alternateId);
+		return composition.isSupported() ? new Unit(composition) : null;
+	}
+
+	private Cache getCache(MonomerStore monomerStore)
+			throws StructureException, IOException, PluginException {
+		int version = MonomerStoreCache.getInstance().getVersion();
+		Cache current = cache;
+		if (current == null || current.store != monomerStore
+				|| current.version != version) {
+			Composition hydrogen = getComposition("[H][H]");
+			if (hydrogen == null) {
+				throw new StructureException(
+						"Unable to determine the composition of hydrogen");
+			}
+			Composition atom = new Composition();
+			atom.addElement(HYDROGEN, 1);
+			atom.molecularWeight = hydrogen.molecularWeight / 2;
+			atom.exactMass = hydrogen.exactMass / 2;
+
+			current = new Cache(monomerStore, version, atom);
+			cache = current;
+		}
+		return current;
+	}
+
+	private MonomerComposition getMonomerComposition(Cache current,
+			String polymerType, String alternateId) {
+		String key = polymerType + "|" + alternateId;
+		MonomerComposition composition = current.monomers.get(key);
+		if (composition == null) {
+			composition = createMonomerComposition(current, polymerType,
+					alternateId);
+			MonomerComposition existing = current.monomers.putIfAbsent(key,
+					composition);
+			if (existing != null) {
+				composition = existing;
+			}
+		}
+		return composition;
+	}
+
+	/**
+	 * The monomer SMILES with every R group replaced by hydrogen gives the
+	 * core plus one hydrogen per attachment, the cap group SMILES with its R
+	 * group replaced by hydrogen gives the cap group plus one hydrogen.
+	 */
+	private MonomerComposition createMonomerComposition(Cache current,
+			String polymerType, String alternateId) {
+		Monomer monomer = current.store.getMonomer(polymerType, alternateId);
+		if (monomer == null || monomer.getCanSMILES() == null) {
+			return MonomerComposition.UNSUPPORTED;
+		}
+
+		try {
+			String smiles = stripExtension(monomer.getCanSMILES());
+			List<Attachment> attachments = monomer.getAttachmentList();
+			if (countRGroups(smiles) != attachments.size()) {
+				return MonomerComposition.UNSUPPORTED;
+			}
+
+			Composition core = getComposition(replaceRGroups(smiles));
+			if (core == null) {
+				return MonomerComposition.UNSUPPORTED;
+			}
+			core.add(current.hydrogen, -attachments.size());
+
+			Map<String, Composition> capGroups = new HashMap<String, Composition>();
+			for (Attachment att : attachments) {
+				if (att.getCapGroupSMILES() == null) {
+					MonomerParser.fillAttachmentInfo(att);
+				}
+				String capSmiles = att.getCapGroupSMILES();
+				if (capSmiles == null) {
+					return MonomerComposition.UNSUPPORTED;
+				}
+				Composition capGroup = getComposition(replaceRGroups(stripExtension(capSmiles)));
+				if (capGroup == null) {
+					return MonomerComposition.UNSUPPORTED;
+				}
+				capGroup.add(current.hydrogen, -1);
+				capGroups.put(att.getLabel().toUpperCase(), capGroup);
+			}
+			return new MonomerComposition(core, capGroups);
+		} catch (Exception ex) {
+			Logger.getLogger(MolecularPropertyCalculator.class.getName()).log(
+					Level.FINE,
+					"no composition for " + polymerType + " " + alternateId,
+					ex);
+			return MonomerComposition.UNSUPPORTED;
+		}
+	}
+
+	/**
+	 * @param smiles
+	 * @return composition or null if the formula contains charges or other
+	 *         symbols that are not simple element counts
+	 */
+	private static Composition getComposition(String smiles)
+			throws StructureException, IOException, PluginException {
+		return getComposition(StructureParser.getMoleculeInfo(smiles));
+	}
+
+	private static Composition getComposition(MoleculeInfo mi) {
+		String formula = mi.getMolecularFormula();
+		if (formula == null) {
+			return null;
+		}
+
+		Composition composition = new Composition();
+		Matcher matcher = FORMULA_PATTERN.matcher(formula);
+		int end = 0;
+		while (matcher.find()) {
+			if (matcher.start() != end) {
+				return null;
+			}
+			String count = matcher.group(2);
+			composition.addElement(matcher.group(1),
+					count.length() == 0 ? 1 : Integer.parseInt(count));
+			end = matcher.end();
+		}
+		if (end != formula.length()) {
+			return null;
+		}
+		composition.molecularWeight = mi.getMolecularWeight();
+		composition.exactMass = mi.getExactMass();
+		return composition;
+	}
+
+	/**
+	 * properties of a molecule made of unconnected parts, like the
+	 * components of a complex notation
+	 * 
+	 * @param parts
+	 * @return the summed properties or null if a formula cannot be added up
+	 */
+	public static MoleculeInfo sum(List<MoleculeInfo> parts) {
+		Composition total = new Composition();
+		for (MoleculeInfo part : parts) {
+			Composition composition = getComposition(part);
+			if (composition == null) {
+				return null;
+			}
+			total.add(composition, 1);
+		}
+
+		MoleculeInfo mi = new MoleculeInfo();
+		mi.setMolecularFormula(total.getFormula());
+		mi.setMolecularWeight(total.molecularWeight);
+		mi.setExactMass(total.exactMass);
+		return mi;
+	}
+
+	private static String stripExtension(String smiles) {
+		int extension = smiles.indexOf('|');
+		return (extension < 0) ? smiles.trim() : smiles.substring(0,
+				extension).trim();
+	}
+
+	private static String replaceRGroups(String smiles) {
+		return R_GROUP_PATTERN.matcher(smiles).replaceAll("[H]");
+	}
+
+	private static int countRGroups(String smiles) {
+		Matcher matcher = R_GROUP_PATTERN.matcher(smiles);
+		int count = 0;
+		while (matcher.find()) {
+			count++;
+		}
+		return count;
+	}
+}
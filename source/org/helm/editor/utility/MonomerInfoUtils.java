@@ -21,7 +21,6 @@
  ******************************************************************************/
 package org.helm.editor.utility;
 
-import java.util.Map;
 
 import y.base.DataProvider;
 import y.base.Edge;
@@ -43,7 +42,6 @@ import org.helm.editor.data.DataException;
 import org.helm.editor.data.EdgeInfo;
 import org.helm.editor.data.EdgeMapKeys;
 import org.helm.editor.data.EditorEdgeInfoData;
-import org.helm.editor.data.MonomerStoreCache;
 import org.helm.editor.data.GraphManager;
 import org.helm.editor.data.MonomerInfo;
 import org.helm.editor.data.NodeMapKeys;
@@ -188,14 +186,6 @@ public class MonomerInfoUtils {
 	}
 
 	public static Monomer getMonomer(Node node, Object key) {
-		Map<String, Map<String, Monomer>> monomerDB = null;
-		try {
-			monomerDB = MonomerStoreCache.getInstance()
-					.getCombinedMonomerStore().getMonomerDB();
-			// monomerDB = MonomerFactory.getInstance().getMonomerDB();
-		} catch (Exception e) {
-			throw new DataException(e);
-		}
 		Object monomerInfo = getMonomerInfo(node, key);
 		if (monomerInfo == null) {
 			return null;
@@ -208,9 +198,7 @@ public class MonomerInfoUtils {
 			return result;
 		}
 
-		MonomerInfo monomerInfoFinal = (MonomerInfo) monomerInfo;
-		return monomerDB.get(monomerInfoFinal.getPolymerType()).get(
-				monomerInfoFinal.getMonomerID());
+		return ((MonomerInfo) monomerInfo).getMonomer();
 	}
 
 	public static boolean isBranchMonomer(Node node) {
@@ -39,6 +39,7 @@ import org.helm.editor.data.GraphPair;
 import org.helm.editor.data.MonomerInfo;
 import org.helm.editor.data.MonomerStoreCache;
 import org.helm.editor.data.NodeMapKeys;
+import org.helm.editor.data.ParsedNotation;
 import org.helm.editor.monomerui.SimpleElemetFactory;
 import org.helm.notation.MonomerException;
 import org.helm.notation.MonomerFactory;
@@ -61,9 +62,8 @@ import y.base.Edge;
 import y.base.EdgeList;
 import y.base.EdgeMap;
 import y.base.Node;
-import y.base.NodeCursor;
+import y.base.NodeList;
 import y.base.NodeMap;
-import y.util.GraphCopier;
 import y.view.Graph2D;
 import y.view.NodeLabel;
 import y.view.NodeRealizer;
@@ -97,16 +97,12 @@ public class NotationParser {
 	 *            if this describes the pairing edges
 	 * @param graph
 	 *            the original graph, this is also the graph we render
-	 * @param hyperGraph
-	 *            a hyper graph
-	 * @param hyperNodeNameMap
-	 *            Map <name, hyperNode>
-	 * @param nodeCursorMap
-	 *            Map <sequence name, sequence graph>
+	 * @param positionIndexMap
+	 *            Map <sequence name, sequence nodes indexed by position - 1>
 	 * @throws org.helm.notation.NotationException
 	 */
 	private static void getConnection(String connectionNotation,
-			boolean isPair, Graph2D graph, Map<String, NodeCursor> nodeCursorMap)
+			boolean isPair, Graph2D graph, Map<String, Node[]> positionIndexMap)
 			throws NotationException {
 		if (connectionNotation == null
 				|| connectionNotation.equalsIgnoreCase("")) {
@@ -124,8 +120,6 @@ public class NotationParser {
 		String[] edgeString = connectionNotation
 				.split(LIST_LEVEL_DELIMITER_REGEX);
 
-		NodeMap monomerPositionNodeMap = (NodeMap) graph
-				.getDataProvider(NodeMapKeys.MONOMER_POSITION);
 		NodeMap monomerInfoNodeMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
 		EdgeMap connectionEdgeMap = (EdgeMap) graph
@@ -148,37 +142,28 @@ public class NotationParser {
 					connectionDesc[0]
 							.indexOf(MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL)));
 
-			NodeCursor nodeCursor = nodeCursorMap.get(edgeDesc[0]);
-			nodeCursor.toFirst();
-			for (; nodeCursor.ok(); nodeCursor.next()) {
-				if (monomerPositionNodeMap.getInt(nodeCursor.node()) == position) {
-					sourceNode = nodeCursor.node();
-					sourceMonomerInfo = (MonomerInfo) monomerInfoNodeMap
-							.get(sourceNode);
-
-					sourceAttachment = sourceMonomerInfo
-							.getAttachment(connectionDesc[0].substring(connectionDesc[0]
-									.indexOf(MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL) + 1));
-					break;
-				}
+			sourceNode = getNodeAtPosition(
+					positionIndexMap.get(edgeDesc[0]), position);
+			if (sourceNode != null) {
+				sourceMonomerInfo = (MonomerInfo) monomerInfoNodeMap
+						.get(sourceNode);
+
+				sourceAttachment = sourceMonomerInfo
+						.getAttachment(connectionDesc[0].substring(connectionDesc[0]
+								.indexOf(MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL) + 1));
 			}
 
 			position = Integer.valueOf(connectionDesc[1].substring(0,
 					connectionDesc[1]
 							.indexOf(MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL)));
-			nodeCursor = nodeCursorMap.get(edgeDesc[1]);
-			nodeCursor.toFirst();
-
-			for (; nodeCursor.ok(); nodeCursor.next()) {
-				if (monomerPositionNodeMap.getInt(nodeCursor.node()) == position) {
-					targetNode = nodeCursor.node();
-					targetMonomerInfo = (MonomerInfo) monomerInfoNodeMap
-							.get(targetNode);
-					targetAttachment = targetMonomerInfo
-							.getAttachment(connectionDesc[1].substring(connectionDesc[1]
-									.indexOf(MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL) + 1));
-					break;
-				}
+			targetNode = getNodeAtPosition(
+					positionIndexMap.get(edgeDesc[1]), position);
+			if (targetNode != null) {
+				targetMonomerInfo = (MonomerInfo) monomerInfoNodeMap
+						.get(targetNode);
+				targetAttachment = targetMonomerInfo
+						.getAttachment(connectionDesc[1].substring(connectionDesc[1]
+								.indexOf(MONOMER_ATTACHEMENT_SEPARATOR_SYMBOL) + 1));
 			}
 
 			if (sourceAttachment != null
@@ -258,6 +243,23 @@ public class NotationParser {
 		}
 	}
 
+	/**
+	 * looks up a monomer node of a polymer by its position
+	 * 
+	 * @param positionIndex
+	 *            polymer nodes, the node at index i has position i + 1
+	 * @param position
+	 *            monomer position, starting with 1
+	 * @return node or null if the polymer or position does not exist
+	 */
+	private static Node getNodeAtPosition(Node[] positionIndex, int position) {
+		if (positionIndex == null || position < 1
+				|| position > positionIndex.length) {
+			return null;
+		}
+		return positionIndex[position - 1];
+	}
+
 	public static String transferDynamicChemicalModifiersToMonomers(
 			String notation) throws NotationException, MonomerException,
 			JDOMException, IOException {
@@ -298,42 +300,99 @@ public class NotationParser {
 	}
 
 	/**
-	 * translate string notation to an (Graph2D, GraphManager) pair
+	 * Validates a complex notation and parses it into the model used for the
+	 * graph construction. The result can be passed to
+	 * {@link #getGraphPair(ParsedNotation)} without parsing the notation again.
 	 * 
 	 * @param notation
-	 * @return a (graph, graphmanager) pair
+	 * @param monomerStore
+	 * @return parsed notation
 	 * @throws org.helm.notation.NotationException
 	 */
-	public static GraphPair getGraphPair(String notation,
+	public static ParsedNotation parseNotation(String notation,
 			MonomerStore monomerStore) throws NotationException,
 			MonomerException, IOException, JDOMException, StructureException {
 
-		// validate notation input
-		ComplexPolymer cp = ComplexNotationParser.parse(notation, monomerStore);
-
 		// TY
-		notation = transferDynamicChemicalModifiersToMonomers(notation,
+		String resolvedNotation = transferDynamicChemicalModifiersToMonomers(
+				notation, monomerStore);
+
+		// validate notation input, parse validates while it tokenizes
+		ComplexPolymer cp = ComplexNotationParser.parse(resolvedNotation,
 				monomerStore);
 
+		List<PolymerNode> polymerNodes = cp.getPolymerNodeList();
+		if (polymerNodes == null) {
+			polymerNodes = new ArrayList<PolymerNode>();
+		}
+		Map<String, String> annotationMap = cp.getPolymerNodeAnnotationMap();
+		if (annotationMap != null && !annotationMap.isEmpty()) {
+			for (PolymerNode node : polymerNodes) {
+				node.setAnotation(annotationMap.get(node.getId()));
+			}
+		}
+
 		ArrayList<String> notationComponentsList = new ArrayList<String>();
-		int count = 0;
 		int start = 0;
-		int end = notation.indexOf("$");
+		int end = resolvedNotation.indexOf("$");
 
 		// populate the list
 		while (end != -1) {
 			if (start == end) {
 				notationComponentsList.add("");
 			} else {
-				notationComponentsList.add(notation.substring(start, end));
+				notationComponentsList.add(resolvedNotation.substring(start,
+						end));
 			}
 			start = end + 1;
-			end = notation.indexOf("$", start);
+			end = resolvedNotation.indexOf("$", start);
 		}
 
-		// if the list is empty, just return a graph pair with a empty graph and
-		// a graph manager
-		// Map<String, Node> hyperNodeNameMap = new HashMap<String, Node>();
+		return new ParsedNotation(notation, resolvedNotation, monomerStore,
+				cp, polymerNodes, notationComponentsList.get(1),
+				notationComponentsList.get(2));
+	}
+
+	/**
+	 * translate string notation to an (Graph2D, GraphManager) pair
+	 * 
+	 * @param notation
+	 * @return a (graph, graphmanager) pair
+	 * @throws org.helm.notation.NotationException
+	 */
+	public static GraphPair getGraphPair(String notation,
+			MonomerStore monomerStore) throws NotationException,
+			MonomerException, IOException, JDOMException, StructureException {
+		return getGraphPair(parseNotation(notation, monomerStore));
+	}
+
+	/**
+	 * translate a parsed notation to an (Graph2D, GraphManager) pair
+	 * 
+	 * @param parsedNotation
+	 * @return a (graph, graphmanager) pair
+	 * @throws org.helm.notation.NotationException
+	 */
+	public static GraphPair getGraphPair(ParsedNotation parsedNotation)
+			throws NotationException, MonomerException, IOException,
+			JDOMException, StructureException {
+		return getGraphPair(parsedNotation, CancellationToken.NONE);
+	}
+
+	/**
+	 * translate a parsed notation to an (Graph2D, GraphManager) pair, checking
+	 * for cancellation after every polymer
+	 * 
+	 * @param parsedNotation
+	 * @param cancellationToken
+	 * @return a (graph, graphmanager) pair
+	 * @throws java.util.concurrent.CancellationException
+	 *             if the token got cancelled
+	 * @throws org.helm.notation.NotationException
+	 */
+	public static GraphPair getGraphPair(ParsedNotation parsedNotation,
+			CancellationToken cancellationToken) throws NotationException,
+			MonomerException, IOException, JDOMException, StructureException {
 
 		Graph2D graph = new Graph2D();
 		GraphManager graphManager = new GraphManager();
@@ -351,76 +410,60 @@ public class NotationParser {
 		graph.addDataProvider(NodeMapKeys.NODE2STARTING_NODE,
 				graph.createNodeMap());
 
-		// set up the copier
-		GraphCopier copier = new GraphCopier(graph.getGraphCopyFactory());
-
-		copier.setDataProviderContentCopying(true);
-		copier.setEdgeMapCopying(true);
-		copier.setNodeMapCopying(true);
-
-		// all polymers in this notation, <polymerName(RNA1), polymer Graph>
-		// String allNodeString =
-		// ComplexNotationParser.getAllNodeString(notation);
-		List<PolymerNode> polymerNodes = getPolymerList(notation, monomerStore);
-
-		// all nodes belongs to a certain sequence <sequnce name, sequence
-		// graph>
-		Map<String, NodeCursor> nodeCursorMap = new HashMap<String, NodeCursor>();
-		NodeCursor nodeCursor = null;
+		// all polymers in this notation
+		List<PolymerNode> polymerNodes = parsedNotation.getPolymerNodeList();
 
-		// Node hyperNode = null;
+		// all nodes belongs to a certain sequence, indexed by monomer
+		// position <sequnce name, sequence nodes>
+		Map<String, Node[]> positionIndexMap = new HashMap<String, Node[]>();
+		NodeList polymerNodeList = null;
 
-		String polymers = notation.substring(0, notation.indexOf("$"));
-
-		int startIndex = -1;
-
-		Graph2D subgraph = null;
 		String polyID = null;
 		String polyLable = null;
 		String annotation = null;
 		for (PolymerNode polyNode : polymerNodes) {
-			// add a sequence to the graph
+			cancellationToken.checkCancelled();
+
+			// add a sequence to the graph, the monomer nodes are created in
+			// the graph directly
 			polyID = polyNode.getId();
 			polyLable = polyNode.getLabel();
 			annotation = polyNode.getAnotation();
 			if (polyID.contains(Monomer.NUCLIEC_ACID_POLYMER_TYPE)) {
-				subgraph = loadNucleicAcidMonomerSequence(polyLable);
+				polymerNodeList = loadNucleicAcidMonomerSequence(graph,
+						polyLable, true);
 			} else if (polyID.contains(Monomer.PEPTIDE_POLYMER_TYPE)) {
-				subgraph = loadAminoAcidGraph(polyLable);
+				polymerNodeList = loadAminoAcidGraph(graph, polyLable);
 			} else if (polyID.contains(Monomer.CHEMICAL_POLYMER_TYPE)) {
-				subgraph = loadChemicalStructGraph(polyLable);
-
+				polymerNodeList = loadChemicalStructGraph(graph, polyLable);
 			}
-			nodeCursor = copier.copy(subgraph, graph).nodes();
-			nodeCursor.toFirst();
-
-			nodeCursorMap.put(polyID, nodeCursor);
 
-			// hyperNodeNameMap.put(polyID, hyperNode);
+			// the loaders number the monomers in creation order
+			positionIndexMap.put(polyID, polymerNodeList.toNodeArray());
 
-			// extract the polymer notation
-			startIndex = polymers.indexOf(polyID) + 1;
-			startIndex = polymers.indexOf(NODE_LABEL_START_SYMBOL, startIndex) + 1;
-			graphManager.addStartingNode(nodeCursor.node());
+			graphManager.addStartingNode(polymerNodeList.firstNode());
 
 			if (annotation != null && !annotation.equalsIgnoreCase("")) {
-				graphManager.annotate(nodeCursor.node(), annotation);
+				graphManager.annotate(polymerNodeList.firstNode(), annotation);
 			}
 
-			subgraph = null;
+			polymerNodeList = null;
 			polyID = null;
 			polyLable = null;
 			annotation = null;
 		}
 
+		cancellationToken.checkCancelled();
+
 		// ---------- set up the regular polymer connections
 		// ----------------------
-		getConnection(notationComponentsList.get(1), false, graph,
-				nodeCursorMap);
+		getConnection(parsedNotation.getConnectionNotation(), false, graph,
+				positionIndexMap);
 
 		// ---------- set up the pairing polymer connections
 		// ----------------------
-		getConnection(notationComponentsList.get(2), true, graph, nodeCursorMap);
+		getConnection(parsedNotation.getPairNotation(), true, graph,
+				positionIndexMap);
 
 		return new GraphPair(graph, graphManager);
 	}
@@ -444,9 +487,25 @@ public class NotationParser {
 		return monomerName;
 	}
 
+	/**
+	 * creates an empty graph with the node and edge maps of a sequence graph
+	 *
+	 * @return graph
+	 */
+	private static Graph2D createSequenceGraph() {
+		Graph2D sequenceGraph = new Graph2D();
+		sequenceGraph.addDataProvider(NodeMapKeys.MONOMER_REF,
+				sequenceGraph.createNodeMap());
+		sequenceGraph.addDataProvider(NodeMapKeys.MONOMER_POSITION,
+				sequenceGraph.createNodeMap());
+		sequenceGraph.addDataProvider(EdgeMapKeys.EDGE_INFO,
+				sequenceGraph.createEdgeMap());
+		return sequenceGraph;
+	}
+
 	/**
 	 * Transfer a polymer notation nucleic acid sequence into a graph
-	 * 
+	 *
 	 * @param polymerNotation
 	 *            - simplePolymerNotation of format
 	 *            R(A)P.R(G)P.[mR](A)P.R([mA]).P
@@ -458,34 +517,54 @@ public class NotationParser {
 			String polymerNotation, boolean withStarting)
 			throws MonomerException, IOException, JDOMException,
 			NotationException, StructureException {
+		Graph2D sequenceGraph = createSequenceGraph();
+		loadNucleicAcidMonomerSequence(sequenceGraph, polymerNotation,
+				withStarting);
+		return sequenceGraph;
+	}
+
+	/**
+	 * Adds the monomer nodes and edges of a nucleic acid polymer notation to
+	 * the given graph
+	 *
+	 * @param sequenceGraph
+	 *            target graph providing MONOMER_REF, MONOMER_POSITION and
+	 *            EDGE_INFO maps
+	 * @param polymerNotation
+	 *            - simplePolymerNotation of format
+	 *            R(A)P.R(G)P.[mR](A)P.R([mA]).P
+	 * @param withStarting
+	 *            - if we should have a 5' node
+	 * @return the created nodes in position order
+	 */
+	private static NodeList loadNucleicAcidMonomerSequence(
+			Graph2D sequenceGraph, String polymerNotation, boolean withStarting)
+			throws MonomerException, IOException, JDOMException,
+			NotationException, StructureException {
 
 		MonomerStore monomerStore = MonomerStoreCache.getInstance()
 				.getCombinedMonomerStore();
-		Graph2D sequenceGraph = new Graph2D();
-
-		NodeMap monomerInfoNodeMap = sequenceGraph.createNodeMap();
-		NodeMap monomerPositionNodeMap = sequenceGraph.createNodeMap();
-		EdgeMap connectionEdgeMap = sequenceGraph.createEdgeMap();
-
-		sequenceGraph.addDataProvider(NodeMapKeys.MONOMER_REF,
-				monomerInfoNodeMap);
-		sequenceGraph.addDataProvider(NodeMapKeys.MONOMER_POSITION,
-				monomerPositionNodeMap);
-		sequenceGraph.addDataProvider(EdgeMapKeys.EDGE_INFO, connectionEdgeMap);
+		SimpleElemetFactory factory = SimpleElemetFactory.getInstance();
 
-		GraphCopier copier = SequenceGraphTools.getGraphCopier(sequenceGraph);
+		NodeMap monomerInfoNodeMap = (NodeMap) sequenceGraph
+				.getDataProvider(NodeMapKeys.MONOMER_REF);
+		NodeMap monomerPositionNodeMap = (NodeMap) sequenceGraph
+				.getDataProvider(NodeMapKeys.MONOMER_POSITION);
+		EdgeMap connectionEdgeMap = (EdgeMap) sequenceGraph
+				.getDataProvider(EdgeMapKeys.EDGE_INFO);
 
 		List<Nucleotide> nucList = SimpleNotationParser.getNucleotideList(
 				polymerNotation, monomerStore);
 
+		NodeList sequenceNodes = new NodeList();
 		Node pNode = null;
 		Node baseNode = null;
 		Node rNode = null;
 		Node preNode = null;
 		Node targetNode = null;
-		String rName = null;
-		String pName = null;
-		String baseName = null;
+		Monomer sugarMonomer = null;
+		Monomer phosphateMonomer = null;
+		Monomer baseMonomer = null;
 		MonomerInfo sourceMonomerInfo = null;
 		MonomerInfo targetMonomerInfo = null;
 
@@ -502,120 +581,69 @@ public class NotationParser {
 								// null;
 		for (int i = 0; i < nucList.size(); i++) {
 			Nucleotide nuc = nucList.get(i);
+			sugarMonomer = nuc.getSugarMonomer(monomerStore);
+			phosphateMonomer = nuc.getPhosphateMonomer(monomerStore);
+			baseMonomer = nuc.getBaseMonomer(monomerStore);
 
 			// nucleotide contains one monomer, suager and phosphate are the
 			// same
 			// This is a bug that in the Nucleotide class in the toolkit, it
 			// returns both sugar monomer and phosphate monomer, if there is
 			// only one monomer
-			if (null != nuc.getSugarMonomer(monomerStore)
-					&& null != nuc.getPhosphateMonomer(monomerStore)
-					&& nuc.getSugarMonomer(monomerStore)
-							.getAlternateId()
-							.equals(nuc.getPhosphateMonomer(monomerStore)
-									.getAlternateId())) {
+			if (null != sugarMonomer
+					&& null != phosphateMonomer
+					&& sugarMonomer.getAlternateId().equals(
+							phosphateMonomer.getAlternateId())) {
 				// first nucleotide is P
 				// las nucleotide is R
 				if (i == 0) {
-					pName = nuc.getPhosphateMonomer(monomerStore)
-							.getAlternateId();
-					pNode = copier.copy(
-							SimpleElemetFactory.getInstance()
-									.createMonomerNode(
-											Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-											pName), sequenceGraph).firstNode();
-					// pNode =
-					// copier.copy(NodeFactory.createNucleicAcidBackboneNode(pName,
-					// Monomer.ID_P), sequenceGraph).firstNode();
+					pNode = factory.createMonomerNode(sequenceGraph,
+							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
+							phosphateMonomer.getAlternateId());
 				} else if (i == nucList.size() - 1) {
-					rName = nuc.getSugarMonomer(monomerStore).getAlternateId();
-					rNode = copier.copy(
-							SimpleElemetFactory.getInstance()
-									.createMonomerNode(
-											Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-											rName), sequenceGraph).firstNode();
-					// rNode =
-					// copier.copy(NodeFactory.createNucleicAcidBackboneNode(rName,
-					// Monomer.ID_R), sequenceGraph).firstNode();
+					rNode = factory.createMonomerNode(sequenceGraph,
+							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
+							sugarMonomer.getAlternateId());
 				}
 			} else {
 
 				// parse each unit to get the name for p, r and base
 
-				if (nuc.getSugarMonomer(monomerStore) != null) {
-					rName = nuc.getSugarMonomer(monomerStore).getAlternateId();
-					rNode = copier.copy(
-							SimpleElemetFactory.getInstance()
-									.createMonomerNode(
-											Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-											rName), sequenceGraph).firstNode();
-					// rNode =
-					// copier.copy(NodeFactory.createNucleicAcidBackboneNode(rName,
-					// Monomer.ID_R), sequenceGraph).firstNode();
+				if (sugarMonomer != null) {
+					rNode = factory.createMonomerNode(sequenceGraph,
+							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
+							sugarMonomer.getAlternateId());
 					if (null == firstRNode) {
 						firstRNode = rNode;
 					}
-
-					// dzhelezov: fix for sP starting node, notation toolkit
-					// identifies it as sugar monomer
-					// if (rName.contains("P")) {
-					// pName = rName;
-					// pNode =
-					// copier.copy(NodeFactory.createNucleicAcidBackboneNode(rName,
-					// Monomer.ID_P), sequenceGraph).firstNode();
-					//
-					// } else {
-					// rNode =
-					// copier.copy(NodeFactory.createNucleicAcidBackboneNode(rName,
-					// Monomer.ID_R), sequenceGraph).firstNode();
-					// if (null == firstRNode) {
-					// firstRNode = rNode;
-					// }
-					// }
 				}
 
-				if (nuc.getBaseMonomer(monomerStore) != null) {
-					baseName = nuc.getBaseMonomer(monomerStore)
-							.getAlternateId();
-					baseNode = copier.copy(
-							SimpleElemetFactory.getInstance()
-									.createMonomerNode(
-											Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-											baseName), sequenceGraph)
-							.firstNode();
-					// baseNode =
-					// copier.copy(NodeFactory.createNucleicAcidBaseNode(baseName),
-					// sequenceGraph).firstNode();
+				if (baseMonomer != null) {
+					baseNode = factory.createMonomerNode(sequenceGraph,
+							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
+							baseMonomer.getAlternateId());
 				}
 
-				if (nuc.getPhosphateMonomer(monomerStore) != null) {
-					pName = nuc.getPhosphateMonomer(monomerStore)
-							.getAlternateId();
-					pNode = copier.copy(
-							SimpleElemetFactory.getInstance()
-									.createMonomerNode(
-											Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-											pName), sequenceGraph).firstNode();
-					// pNode =
-					// copier.copy(NodeFactory.createNucleicAcidBackboneNode(pName,
-					// Monomer.ID_P), sequenceGraph).firstNode();
+				if (phosphateMonomer != null) {
+					pNode = factory.createMonomerNode(sequenceGraph,
+							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
+							phosphateMonomer.getAlternateId());
 				}
 			}
 
-			rName = null;
-			pName = null;
-			baseName = null;
-
 			// update the position info
 			if (rNode != null) {
+				sequenceNodes.add(rNode);
 				monomerPositionNodeMap.setInt(rNode, position++);
 			}
 
 			if (baseNode != null) {
+				sequenceNodes.add(baseNode);
 				monomerPositionNodeMap.setInt(baseNode, position++);
 			}
 
 			if (pNode != null) {
+				sequenceNodes.add(pNode);
 				monomerPositionNodeMap.setInt(pNode, position++);
 			}
 			// make connections -----------------------------
@@ -697,28 +725,28 @@ public class NotationParser {
 
 			preNode = pNode; // update the connection node to the next nucleic
 								// acid unit
-			if (firstRNode != null && withStarting) {
-				NodeRealizer rRealizer = sequenceGraph.getRealizer(firstRNode);
-				NodeLabel anotationLabel = null;
-				if (rRealizer.labelCount() >= 2) {
-					anotationLabel = rRealizer.getLabel(1);
-				} else {
-					anotationLabel = rRealizer.createNodeLabel();
-					rRealizer.addLabel(anotationLabel);
-				}
-				anotationLabel.setModel(NodeLabel.EIGHT_POS);
-				anotationLabel.setPosition(NodeLabel.NW);
-				anotationLabel.setText("5'");
-				anotationLabel.setBackgroundColor(Color.YELLOW);
-
-			}
 
 			pNode = null;
 			rNode = null;
 			baseNode = null;
 		}
 
-		return sequenceGraph;
+		if (firstRNode != null && withStarting) {
+			NodeRealizer rRealizer = sequenceGraph.getRealizer(firstRNode);
+			NodeLabel anotationLabel = null;
+			if (rRealizer.labelCount() >= 2) {
+				anotationLabel = rRealizer.getLabel(1);
+			} else {
+				anotationLabel = rRealizer.createNodeLabel();
+				rRealizer.addLabel(anotationLabel);
+			}
+			anotationLabel.setModel(NodeLabel.EIGHT_POS);
+			anotationLabel.setPosition(NodeLabel.NW);
+			anotationLabel.setText("5'");
+			anotationLabel.setBackgroundColor(Color.YELLOW);
+		}
+
+		return sequenceNodes;
 
 	}
 
@@ -729,45 +757,30 @@ public class NotationParser {
 	}
 
 	/**
-	 * get the sequence graph from notation like "ACCGU"
-	 * 
+	 * adds the sequence graph of a notation like "A.C.C.G.U" to the given
+	 * graph
+	 *
+	 * @param sequenceGraph
+	 *            target graph providing MONOMER_REF, MONOMER_POSITION and
+	 *            EDGE_INFO maps
 	 * @param sequenceNotation
-	 * @return a graph that represent this notation
+	 * @return the created nodes in position order
 	 * @throws org.helm.notation.MonomerException
 	 * @throws java.io.IOException
 	 * @throws org.jdom.JDOMException
 	 */
-	private static Graph2D loadAminoAcidGraph(String sequenceNotation)
-			throws MonomerException, IOException, JDOMException {
+	private static NodeList loadAminoAcidGraph(Graph2D sequenceGraph,
+			String sequenceNotation) throws MonomerException, IOException,
+			JDOMException {
 
-		/*
-		 * MonomerFactory monomerFactory = MonomerFactory.getInstance();
-		 * Map<String, Map<String, Monomer>> monomerDB =
-		 * monomerFactory.getMonomerDB();
-		 */
-
-		// setting up the sequence graph
-		Graph2D sequenceGraph = new Graph2D();
-		sequenceGraph.addDataProvider(NodeMapKeys.MONOMER_REF,
-				sequenceGraph.createNodeMap());
-		sequenceGraph.addDataProvider(EdgeMapKeys.EDGE_INFO,
-				sequenceGraph.createEdgeMap());
-		sequenceGraph.addDataProvider(NodeMapKeys.MONOMER_POSITION,
-				sequenceGraph.createNodeMap());
-
-		// initializing the copier and set the right behavior
-		GraphCopier copier = new GraphCopier(
-				sequenceGraph.getGraphCopyFactory());
-
-		copier.setDataProviderContentCopying(true);
-		copier.setEdgeMapCopying(true);
-		copier.setNodeMapCopying(true);
+		SimpleElemetFactory factory = SimpleElemetFactory.getInstance();
 
 		String[] ncArray = sequenceNotation.split(UNIT_SEPERATION_SYMBOL);
 
 		int distance = 120;
 		int centerX = 50;
 		int centerY = 50;
+		NodeList sequenceNodes = new NodeList();
 		Node sourceNode = null;
 		Node targetNode = null;
 		Attachment sourceAttachment = null;
@@ -787,64 +800,52 @@ public class NotationParser {
 		NodeRealizer nodeRealizer = null;
 
 		int position = 1;
-		if (ncArray.length > 0) {
-			for (int i = 0; i < ncArray.length; i++) {
-				sourceNode = sequenceGraph.lastNode();
-				if (ncArray[i].contains(MONOMER_MODIFICATION_START_SYMBOL)) {
-					ncArray[i] = ncArray[i]
-							.substring(
-									ncArray[i]
-											.indexOf(MONOMER_MODIFICATION_START_SYMBOL) + 1,
-									ncArray[i]
-											.indexOf(MONOMER_MODIFICATION_END_SYMBOL));
-				}
+		for (int i = 0; i < ncArray.length; i++) {
+			if (ncArray[i].contains(MONOMER_MODIFICATION_START_SYMBOL)) {
+				ncArray[i] = ncArray[i].substring(
+						ncArray[i].indexOf(MONOMER_MODIFICATION_START_SYMBOL) + 1,
+						ncArray[i].indexOf(MONOMER_MODIFICATION_END_SYMBOL));
+			}
 
-				targetNode = copier.copy(
-						SimpleElemetFactory.getInstance().createMonomerNode(
-								Monomer.PEPTIDE_POLYMER_TYPE, ncArray[i]),
-						sequenceGraph).lastNode();
-				positionMap.setInt(targetNode, position++);
-				nodeRealizer = sequenceGraph.getRealizer(targetNode);
-				nodeRealizer.setCenter(centerX + distance * i, centerY);
-				if (sourceNode != null && targetNode != null) {
-					sourceMonomerInfo = (MonomerInfo) nodeMap.get(sourceNode);
-					targetMonomerInfo = (MonomerInfo) nodeMap.get(targetNode);
-					sourceAttachment = sourceMonomerInfo
-							.getAttachment(Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT);
-					targetAttachment = targetMonomerInfo
-							.getAttachment(Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT);
-
-					// if (!sourceAttachment.isConnected() &&
-					// !targetAttachment.isConnected()) {
-					if (!sourceMonomerInfo.isConnected(sourceAttachment)
-							&& !targetMonomerInfo.isConnected(targetAttachment)) {
-						edge = sequenceGraph.createEdge(sourceNode, targetNode);
-						edgeMap.set(edge, new EditorEdgeInfoData(
-								sourceAttachment, targetAttachment));
-						sourceMonomerInfo.setConnection(sourceAttachment, true);
-						targetMonomerInfo.setConnection(targetAttachment, true);
-					}
+			targetNode = factory.createMonomerNode(sequenceGraph,
+					Monomer.PEPTIDE_POLYMER_TYPE, ncArray[i]);
+			sequenceNodes.add(targetNode);
+			positionMap.setInt(targetNode, position++);
+			nodeRealizer = sequenceGraph.getRealizer(targetNode);
+			nodeRealizer.setCenter(centerX + distance * i, centerY);
+			if (sourceNode != null) {
+				sourceMonomerInfo = (MonomerInfo) nodeMap.get(sourceNode);
+				targetMonomerInfo = (MonomerInfo) nodeMap.get(targetNode);
+				sourceAttachment = sourceMonomerInfo
+						.getAttachment(Attachment.BACKBONE_MONOMER_RIGHT_ATTACHEMENT);
+				targetAttachment = targetMonomerInfo
+						.getAttachment(Attachment.BACKBONE_MONOMER_LEFT_ATTACHEMENT);
+
+				if (!sourceMonomerInfo.isConnected(sourceAttachment)
+						&& !targetMonomerInfo.isConnected(targetAttachment)) {
+					edge = sequenceGraph.createEdge(sourceNode, targetNode);
+					edgeMap.set(edge, new EditorEdgeInfoData(sourceAttachment,
+							targetAttachment));
+					sourceMonomerInfo.setConnection(sourceAttachment, true);
+					targetMonomerInfo.setConnection(targetAttachment, true);
 				}
 			}
+			sourceNode = targetNode;
 		}
 
-		return sequenceGraph;
+		return sequenceNodes;
 
 	}
 
-	private static Graph2D loadChemicalStructGraph(String chemID)
-			throws MonomerException, IOException, JDOMException {
-		Graph2D chemGraph = SimpleElemetFactory.getInstance()
-				.createMonomerNode(Monomer.CHEMICAL_POLYMER_TYPE, chemID);
-		chemGraph.addDataProvider(NodeMapKeys.MONOMER_REF,
-				chemGraph.createNodeMap());
-		chemGraph.addDataProvider(EdgeMapKeys.EDGE_INFO,
-				chemGraph.createEdgeMap());
-		NodeMap nodeMap = chemGraph.createNodeMap();
-		chemGraph.addDataProvider(NodeMapKeys.MONOMER_POSITION, nodeMap);
-		nodeMap.setInt(chemGraph.firstNode(), 1);
-
-		return chemGraph;
+	private static NodeList loadChemicalStructGraph(Graph2D graph,
+			String chemID) throws MonomerException, IOException, JDOMException {
+		Node chemNode = SimpleElemetFactory.getInstance().createMonomerNode(
+				graph, Monomer.CHEMICAL_POLYMER_TYPE, chemID);
+		NodeMap positionMap = (NodeMap) graph
+				.getDataProvider(NodeMapKeys.MONOMER_POSITION);
+		positionMap.setInt(chemNode, 1);
+
+		return new NodeList(chemNode);
 	}
 
 	/**
@@ -1043,10 +1044,7 @@ public class NotationParser {
 		EdgeMap edgeMap = graph.createEdgeMap();
 		graph.addDataProvider(EdgeMapKeys.EDGE_INFO, edgeMap);
 
-		GraphCopier copier = new GraphCopier(graph.getGraphCopyFactory());
-		copier.setDataProviderContentCopying(true);
-		copier.setEdgeMapCopying(true);
-		copier.setNodeMapCopying(true);
+		SimpleElemetFactory factory = SimpleElemetFactory.getInstance();
 
 		Nucleotide nuc = new Nucleotide();
 		nuc.setNotation(nucleotideNotation);
@@ -1065,26 +1063,20 @@ public class NotationParser {
 		MonomerInfo bMonomerInfo = null;
 
 		if (null != sMonomer) {
-			sNode = copier.copy(
-					SimpleElemetFactory.getInstance().createMonomerNode(
-							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-							sMonomer.getAlternateId()), graph).firstNode();
+			sNode = factory.createMonomerNode(graph,
+					Monomer.NUCLIEC_ACID_POLYMER_TYPE, sMonomer.getAlternateId());
 			sMonomerInfo = (MonomerInfo) nodePropertiesNodeMap.get(sNode);
 		}
 
 		if (null != pMonomer) {
-			pNode = copier.copy(
-					SimpleElemetFactory.getInstance().createMonomerNode(
-							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-							pMonomer.getAlternateId()), graph).firstNode();
+			pNode = factory.createMonomerNode(graph,
+					Monomer.NUCLIEC_ACID_POLYMER_TYPE, pMonomer.getAlternateId());
 			pMonomerInfo = (MonomerInfo) nodePropertiesNodeMap.get(pNode);
 		}
 
 		if (null != bMonomer) {
-			bNode = copier.copy(
-					SimpleElemetFactory.getInstance().createMonomerNode(
-							Monomer.NUCLIEC_ACID_POLYMER_TYPE,
-							bMonomer.getAlternateId()), graph).firstNode();
+			bNode = factory.createMonomerNode(graph,
+					Monomer.NUCLIEC_ACID_POLYMER_TYPE, bMonomer.getAlternateId());
 			bMonomerInfo = (MonomerInfo) nodePropertiesNodeMap.get(bNode);
 		}
 
@@ -1109,7 +1101,7 @@ public class NotationParser {
 			Attachment targetAttachment = bMonomerInfo
 					.getAttachment(Attachment.BRANCH_MONOMER_ATTACHEMENT);
 			sMonomerInfo.setConnection(sourceAttachment, true);
-			pMonomerInfo.setConnection(targetAttachment, true);
+			bMonomerInfo.setConnection(targetAttachment, true);
 			edgeMap.set(edge, new EditorEdgeInfoData(sourceAttachment,
 					targetAttachment));
 		}
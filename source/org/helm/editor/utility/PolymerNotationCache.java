@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import y.base.Edge;
+import y.base.Graph;
+import y.base.GraphEvent;
+import y.base.GraphListener;
+import y.base.Node;
+import y.base.NodeMap;
+
+import org.helm.editor.data.MonomerInfo;
+
+/**
+ * Per graph memo of the polymer notations computed by
+ * {@link Graph2NotationTranslator#updateHyperGraph}. The cache listens to the
+ * structural events of its graph and marks the polymers touched by an edit
+ * as dirty, so that only those have to be walked again on the next update.
+ * Monomer replacements do not fire graph events; they are detected by
+ * comparing the MonomerInfo and monomer id recorded for each node.
+ *
+ * The cache is registered as a listener of the graph, which keeps it alive
+ * exactly as long as the graph itself.
+ */
+class PolymerNotationCache implements GraphListener {
+
+	private static final Map<Graph, WeakReference<PolymerNotationCache>> caches = new WeakHashMap<Graph, WeakReference<PolymerNotationCache>>();
+
+	/**
+	 * notation of a single polymer, keyed by its starting node
+	 */
+	static class PolymerFragment {
+
+		private final Node startingNode;
+		private Node hyperNode;
+		private boolean dirty = true;
+
+		private String polymerType;
+		private String notation;
+		private String smiles;
+
+		private final List<Node> nodes = new ArrayList<Node>();
+		private final List<MonomerInfo> monomerInfos = new ArrayList<MonomerInfo>();
+		private final List<String> monomerIds = new ArrayList<String>();
+		private final List<Edge> polyEdges = new ArrayList<Edge>();
+
+		PolymerFragment(Node startingNode) {
+			this.startingNode = startingNode;
+		}
+
+		Node getStartingNode() {
+			return startingNode;
+		}
+
+		Node getHyperNode() {
+			return hyperNode;
+		}
+
+		void setHyperNode(Node hyperNode) {
+			this.hyperNode = hyperNode;
+		}
+
+		String getPolymerType() {
+			return polymerType;
+		}
+
+		String getNotation() {
+			return notation;
+		}
+
+		/**
+		 * @return notation with inline smiles of ad hoc monomers, or null if
+		 *         the polymer has none
+		 */
+		String getSmiles() {
+			return smiles;
+		}
+
+		List<Node> getNodes() {
+			return nodes;
+		}
+
+		List<Edge> getPolyEdges() {
+			return polyEdges;
+		}
+
+		boolean isDirty() {
+			return dirty;
+		}
+
+		void markDirty() {
+			dirty = true;
+		}
+
+		/**
+		 * drop the result of the previous walk before walking the polymer
+		 * again
+		 */
+		void reset() {
+			polymerType = null;
+			notation = null;
+			smiles = null;
+			nodes.clear();
+			monomerInfos.clear();
+			monomerIds.clear();
+			polyEdges.clear();
+			dirty = true;
+		}
+
+		void addNode(Node node, MonomerInfo monomerInfo) {
+			nodes.add(node);
+			monomerInfos.add(monomerInfo);
+			monomerIds.add(monomerInfo == null ? null : monomerInfo
+					.getMonomerID());
+		}
+
+		void addPolyEdge(Edge edge) {
+			polyEdges.add(edge);
+		}
+
+		void setResult(String polymerType, String notation, String smiles) {
+			this.polymerType = polymerType;
+			this.notation = notation;
+			this.smiles = smiles;
+			dirty = false;
+		}
+
+		/**
+		 * @param nodeMap
+		 *            current MONOMER_REF map of the graph
+		 * @return true if no node of this polymer got a different monomer
+		 *         since the last walk
+		 */
+		boolean isMonomerStateCurrent(NodeMap nodeMap) {
+			for (int i = 0; i < nodes.size(); i++) {
+				MonomerInfo monomerInfo = (MonomerInfo) nodeMap.get(nodes
+						.get(i));
+				if (monomerInfo != monomerInfos.get(i)) {
+					return false;
+				}
+				if (monomerInfo != null
+						&& !monomerInfo.getMonomerID().equals(
+								monomerIds.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private Graph hyperGraph;
+
+	private Object monomerStore;
+
+	private NodeMap[] maps;
+
+	/** fragments by starting node */
+	private final Map<Node, PolymerFragment> fragments = new HashMap<Node, PolymerFragment>();
+
+	/** owning fragment of every node seen by the last walks */
+	private final Map<Node, PolymerFragment> owners = new HashMap<Node, PolymerFragment>();
+
+	/** nodes created or reinserted since the last update */
+	private final Set<Node> createdNodes = new HashSet<Node>();
+
+	private boolean invalid = true;
+
+	private boolean suspended = false;
+
+	private PolymerNotationCache() {
+	}
+
+	/**
+	 * @param graph
+	 * @return the cache of the given graph, created and registered on first
+	 *         use
+	 */
+	static synchronized PolymerNotationCache getInstance(Graph graph) {
+		WeakReference<PolymerNotationCache> ref = caches.get(graph);
+		PolymerNotationCache cache = (ref == null) ? null : ref.get();
+		if (cache == null) {
+			cache = new PolymerNotationCache();
+			graph.addGraphListener(cache);
+			caches.put(graph, new WeakReference<PolymerNotationCache>(cache));
+		}
+		return cache;
+	}
+
+	/**
+	 * check that the cached fragments can still be used with the given hyper
+	 * graph, monomer store and node maps
+	 *
+	 * @param hyperGraph
+	 * @param monomerStore
+	 *            identity of the monomer store the fragments were built with
+	 * @param maps
+	 *            the node maps the fragments were written to
+	 * @return false if all fragments have to be rebuilt
+	 */
+	boolean isValid(Graph hyperGraph, Object monomerStore, NodeMap[] maps) {
+		if (invalid || this.hyperGraph != hyperGraph
+				|| this.monomerStore != monomerStore
+				|| !Arrays.equals(this.maps, maps)) {
+			return false;
+		}
+		for (PolymerFragment fragment : fragments.values()) {
+			Node hyperNode = fragment.getHyperNode();
+			if (hyperNode == null || hyperNode.getGraph() != hyperGraph) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * drop all fragments and start over with the given hyper graph, monomer
+	 * store and node maps
+	 *
+	 * @param hyperGraph
+	 * @param monomerStore
+	 * @param maps
+	 */
+	void rebind(Graph hyperGraph, Object monomerStore, NodeMap[] maps) {
+		fragments.clear();
+		owners.clear();
+		createdNodes.clear();
+		this.hyperGraph = hyperGraph;
+		this.monomerStore = monomerStore;
+		this.maps = maps.clone();
+	}
+
+	/**
+	 * force a full rebuild on the next update
+	 */
+	void invalidate() {
+		invalid = true;
+	}
+
+	PolymerFragment getFragment(Node startingNode) {
+		return fragments.get(startingNode);
+	}
+
+	PolymerFragment createFragment(Node startingNode) {
+		PolymerFragment fragment = new PolymerFragment(startingNode);
+		fragments.put(startingNode, fragment);
+		return fragment;
+	}
+
+	/**
+	 * remove the fragments whose starting node is not in the given list
+	 * anymore
+	 *
+	 * @param startingNodes
+	 * @return the removed fragments
+	 */
+	List<PolymerFragment> retainFragments(Set<Node> startingNodes) {
+		List<PolymerFragment> removed = new ArrayList<PolymerFragment>();
+		for (PolymerFragment fragment : fragments.values()) {
+			if (!startingNodes.contains(fragment.getStartingNode())) {
+				removed.add(fragment);
+			}
+		}
+		for (PolymerFragment fragment : removed) {
+			fragments.remove(fragment.getStartingNode());
+			forgetNodes(fragment);
+		}
+		return removed;
+	}
+
+	PolymerFragment getOwner(Node node) {
+		return owners.get(node);
+	}
+
+	/**
+	 * forget the node ownership recorded for the given fragment, used before
+	 * the fragment is walked again
+	 *
+	 * @param fragment
+	 */
+	void forgetNodes(PolymerFragment fragment) {
+		for (Node node : fragment.getNodes()) {
+			if (owners.get(node) == fragment) {
+				owners.remove(node);
+			}
+		}
+	}
+
+	void recordNodes(PolymerFragment fragment) {
+		for (Node node : fragment.getNodes()) {
+			owners.put(node, fragment);
+		}
+	}
+
+	Set<Node> getCreatedNodes() {
+		return createdNodes;
+	}
+
+	/**
+	 * called at the end of a successful update
+	 */
+	void updated() {
+		createdNodes.clear();
+		invalid = false;
+	}
+
+	/**
+	 * stop reacting to graph events, used while the translator temporarily
+	 * hides edges
+	 *
+	 * @param suspended
+	 */
+	void setSuspended(boolean suspended) {
+		this.suspended = suspended;
+	}
+
+	public void onGraphEvent(GraphEvent event) {
+		if (suspended || invalid) {
+			return;
+		}
+
+		int type = event.getType();
+		if (type == GraphEvent.PRE_EVENT || type == GraphEvent.POST_EVENT) {
+			return;
+		}
+
+		Object data = event.getData();
+		if (type == GraphEvent.NODE_CREATION
+				|| type == GraphEvent.NODE_REINSERTION) {
+			createdNodes.add((Node) data);
+		} else if (type == GraphEvent.PRE_NODE_REMOVAL
+				|| type == GraphEvent.POST_NODE_REMOVAL) {
+			markDirty((Node) data);
+		} else if (type == GraphEvent.EDGE_CREATION
+				|| type == GraphEvent.EDGE_REINSERTION
+				|| type == GraphEvent.PRE_EDGE_REMOVAL
+				|| type == GraphEvent.POST_EDGE_REMOVAL
+				|| type == GraphEvent.PRE_EDGE_CHANGE
+				|| type == GraphEvent.POST_EDGE_CHANGE) {
+			Edge edge = (Edge) data;
+			markDirty(edge.source());
+			markDirty(edge.target());
+		} else {
+			// subgraph moves and anything we do not know about
+			invalid = true;
+		}
+	}
+
+	private void markDirty(Node node) {
+		PolymerFragment fragment = owners.get(node);
+		if (fragment != null) {
+			fragment.markDirty();
+		} else {
+			createdNodes.add(node);
+		}
+	}
+}
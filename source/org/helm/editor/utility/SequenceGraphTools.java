@@ -106,9 +106,6 @@ public class SequenceGraphTools {
 			boolean reverse) throws MonomerException, IOException,
 			JDOMException {
 
-		Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
 
 		NodeList nodeList = new NodeList();
 
@@ -117,8 +114,7 @@ public class SequenceGraphTools {
 
 		MonomerInfo monomerInfo = (MonomerInfo) monomerInfoMap
 				.get(startingNode);
-		Monomer monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-				monomerInfo.getMonomerID());
+		Monomer monomer = monomerInfo.getMonomer();
 		Node pNode = null;
 		Node rNode = null;
 
@@ -157,8 +153,7 @@ public class SequenceGraphTools {
 						.node());
 				if (monomerInfo.getPolymerType().equalsIgnoreCase(
 						Monomer.NUCLIEC_ACID_POLYMER_TYPE)) {
-					monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-							monomerInfo.getMonomerID());
+					monomer = monomerInfo.getMonomer();
 					if (monomer != null
 							&& monomer.getMonomerType().equalsIgnoreCase(
 									Monomer.BRANCH_MOMONER_TYPE)) {
@@ -183,8 +178,7 @@ public class SequenceGraphTools {
 				if (successors.ok()) {
 					monomerInfo = (MonomerInfo) monomerInfoMap.get(successors
 							.node());
-					monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-							monomerInfo.getMonomerID());
+					monomer = monomerInfo.getMonomer();
 					if (monomerInfo.getPolymerType().equalsIgnoreCase(
 							Monomer.NUCLIEC_ACID_POLYMER_TYPE)
 							&& monomer.getNaturalAnalog().equalsIgnoreCase(
@@ -429,15 +423,8 @@ public class SequenceGraphTools {
 	public static boolean pairable(MonomerInfo sourceMonomerInfo,
 			MonomerInfo targetMonomerInfo) throws MonomerException,
 			IOException, JDOMException {
-		Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
-		Monomer sourceNodeMonomer = monomerDB.get(
-				sourceMonomerInfo.getPolymerType()).get(
-				sourceMonomerInfo.getMonomerID());
-		Monomer targetNodeMonomer = monomerDB.get(
-				targetMonomerInfo.getPolymerType()).get(
-				targetMonomerInfo.getMonomerID());
+		Monomer sourceNodeMonomer = sourceMonomerInfo.getMonomer();
+		Monomer targetNodeMonomer = targetMonomerInfo.getMonomer();
 
 		return targetNodeMonomer.getNaturalAnalog() != null
 				&& sourceNodeMonomer.getNaturalAnalog() != null
@@ -497,11 +484,7 @@ public class SequenceGraphTools {
 		NodeMap monomerInfoMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
 		MonomerInfo oldNodeMonomerInfo = (MonomerInfo) monomerInfoMap.get(node);
-		Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
-		Monomer monomer = monomerDB.get(oldNodeMonomerInfo.getPolymerType())
-				.get(oldNodeMonomerInfo.getMonomerID());
+		Monomer monomer = oldNodeMonomerInfo.getMonomer();
 
 		if (!monomer.getNaturalAnalog().equalsIgnoreCase(Monomer.ID_R)) {
 			return null;
@@ -563,9 +546,6 @@ public class SequenceGraphTools {
 
 	public static boolean isLastNucleicacidBackbone(Node node)
 			throws MonomerException, IOException, JDOMException {
-		Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
 
 		Graph2D graph = (Graph2D) node.getGraph();
 
@@ -582,23 +562,17 @@ public class SequenceGraphTools {
 			return false;
 		}
 
-		Monomer monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-				monomerInfo.getMonomerID());
-		if (!monomer.getMonomerType().equalsIgnoreCase(
-				Monomer.BACKBONE_MOMONER_TYPE)) {
+		if (!monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 			return false;
 		}
 
 		NodeCursor successors = node.successors();
 		for (; successors.ok(); successors.next()) {
 			monomerInfo = (MonomerInfo) monomerInfoMap.get(successors.node());
-			monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-					monomerInfo.getMonomerID());
 
 			if (monomerInfo.getPolymerType().equalsIgnoreCase(
 					Monomer.NUCLIEC_ACID_POLYMER_TYPE)
-					&& monomer.getMonomerType().equalsIgnoreCase(
-							Monomer.BACKBONE_MOMONER_TYPE)) {
+					&& monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 				return false;
 			}
 
@@ -609,9 +583,6 @@ public class SequenceGraphTools {
 
 	public static boolean isFirstNucleicacidBackbone(Node node)
 			throws MonomerException, IOException, JDOMException {
-		Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
 		Graph2D graph = (Graph2D) node.getGraph();
 		NodeMap monomerInfoMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
@@ -622,23 +593,17 @@ public class SequenceGraphTools {
 			return false;
 		}
 
-		Monomer monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-				monomerInfo.getMonomerID());
-		if (!monomer.getMonomerType().equalsIgnoreCase(
-				Monomer.BACKBONE_MOMONER_TYPE)) {
+		if (!monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 			return false;
 		}
 
 		NodeCursor predecessors = node.predecessors();
 		for (; predecessors.ok(); predecessors.next()) {
 			monomerInfo = (MonomerInfo) monomerInfoMap.get(predecessors.node());
-			monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-					monomerInfo.getMonomerID());
 
 			if (monomerInfo.getPolymerType().equalsIgnoreCase(
 					Monomer.NUCLIEC_ACID_POLYMER_TYPE)
-					&& monomer.getMonomerType().equalsIgnoreCase(
-							Monomer.BACKBONE_MOMONER_TYPE)) {
+					&& monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 				return false;
 			}
 
@@ -658,9 +623,6 @@ public class SequenceGraphTools {
 	 */
 	public static boolean isFirstPeptideSequenceNode(Node startingNode,
 			Graph graph) throws MonomerException, IOException, JDOMException {
-		final Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// final Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
 
 		NodeMap monomerInfoMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
@@ -671,23 +633,17 @@ public class SequenceGraphTools {
 			return false;
 		}
 
-		Monomer monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-				monomerInfo.getMonomerID());
-		if (!monomer.getMonomerType().equalsIgnoreCase(
-				Monomer.BACKBONE_MOMONER_TYPE)) {
+		if (!monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 			return false;
 		}
 
 		NodeCursor predecessors = startingNode.predecessors();
 		for (; predecessors.ok(); predecessors.next()) {
 			monomerInfo = (MonomerInfo) monomerInfoMap.get(predecessors.node());
-			monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-					monomerInfo.getMonomerID());
 
 			if (monomerInfo.getPolymerType().equalsIgnoreCase(
 					Monomer.PEPTIDE_POLYMER_TYPE)
-					&& monomer.getMonomerType().equalsIgnoreCase(
-							Monomer.BACKBONE_MOMONER_TYPE)) {
+					&& monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 				return false;
 			}
 
@@ -707,10 +663,6 @@ public class SequenceGraphTools {
 	 */
 	public static boolean isLastPeptideSequenceNode(Node node, Graph graph)
 			throws MonomerException, IOException, JDOMException {
-		final Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-
-		// final Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
 		NodeMap monomerInfoMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
 		MonomerInfo monomerInfo = (MonomerInfo) monomerInfoMap.get(node);
@@ -719,23 +671,17 @@ public class SequenceGraphTools {
 			return false;
 		}
 
-		Monomer monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-				monomerInfo.getMonomerID());
-		if (!monomer.getMonomerType().equalsIgnoreCase(
-				Monomer.BACKBONE_MOMONER_TYPE)) {
+		if (!monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 			return false;
 		}
 
 		NodeCursor successors = node.successors();
 		for (; successors.ok(); successors.next()) {
 			monomerInfo = (MonomerInfo) monomerInfoMap.get(successors.node());
-			monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-					monomerInfo.getMonomerID());
 
 			if (monomerInfo.getPolymerType().equalsIgnoreCase(
 					Monomer.PEPTIDE_POLYMER_TYPE)
-					&& monomer.getMonomerType().equalsIgnoreCase(
-							Monomer.BACKBONE_MOMONER_TYPE)) {
+					&& monomerInfo.hasRole(MonomerInfo.ROLE_BACKBONE)) {
 				return false;
 			}
 
@@ -753,9 +699,6 @@ public class SequenceGraphTools {
 	public static NodeList getNucleicAcidSequenceNodes(Node startingNode,
 			Graph2D graph) throws MonomerException, IOException, JDOMException {
 
-		final Map<String, Map<String, Monomer>> monomerDB = getMonomerDB();
-		// final Map<String, Map<String, Monomer>> monomerDB = MonomerFactory
-		// .getInstance().getMonomerDB();
 		NodeMap nodeMap = (NodeMap) graph
 				.getDataProvider(NodeMapKeys.MONOMER_REF);
 
@@ -777,8 +720,7 @@ public class SequenceGraphTools {
 			for (; successors.ok(); successors.next()) {
 				succNode = successors.node();
 				monomerInfo = (MonomerInfo) nodeMap.get(succNode);
-				monomer = monomerDB.get(monomerInfo.getPolymerType()).get(
-						monomerInfo.getMonomerID());
+				monomer = monomerInfo.getMonomer();
 				if (monomer.getMonomerType().equalsIgnoreCase(
 						Monomer.BACKBONE_MOMONER_TYPE)) {
 					selectedList.add(succNode);
@@ -829,8 +771,7 @@ public class SequenceGraphTools {
 
 		MonomerInfo monomerInfo = (MonomerInfo) monomerInfoMap.get(node);
 
-		Monomer monomer = getMonomerDB().get(monomerInfo.getPolymerType()).get(
-				monomerInfo.getMonomerID());
+		Monomer monomer = monomerInfo.getMonomer();
 
 		return monomer.getPolymerType().equalsIgnoreCase(
 				Monomer.NUCLIEC_ACID_POLYMER_TYPE)
@@ -83,6 +83,8 @@ public class SequenceLayout {
 
 	private GraphManager _graphManager;
 	private Graph2DView _view;
+	private Graph2D _graph;
+	private CancellationToken _cancellationToken = CancellationToken.NONE;
 
 	private DirectionFinder finder;
 
@@ -91,24 +93,52 @@ public class SequenceLayout {
 		_view = view;
 	}
 
+	/**
+	 * layout for a graph that is not shown in a view yet, e.g. a graph built
+	 * on a background thread
+	 * 
+	 * @param graph
+	 * @param graphManager
+	 */
+	public SequenceLayout(Graph2D graph, GraphManager graphManager) {
+		_graphManager = graphManager;
+		_graph = graph;
+	}
+
 	public void doLayout() throws MonomerException, IOException, JDOMException,
 			NotationException {
-		Graph2D graph = _view.getGraph2D();
+		Graph2D graph = getGraph();
 		_graphManager.clearFlippedSet();
 
-		clearEdgeBends(_view);
+		clearEdgeBends(graph);
 
 		AbstractLayoutPrimitives layoutPrimitives = new EditorViewLayoutPrimitives();
 
 		StructuresLayoutModule layoutModule = new StructuresLayoutModule();
 		layoutModule.setLayoutPrimitives(layoutPrimitives);
-		layoutModule.start(_view.getGraph2D());
+		layoutModule.setParallelLayoutEnabled(true);
+		layoutModule.setCancellationToken(_cancellationToken);
+		layoutModule.start(graph);
+		_cancellationToken.checkCancelled();
 
-		layoutPrimitives.arrangeNodesVisualisationSettings(_view.getGraph2D());
-		layoutPrimitives.arrangeEdgesVisualisationSettings(_view.getGraph2D());
+		layoutPrimitives.arrangeNodesVisualisationSettings(graph);
+		layoutPrimitives.arrangeEdgesVisualisationSettings(graph);
 
 	}
 
+	/**
+	 * @param cancellationToken
+	 *            token polled while the components are laid out. doLayout
+	 *            throws a CancellationException if it got cancelled.
+	 */
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		_cancellationToken = cancellationToken;
+	}
+
+	private Graph2D getGraph() {
+		return (_view != null) ? _view.getGraph2D() : _graph;
+	}
+
 	private void testNucleotideFlip(Node startingNode) throws MonomerException,
 			IOException, JDOMException {
 		Graph2D graph = _view.getGraph2D();
@@ -410,9 +440,8 @@ public class SequenceLayout {
 	 * 
 	 * @param view
 	 */
-	private static void clearEdgeBends(Graph2DView view) {
+	private static void clearEdgeBends(Graph2D graph) {
 		EdgeRealizer er = null;
-		Graph2D graph = view.getGraph2D();
 		EdgeCursor edges = graph.edges();
 		for (; edges.ok(); edges.next()) {
 			er = graph.getRealizer(edges.edge());
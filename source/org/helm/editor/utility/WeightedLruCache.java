@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache bounded by the number of entries and by the sum
+ * of their estimated weights. The eldest entries are evicted first, but never
+ * the entry that has just been added. Counts hits, misses and evictions.
+ * 
+ * @param <V>
+ *            type of the cached values
+ */
+public class WeightedLruCache<V> {
+
+	/**
+	 * estimates the weight of an entry, e.g. its size in bytes
+	 */
+	public interface Weigher<V> {
+		long getWeight(String key, V value);
+	}
+
+	private static final int DEFAULT_CACHE_SIZE = 64;
+
+	private final int maximumSize;
+	private final long maximumWeight;
+	private final Weigher<V> weigher;
+
+	/**
+	 * values in access order, the eldest entry is evicted first
+	 */
+	private final LinkedHashMap<String, V> _cache = new LinkedHashMap<String, V>(
+			DEFAULT_CACHE_SIZE, 0.75f, true);
+
+	private long _weight;
+
+	private long _hitCount;
+	private long _missCount;
+	private long _evictionCount;
+
+	/**
+	 * @param maximumSize
+	 *            maximum number of entries
+	 * @param maximumWeight
+	 *            maximum sum of the entry weights, larger entries are not
+	 *            cached at all
+	 * @param weigher
+	 */
+	public WeightedLruCache(int maximumSize, long maximumWeight,
+			Weigher<V> weigher) {
+		this.maximumSize = maximumSize;
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+	}
+
+	public synchronized void put(String key, V value) {
+		long weight = weigher.getWeight(key, value);
+		if (weight > maximumWeight) {
+			return;
+		}
+
+		V previous = _cache.put(key, value);
+		if (previous != null) {
+			_weight -= weigher.getWeight(key, previous);
+		}
+		_weight += weight;
+
+		Iterator<Map.Entry<String, V>> it = _cache.entrySet().iterator();
+		while ((_cache.size() > maximumSize || _weight > maximumWeight)
+				&& it.hasNext()) {
+			Map.Entry<String, V> eldest = it.next();
+			if (eldest.getValue() == value) {
+				continue;
+			}
+			_weight -= weigher.getWeight(eldest.getKey(), eldest.getValue());
+			it.remove();
+			_evictionCount++;
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return the cached value or null; counts as hit or miss
+	 */
+	public synchronized V get(String key) {
+		V value = _cache.get(key);
+		if (value == null) {
+			_missCount++;
+		} else {
+			_hitCount++;
+		}
+		return value;
+	}
+
+	public synchronized boolean containsKey(String key) {
+		return _cache.containsKey(key);
+	}
+
+	public synchronized void clear() {
+		_cache.clear();
+		_weight = 0;
+	}
+
+	public synchronized int size() {
+		return _cache.size();
+	}
+
+	/**
+	 * @return sum of the weights of all cached entries
+	 */
+	public synchronized long getWeight() {
+		return _weight;
+	}
+
+	public synchronized long getHitCount() {
+		return _hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return _missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return _evictionCount;
+	}
+}
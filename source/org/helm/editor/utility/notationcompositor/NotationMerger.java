@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility.notationcompositor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.helm.notation.NotationException;
+
+/**
+ * Combines many complex notations into one in a single pass. The polymers of
+ * every added notation are renumbered after the polymers already added, and
+ * the connection, pair and annotation sections are rewritten accordingly.
+ * The result is the same as folding the notations with
+ * ComplexNotationParser.getCombinedComlexNotation, without parsing the
+ * growing combined notation again for every addition.
+ */
+public class NotationMerger {
+
+	private static final Pattern POLYMER_ID_PATTERN = Pattern
+			.compile("([A-Za-z]+)(\\d+)");
+
+	private static final int SECTION_COUNT = 4;
+
+	private final StringBuilder[] sections = new StringBuilder[SECTION_COUNT];
+
+	/** highest polymer number used so far, by polymer type */
+	private final Map<String, Integer> maxIndexes = new HashMap<String, Integer>();
+
+	private int notationCount = 0;
+
+	public NotationMerger() {
+		for (int i = 0; i < SECTION_COUNT; i++) {
+			sections[i] = new StringBuilder();
+		}
+	}
+
+	/**
+	 * appends a notation, renumbering its polymers
+	 * 
+	 * @param notation
+	 *            standardized complex notation
+	 * @throws NotationException
+	 *             if the notation cannot be split into its sections, the
+	 *             merger is unchanged in this case
+	 */
+	public void add(String notation) throws NotationException {
+		List<String> parts = split(notation,
+				NotationCompositor.NOTATION_PART_ENDING.charAt(0));
+		if (parts.size() < SECTION_COUNT) {
+			throw new NotationException("Invalid complex notation: "
+					+ notation);
+		}
+
+		// assign the new polymer ids first, so a failure leaves no trace
+		Map<String, String> idMap = new HashMap<String, String>();
+		Map<String, Integer> newMaxIndexes = new HashMap<String, Integer>();
+		List<String> polymers = splitList(parts.get(0));
+		for (String polymer : polymers) {
+			String id = getLeadingId(polymer);
+			Matcher matcher = POLYMER_ID_PATTERN.matcher(id);
+			if (!matcher.matches()) {
+				throw new NotationException("Invalid polymer id: " + id);
+			}
+			String type = matcher.group(1);
+			Integer offset = maxIndexes.get(type);
+			int index = Integer.parseInt(matcher.group(2))
+					+ (offset == null ? 0 : offset);
+			idMap.put(id, type + index);
+			Integer max = newMaxIndexes.get(type);
+			if (max == null || max < index) {
+				newMaxIndexes.put(type, index);
+			}
+		}
+
+		List<String> rewritten = new ArrayList<String>(SECTION_COUNT);
+		rewritten.add(rewriteNodes(polymers, idMap));
+		rewritten.add(rewriteEdges(splitList(parts.get(1)), idMap));
+		rewritten.add(rewriteEdges(splitList(parts.get(2)), idMap));
+		rewritten.add(rewriteNodes(splitList(parts.get(3)), idMap));
+
+		for (int i = 0; i < SECTION_COUNT; i++) {
+			String section = rewritten.get(i);
+			if (section.length() == 0) {
+				continue;
+			}
+			if (sections[i].length() > 0) {
+				sections[i].append(NotationCompositor.NOTATION_DELIMETER);
+			}
+			sections[i].append(section);
+		}
+		for (Map.Entry<String, Integer> entry : newMaxIndexes.entrySet()) {
+			Integer max = maxIndexes.get(entry.getKey());
+			if (max == null || max < entry.getValue()) {
+				maxIndexes.put(entry.getKey(), entry.getValue());
+			}
+		}
+		notationCount++;
+	}
+
+	/**
+	 * @return number of notations added
+	 */
+	public int getNotationCount() {
+		return notationCount;
+	}
+
+	/**
+	 * @return the combined notation
+	 */
+	public String getNotation() {
+		StringBuilder sb = new StringBuilder();
+		for (StringBuilder section : sections) {
+			sb.append(section).append(NotationCompositor.NOTATION_PART_ENDING);
+		}
+		return sb.toString();
+	}
+
+	private static String rewriteNodes(List<String> nodes,
+			Map<String, String> idMap) throws NotationException {
+		StringBuilder sb = new StringBuilder();
+		for (String node : nodes) {
+			String id = getLeadingId(node);
+			String newId = idMap.get(id);
+			if (newId == null) {
+				throw new NotationException("Unknown polymer id: " + id);
+			}
+			if (sb.length() > 0) {
+				sb.append(NotationCompositor.NOTATION_DELIMETER);
+			}
+			sb.append(newId).append(node.substring(id.length()));
+		}
+		return sb.toString();
+	}
+
+	private static String rewriteEdges(List<String> edges,
+			Map<String, String> idMap) throws NotationException {
+		StringBuilder sb = new StringBuilder();
+		for (String edge : edges) {
+			String[] fields = edge.split(NotationCompositor.NOTATION_COMMA, 3);
+			if (fields.length < 3) {
+				throw new NotationException("Invalid connection: " + edge);
+			}
+			String source = idMap.get(fields[0]);
+			String target = idMap.get(fields[1]);
+			if (source == null || target == null) {
+				throw new NotationException("Unknown polymer id in " + edge);
+			}
+			if (sb.length() > 0) {
+				sb.append(NotationCompositor.NOTATION_DELIMETER);
+			}
+			sb.append(source).append(NotationCompositor.NOTATION_COMMA)
+					.append(target).append(NotationCompositor.NOTATION_COMMA)
+					.append(fields[2]);
+		}
+		return sb.toString();
+	}
+
+	private static String getLeadingId(String node) {
+		int start = node.indexOf(NotationCompositor.NOTATION_BEGINING);
+		return (start < 0) ? node : node.substring(0, start);
+	}
+
+	private static List<String> splitList(String section) {
+		if (section.length() == 0) {
+			return new ArrayList<String>();
+		}
+		return split(section, NotationCompositor.NOTATION_DELIMETER.charAt(0));
+	}
+
+	/**
+	 * splits at the separators outside of braces and brackets, which may
+	 * hold inline SMILES containing the separator characters
+	 */
+	private static List<String> split(String text, char separator) {
+		List<String> parts = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+			} else if (c == separator && depth == 0) {
+				parts.add(text.substring(start, i));
+				start = i + 1;
+			}
+		}
+		parts.add(text.substring(start));
+		return parts;
+	}
+}
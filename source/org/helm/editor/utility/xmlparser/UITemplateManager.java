@@ -22,11 +22,17 @@
 package org.helm.editor.utility.xmlparser;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.helm.editor.utility.xmlparser.data.Group;
+import org.helm.editor.utility.xmlparser.data.MonomerStyle;
 import org.helm.editor.utility.xmlparser.data.Polymer;
 import org.helm.editor.utility.xmlparser.data.Template;
+import org.helm.editor.utility.xmlparser.data.XmlMonomer;
 import org.helm.editor.utility.xmlparser.parser.DomParser;
 import org.helm.editor.utility.xmlparser.parser.TemplateParser;
 import org.helm.editor.utility.xmlparser.parser.TemplateParsingException;
@@ -47,6 +53,13 @@ public class UITemplateManager {
 
 	private Template uiTemplate;
 
+	/**
+	 * monomer styles by upper case polymer type and monomer id, rebuilt on
+	 * every load of the templates
+	 */
+	private volatile Map<String, Map<String, MonomerStyle>> styleIndex = Collections
+			.emptyMap();
+
 	public UITemplateManager(String schemaPath, String uiTemplatePath) {
 		validator = new UITemplateValidator();
 		parser = new DomParser();
@@ -62,6 +75,63 @@ public class UITemplateManager {
 		validator.validate(uiTempaltePath);
 
 		uiTemplate = parser.parse(uiTempaltePath);
+		styleIndex = buildStyleIndex(uiTemplate);
+	}
+
+	/**
+	 * Looks up the shape and colors of a monomer in the loaded templates.
+	 * 
+	 * @param polymerType
+	 *            polymer type, case insensitive
+	 * @param monomerId
+	 * @return style or null if the templates do not list the monomer
+	 */
+	public MonomerStyle getMonomerStyle(String polymerType, String monomerId) {
+		Map<String, MonomerStyle> styles = styleIndex.get(polymerType
+				.toUpperCase());
+		if (styles == null) {
+			return null;
+		}
+		return styles.get(monomerId);
+	}
+
+	/**
+	 * Indexes the monomer groups of all polymers. The first entry wins, as it
+	 * did for the sequential search over polymers and groups.
+	 * 
+	 * @param template
+	 * @return unmodifiable index
+	 */
+	private static Map<String, Map<String, MonomerStyle>> buildStyleIndex(
+			Template template) {
+		Map<String, Map<String, MonomerStyle>> index = new HashMap<String, Map<String, MonomerStyle>>();
+		Iterator<Polymer> polymers = template.getPolymersInterator();
+		while (polymers.hasNext()) {
+			Polymer polymer = polymers.next();
+			String polymerType = polymer.getName().toUpperCase();
+			Map<String, MonomerStyle> styles = index.get(polymerType);
+			if (styles == null) {
+				styles = new HashMap<String, MonomerStyle>();
+				index.put(polymerType, styles);
+			}
+			for (Group<XmlMonomer> group : polymer.getMonomerGroups()) {
+				Iterator<XmlMonomer> monomers = group.getGroupIterator();
+				while (monomers.hasNext()) {
+					XmlMonomer monomer = monomers.next();
+					if (!styles.containsKey(monomer.getName())) {
+						styles.put(monomer.getName(), new MonomerStyle(polymer
+								.getName(), monomer.getName(),
+								group.getShape(), monomer.getBackgroundColor(),
+								monomer.getFontColor()));
+					}
+				}
+			}
+		}
+		for (Map.Entry<String, Map<String, MonomerStyle>> entry : index
+				.entrySet()) {
+			entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(index);
 	}
 
 	public void setUITemplatePath(String templatePath)
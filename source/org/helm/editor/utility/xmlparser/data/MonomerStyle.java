@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.utility.xmlparser.data;
+
+import java.awt.Color;
+
+/**
+ * Shape and colors of one monomer as defined by the UI template. Instances
+ * are built by the UITemplateManager when the templates are loaded and are
+ * not modified afterwards.
+ */
+public final class MonomerStyle {
+
+	private final String polymerType;
+	private final String monomerId;
+	private final String shape;
+	private final Color backgroundColor;
+	private final Color fontColor;
+
+	public MonomerStyle(String polymerType, String monomerId, String shape,
+			Color backgroundColor, Color fontColor) {
+		this.polymerType = polymerType;
+		this.monomerId = monomerId;
+		this.shape = shape;
+		this.backgroundColor = backgroundColor;
+		this.fontColor = fontColor;
+	}
+
+	public String getPolymerType() {
+		return polymerType;
+	}
+
+	public String getMonomerId() {
+		return monomerId;
+	}
+
+	public String getShape() {
+		return shape;
+	}
+
+	public Color getBackgroundColor() {
+		return backgroundColor;
+	}
+
+	public Color getFontColor() {
+		return fontColor;
+	}
+}
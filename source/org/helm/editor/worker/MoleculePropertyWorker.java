@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.worker;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.table.DefaultTableModel;
+
+import org.jdesktop.swingworker.SwingWorker;
+
+import org.helm.editor.data.MonomerStoreCache;
+import org.helm.editor.utility.MolecularPropertyCalculator;
+import org.helm.notation.MonomerStore;
+import org.helm.notation.model.MoleculeInfo;
+import org.helm.notation.tools.ComplexNotationParser;
+import org.helm.notation.tools.ExtinctionCoefficientCalculator;
+
+/**
+ * Calculates the molecular properties of a notation in the background and
+ * fills the value column of the property table as each value becomes
+ * available. The properties are calculated per connected component and
+ * memoized by component notation and monomer store version, so after an
+ * edit only the changed components are calculated again.
+ */
+public class MoleculePropertyWorker extends
+		SwingWorker<Void, MoleculePropertyWorker.Property> {
+
+	public static final int FORMULA_ROW = 0;
+	public static final int WEIGHT_ROW = 1;
+	public static final int EXACT_MASS_ROW = 2;
+	public static final int EXTINCTION_COEFFICIENT_ROW = 3;
+
+	public static final int VALUE_COLUMN = 1;
+
+	public static final String PENDING_VALUE = "Calculating...";
+	public static final String UNKNOWN_VALUE = "N/A";
+
+	private static final int MAXIMUM_CACHE_SIZE = 500;
+
+	private static final Map<String, MoleculeInfo> moleculeInfos = createCache();
+
+	private static final Map<String, Float> extinctionCoefficients = createCache();
+
+	/**
+	 * a calculated value of the property table
+	 */
+	public static class Property {
+		private final int row;
+		private final String value;
+
+		public Property(int row, String value) {
+			this.row = row;
+			this.value = value;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public String getValue() {
+			return value;
+		}
+	}
+
+	private final String notation;
+	private final MonomerStore monomerStore;
+	private final DefaultTableModel model;
+
+	private NumberFormat nf = new DecimalFormat("#0.00");
+
+	/**
+	 * @param notation
+	 * @param monomerStore
+	 * @param model
+	 *            property table, the value column is updated on the event
+	 *            dispatch thread
+	 */
+	public MoleculePropertyWorker(String notation, MonomerStore monomerStore,
+			DefaultTableModel model) {
+		this.notation = notation;
+		this.monomerStore = monomerStore;
+		this.model = model;
+	}
+
+	@Override
+	protected Void doInBackground() throws Exception {
+		int version = MonomerStoreCache.getInstance().getVersion();
+
+		String[] components;
+		try {
+			components = ComplexNotationParser.decompose(notation,
+					monomerStore);
+		} catch (Exception ex) {
+			Logger.getLogger(MoleculePropertyWorker.class.getName()).log(
+					Level.WARNING, "unable to decompose " + notation, ex);
+			components = new String[] { notation };
+		}
+
+		List<MoleculeInfo> parts = new ArrayList<MoleculeInfo>(
+				components.length);
+		for (String component : components) {
+			if (isCancelled()) {
+				return null;
+			}
+			MoleculeInfo mi = getMoleculeInfo(component, version);
+			if (mi == null) {
+				parts = null;
+				break;
+			}
+			parts.add(mi);
+		}
+
+		MoleculeInfo mi = null;
+		if (parts != null && parts.size() == 1) {
+			mi = parts.get(0);
+		} else if (parts != null) {
+			mi = MolecularPropertyCalculator.sum(parts);
+			if (mi == null && !isCancelled()) {
+				// formulas the sum cannot parse, such as charged ones
+				mi = getMoleculeInfo(notation, version);
+			}
+		}
+		if (mi == null) {
+			publish(new Property(FORMULA_ROW, UNKNOWN_VALUE), new Property(
+					WEIGHT_ROW, UNKNOWN_VALUE), new Property(EXACT_MASS_ROW,
+					UNKNOWN_VALUE));
+		} else {
+			publish(new Property(FORMULA_ROW, mi.getMolecularFormula()),
+					new Property(WEIGHT_ROW, nf.format(mi
+							.getMolecularWeight())), new Property(
+							EXACT_MASS_ROW, nf.format(mi.getExactMass())));
+		}
+
+		float extinctionCoefficient = 0;
+		for (String component : components) {
+			if (isCancelled()) {
+				return null;
+			}
+			Float value = getExtinctionCoefficient(component, version);
+			if (value == null) {
+				publish(new Property(EXTINCTION_COEFFICIENT_ROW, UNKNOWN_VALUE));
+				return null;
+			}
+			extinctionCoefficient += value;
+		}
+		publish(new Property(EXTINCTION_COEFFICIENT_ROW,
+				nf.format(extinctionCoefficient)));
+
+		return null;
+	}
+
+	@Override
+	protected void process(List<Property> chunks) {
+		for (Property property : chunks) {
+			model.setValueAt(property.getValue(), property.getRow(),
+					VALUE_COLUMN);
+		}
+	}
+
+	@Override
+	protected void done() {
+		if (isCancelled()) {
+			return;
+		}
+		try {
+			get();
+		} catch (Exception ex) {
+			Logger.getLogger(MoleculePropertyWorker.class.getName()).log(
+					Level.SEVERE, null, ex);
+		}
+		// values that were not published could not be calculated
+		for (int row = 0; row < model.getRowCount(); row++) {
+			if (PENDING_VALUE.equals(model.getValueAt(row, VALUE_COLUMN))) {
+				model.setValueAt(UNKNOWN_VALUE, row, VALUE_COLUMN);
+			}
+		}
+	}
+
+	private MoleculeInfo getMoleculeInfo(String component, int version) {
+		String key = version + "|" + component;
+		synchronized (moleculeInfos) {
+			MoleculeInfo mi = moleculeInfos.get(key);
+			if (mi != null) {
+				return mi;
+			}
+		}
+
+		try {
+			MoleculeInfo mi = MolecularPropertyCalculator.getInstance()
+					.getMoleculeInfo(component, monomerStore);
+			synchronized (moleculeInfos) {
+				moleculeInfos.put(key, mi);
+			}
+			return mi;
+		} catch (Exception ex) {
+			Logger.getLogger(MoleculePropertyWorker.class.getName()).log(
+					Level.SEVERE, null, ex);
+			return null;
+		}
+	}
+
+	private Float getExtinctionCoefficient(String component, int version) {
+		String key = version + "|" + component;
+		synchronized (extinctionCoefficients) {
+			Float value = extinctionCoefficients.get(key);
+			if (value != null) {
+				return value;
+			}
+		}
+
+		try {
+			Float value = ExtinctionCoefficientCalculator.getInstance()
+					.calculateFromComplexNotation(component,
+							ExtinctionCoefficientCalculator.RNA_UNIT_TYPE);
+			synchronized (extinctionCoefficients) {
+				extinctionCoefficients.put(key, value);
+			}
+			return value;
+		} catch (Exception ex) {
+			Logger.getLogger(MoleculePropertyWorker.class.getName()).log(
+					Level.SEVERE, null, ex);
+			return null;
+		}
+	}
+
+	private static <V> Map<String, V> createCache() {
+		return new LinkedHashMap<String, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > MAXIMUM_CACHE_SIZE;
+			}
+		};
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.worker;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.ProgressMonitor;
+import javax.swing.Timer;
+
+import org.jdesktop.swingworker.SwingWorker;
+
+import org.helm.editor.utility.NotationParser;
+import org.helm.editor.utility.notationcompositor.NotationMerger;
+import org.helm.notation.tools.ComplexNotationParser;
+
+/**
+ * Reads a file with one complex notation per line and combines the valid
+ * notations into a single notation. Lines are read as the validation makes
+ * progress, validated and standardized in parallel, and merged in file
+ * order with a {@link NotationMerger}. Invalid lines are counted and
+ * skipped. A progress monitor shows the read part of the file and lets the
+ * user cancel the import.
+ * 
+ * The result of {@link #get()} is the combined notation of the file, or null
+ * if it contains no valid notation. Subclasses decide in {@link #done()}
+ * what to do with it.
+ */
+public class NotationImportWorker extends SwingWorker<String, Void> {
+
+	/**
+	 * a line after validation, standardNotation is null for invalid lines
+	 */
+	private static class Line {
+		private final String standardNotation;
+
+		Line(String standardNotation) {
+			this.standardNotation = standardNotation;
+		}
+	}
+
+	/**
+	 * counts the bytes the reader has consumed
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		private volatile long count = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	private final File file;
+	private final ProgressMonitor progressMonitor;
+	private final Timer cancelTimer;
+
+	private volatile int lineCount = 0;
+	private volatile int rejectedCount = 0;
+
+	/**
+	 * @param parent
+	 *            owner of the progress monitor
+	 * @param file
+	 * @param title
+	 *            title of the progress monitor
+	 */
+	public NotationImportWorker(Component parent, File file, String title) {
+		this.file = file;
+
+		progressMonitor = new ProgressMonitor(parent, title, "Reading "
+				+ file.getName(), 0, 100);
+		progressMonitor.setMillisToDecideToPopup(200);
+		addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				if ("progress".equals(evt.getPropertyName())) {
+					progressMonitor.setProgress((Integer) evt.getNewValue());
+				}
+			}
+		});
+
+		cancelTimer = new Timer(250, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if (progressMonitor.isCanceled()) {
+					cancel(true);
+				}
+			}
+		});
+		cancelTimer.start();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return number of non empty lines read
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return number of lines skipped because they are not valid notations
+	 */
+	public int getRejectedCount() {
+		return rejectedCount;
+	}
+
+	@Override
+	protected String doInBackground() throws Exception {
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "NotationImportWorker-"
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		long length = Math.max(1, file.length());
+		CountingInputStream counter = new CountingInputStream(
+				new FileInputStream(file));
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				counter));
+
+		// lines in flight, in file order
+		LinkedList<Future<Line>> pending = new LinkedList<Future<Line>>();
+		int maxPending = threadCount * 4;
+		NotationMerger merger = new NotationMerger();
+		try {
+			boolean endOfFile = false;
+			while (!endOfFile || !pending.isEmpty()) {
+				while (!endOfFile && pending.size() < maxPending) {
+					String line = reader.readLine();
+					if (line == null) {
+						endOfFile = true;
+					} else if (line.length() > 0) {
+						lineCount++;
+						pending.add(executor.submit(createTask(line)));
+					}
+				}
+				if (pending.isEmpty()) {
+					break;
+				}
+
+				if (isCancelled()) {
+					throw new CancellationException();
+				}
+
+				Line line;
+				try {
+					line = pending.removeFirst().get();
+				} catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					throw (cause instanceof Exception) ? (Exception) cause : ex;
+				}
+
+				if (line.standardNotation == null) {
+					rejectedCount++;
+				} else {
+					try {
+						merger.add(line.standardNotation);
+					} catch (Exception ex) {
+						rejectedCount++;
+					}
+				}
+				setProgress((int) Math.min(100, 100 * counter.getCount()
+						/ length));
+			}
+		} finally {
+			executor.shutdownNow();
+			reader.close();
+		}
+
+		return (merger.getNotationCount() == 0) ? null : merger.getNotation();
+	}
+
+	@Override
+	protected void done() {
+		cancelTimer.stop();
+		progressMonitor.close();
+	}
+
+	private static Callable<Line> createTask(final String line) {
+		return new Callable<Line>() {
+			public Line call() throws Exception {
+				String note = NotationParser.removeChemMonomerBracket(line);
+				try {
+					ComplexNotationParser.validateComplexNotation(note);
+					return new Line(ComplexNotationParser.standardize(note));
+				} catch (Exception ex) {
+					return new Line(null);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.worker;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import org.jdesktop.swingworker.SwingWorker;
+
+import org.helm.editor.data.Annotator;
+import org.helm.editor.data.GraphManager;
+import org.helm.editor.data.GraphPair;
+import org.helm.editor.data.NotationUpdateEvent;
+import org.helm.editor.data.ParsedNotation;
+import org.helm.editor.editor.MacromoleculeEditor;
+import org.helm.editor.realizer.MonomerNodeRealizer;
+import org.helm.editor.utility.CancellationToken;
+import org.helm.editor.utility.ExceptionHandler;
+import org.helm.editor.utility.Graph2NotationTranslator;
+import org.helm.editor.utility.NotationParser;
+import org.helm.editor.utility.SequenceLayout;
+
+/**
+ * Parses a notation, builds its graph and lays it out off the event dispatch
+ * thread. The graph is not shown in any view while it is built; the editor
+ * swaps it in when the worker is done.
+ * 
+ * The work stops early once the cancellation token reports that a newer
+ * notation update has been fired.
+ */
+public class NotationLayoutWorker extends SwingWorker<GraphPair, Void> {
+
+	private final MacromoleculeEditor editor;
+	private final NotationUpdateEvent event;
+	private final CancellationToken cancellationToken;
+
+	/**
+	 * @param editor
+	 * @param event
+	 *            the update to show. Its parsed notation is shared with the
+	 *            other listeners of the event.
+	 * @param cancellationToken
+	 */
+	public NotationLayoutWorker(MacromoleculeEditor editor,
+			NotationUpdateEvent event, CancellationToken cancellationToken) {
+		this.editor = editor;
+		this.event = event;
+		this.cancellationToken = cancellationToken;
+	}
+
+	public String getNotation() {
+		return event.getData();
+	}
+
+	@Override
+	protected GraphPair doInBackground() throws Exception {
+		cancellationToken.checkCancelled();
+		ParsedNotation parsedNotation = event.getParsedNotation();
+		GraphPair pair = NotationParser.getGraphPair(parsedNotation,
+				cancellationToken);
+		pair.getGraph().setDefaultNodeRealizer(new MonomerNodeRealizer());
+
+		GraphManager graphManager = pair.getGraphManager();
+		Annotator annotator = graphManager.getAnnotator();
+		annotator.setGraph2D(pair.getGraph());
+		annotator.setManager(graphManager);
+		annotator.annotateAllBasePosition();
+
+		if (!pair.getGraph().isEmpty()) {
+			cancellationToken.checkCancelled();
+			Graph2NotationTranslator.updateHyperGraph(pair.getGraph(),
+					graphManager);
+			SequenceLayout sequenceLayout = new SequenceLayout(
+					pair.getGraph(), graphManager);
+			sequenceLayout.setCancellationToken(cancellationToken);
+			sequenceLayout.doLayout();
+		}
+		return pair;
+	}
+
+	@Override
+	protected void done() {
+		GraphPair pair = null;
+		if (!isCancelled()) {
+			try {
+				pair = get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException ex) {
+				// a cancelled worker has been superseded by a newer update
+				Throwable cause = ex.getCause();
+				if (!(cause instanceof CancellationException)) {
+					ExceptionHandler
+							.handleException(cause instanceof Exception ? (Exception) cause
+									: ex);
+				}
+			}
+		}
+		editor.graphLayouted(this, pair);
+	}
+}
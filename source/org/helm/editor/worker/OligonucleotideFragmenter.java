@@ -24,22 +24,26 @@ package org.helm.editor.worker;
 import chemaxon.marvin.plugin.PluginException;
 
 import org.helm.notation.MonomerException;
+import org.helm.notation.MonomerStore;
 import org.helm.notation.NotationException;
 import org.helm.notation.StructureException;
+import org.helm.editor.data.MonomerStoreCache;
 import org.helm.editor.manager.OligonucleotideFragmentDialog;
 import org.helm.editor.manager.OligonucleotideFragmentTableModel.Fragment;
 import org.helm.editor.manager.OligonucleotideFragmentTableModel.FragmentationParameter;
+import org.helm.editor.utility.MolecularPropertyCalculator;
 import org.helm.notation.model.MoleculeInfo;
-import org.helm.notation.model.Monomer;
 import org.helm.notation.model.Nucleotide;
-import org.helm.notation.tools.ComplexNotationParser;
-import org.helm.notation.tools.DeepCopy;
 import org.helm.notation.tools.SimpleNotationParser;
-import org.helm.notation.tools.StructureParser;
 import java.awt.Cursor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
@@ -47,16 +51,50 @@ import org.jdesktop.swingworker.SwingWorker;
 import org.jdom.JDOMException;
 
 /**
+ * Computes the fragment ladder of an oligonucleotide. A fragment is a range
+ * of the input nucleotides, so no nucleotide list is copied. Molecular
+ * weights come from prefix sums over the nucleotide weights, and fragment
+ * notations are created only when a row asks for them. Fragments are
+ * evaluated on a thread pool and published in ladder order while the
+ * fragmentation is running.
  * 
  * @author zhangtianhong
  */
 public class OligonucleotideFragmenter extends
-		SwingWorker<List<Fragment>, Void> {
+		SwingWorker<List<Fragment>, Fragment> {
 
 	public static final int MIN_OLIGO_LENGTH = 2;
 	private FragmentationParameter parameter;
 	private OligonucleotideFragmentDialog dialog;
 
+	/** nucleotides of the input sequence, never modified */
+	private List<Nucleotide> nucleotides;
+	private MonomerStore monomerStore;
+
+	/**
+	 * weightSums[i] is the weight of the nucleotides before i, linkageSums[i]
+	 * the weight released by the linkages before nucleotide i, both for
+	 * nucleotides inside the chain. Null if the sequence contains monomers
+	 * the additive calculation does not support.
+	 */
+	private double[] weightSums;
+	private double[] linkageSums;
+
+	/**
+	 * a fragment as a range of the input nucleotides, where the first and
+	 * last nucleotide may be reduced to their linker or nucleoside
+	 */
+	private static final class Window {
+		private int start;
+		private int end;
+		private Nucleotide first;
+		private Nucleotide last;
+
+		int size() {
+			return end - start + 1;
+		}
+	}
+
 	public OligonucleotideFragmenter(OligonucleotideFragmentDialog dialog,
 			FragmentationParameter parameter) {
 		this.dialog = dialog;
@@ -65,58 +103,110 @@ public class OligonucleotideFragmenter extends
 
 	@Override
 	protected List<Fragment> doInBackground() throws Exception {
-		List<Fragment> fragments = new ArrayList<Fragment>();
 		String simpleNotation = parameter.getSimpleRNANotation();
 		boolean startFromFive = parameter.isStartFromFiveEnd();
 		boolean startFromThree = parameter.isStartFromThreeEnd();
 		int monomerNum = parameter.getMonomerNumber();
 		int step = parameter.getStep();
 
-		List<Nucleotide> nucleotides = SimpleNotationParser.getNucleotideList(
-				simpleNotation, false);
-		addNewFragment(fragments, 0, 0, getNotation(nucleotides));
+		if (!startFromFive && !startFromThree) {
+			throw new UnsupportedOperationException(
+					"Starting position for fragmentation is not provided");
+		}
+
+		nucleotides = SimpleNotationParser.getNucleotideList(simpleNotation,
+				false);
+		monomerStore = MonomerStoreCache.getInstance()
+				.getCombinedMonomerStore();
+		initWeightSums();
+
+		// the ladder only depends on the cut steps, evaluating a window is
+		// independent of the others
+		List<Window> windows = new ArrayList<Window>();
+		List<int[]> steps = new ArrayList<int[]>();
+		Window curWindow = cut(monomerNum, 0, 0);
+		windows.add(curWindow);
+		steps.add(new int[] { 0, 0 });
 
 		int currentStep = 1;
-		List<Nucleotide> curList = DeepCopy.copy(nucleotides);
-		String notation;
 		if (startFromFive && startFromThree) {
-			while (currentStep <= step && curList.size() > MIN_OLIGO_LENGTH) {
+			while (currentStep <= step && curWindow.size() > MIN_OLIGO_LENGTH) {
 				int fiveStep = 0;
-				int threeStep = 0;
 				while (fiveStep <= currentStep) {
-					threeStep = currentStep - fiveStep;
-					curList = cut(nucleotides, monomerNum, fiveStep, threeStep);
-					notation = getNotation(curList);
-					addNewFragment(fragments, fiveStep, threeStep, notation);
+					int threeStep = currentStep - fiveStep;
+					curWindow = cut(monomerNum, fiveStep, threeStep);
+					windows.add(curWindow);
+					steps.add(new int[] { fiveStep, threeStep });
 					fiveStep++;
 				}
 				currentStep++;
 			}
-
-		} else if (startFromFive && !startFromThree) {
-			while (currentStep <= step && curList.size() > MIN_OLIGO_LENGTH) {
-				curList = cut(nucleotides, monomerNum, currentStep, 0);
-				notation = getNotation(curList);
-				addNewFragment(fragments, currentStep, 0, notation);
+		} else if (startFromFive) {
+			while (currentStep <= step && curWindow.size() > MIN_OLIGO_LENGTH) {
+				curWindow = cut(monomerNum, currentStep, 0);
+				windows.add(curWindow);
+				steps.add(new int[] { currentStep, 0 });
 				currentStep++;
 			}
-		} else if (!startFromFive && startFromThree) {
-			while (currentStep <= step && curList.size() > MIN_OLIGO_LENGTH) {
-				curList = cut(nucleotides, monomerNum, 0, currentStep);
-				notation = getNotation(curList);
-				addNewFragment(fragments, 0, currentStep, notation);
+		} else {
+			while (currentStep <= step && curWindow.size() > MIN_OLIGO_LENGTH) {
+				curWindow = cut(monomerNum, 0, currentStep);
+				windows.add(curWindow);
+				steps.add(new int[] { 0, currentStep });
 				currentStep++;
 			}
-		} else {
-			throw new UnsupportedOperationException(
-					"Starting position for fragmentation is not provided");
 		}
 
-		return fragments;
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime
+				.getRuntime().availableProcessors());
+		try {
+			List<Future<Fragment>> futures = new ArrayList<Future<Fragment>>(
+					windows.size());
+			for (int i = 0; i < windows.size(); i++) {
+				final Window window = windows.get(i);
+				final int[] cutSteps = steps.get(i);
+				futures.add(executor.submit(new Callable<Fragment>() {
+					public Fragment call() throws Exception {
+						return createFragment(window, cutSteps[0], cutSteps[1]);
+					}
+				}));
+			}
+
+			List<Fragment> fragments = new ArrayList<Fragment>(futures.size());
+			for (Future<Fragment> future : futures) {
+				if (isCancelled()) {
+					break;
+				}
+				Fragment fragment;
+				try {
+					fragment = future.get();
+				} catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					throw (cause instanceof Exception) ? (Exception) cause : ex;
+				}
+				fragments.add(fragment);
+				publish(fragment);
+			}
+			return fragments;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	protected void process(List<Fragment> chunks) {
+		// done() installs the complete list
+		if (isCancelled() || isDone()) {
+			return;
+		}
+		dialog.addResults(chunks);
 	}
 
 	@Override
 	protected void done() {
+		if (isCancelled()) {
+			return;
+		}
 		try {
 			dialog.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
 			List<Fragment> list = get();
@@ -140,112 +230,184 @@ public class OligonucleotideFragmenter extends
 		return SimpleNotationParser.getComplextNotationForRNA(simpleNoation);
 	}
 
+	private String getNotation(Window window) throws NotationException,
+			MonomerException, StructureException, JDOMException, IOException {
+		List<Nucleotide> list = new ArrayList<Nucleotide>(window.size());
+		list.add(window.first);
+		if (window.size() > 1) {
+			list.addAll(nucleotides.subList(window.start + 1, window.end));
+			list.add(window.last);
+		}
+		return getNotation(list);
+	}
+
+	private Fragment createFragment(final Window window, int fiveEndStep,
+			int threeEndStep) throws NotationException, MonomerException,
+			StructureException, JDOMException, IOException, PluginException {
+		Fragment fragment = new Fragment();
+		fragment.setFiveEndStep(fiveEndStep);
+		fragment.setThreeEndStep(threeEndStep);
+		fragment.setNotationFactory(new Fragment.NotationFactory() {
+			public String createNotation() throws NotationException,
+					MonomerException, StructureException, JDOMException,
+					IOException {
+				return getNotation(window);
+			}
+		});
+
+		double molWeight = getMolWeight(window);
+		if (Double.isNaN(molWeight)) {
+			molWeight = getMolWeight(fragment.getNotation());
+		}
+		fragment.setMolWeight(molWeight);
+		return fragment;
+	}
+
 	private double getMolWeight(String notation) throws NotationException,
 			MonomerException, StructureException, JDOMException, IOException,
 			PluginException {
-		String smiles = ComplexNotationParser.getComplexPolymerSMILES(notation);
-		MoleculeInfo mi = StructureParser.getMoleculeInfo(smiles);
+		MoleculeInfo mi = MolecularPropertyCalculator.getInstance()
+				.getMoleculeInfo(notation);
 		return mi.getMolecularWeight();
 	}
 
-	private void addNewFragment(List<Fragment> list, int fiveEndStep,
-			int threeEndStep, String notation) throws NotationException,
+	private void initWeightSums() throws NotationException,
 			MonomerException, StructureException, JDOMException, IOException,
 			PluginException {
-		Fragment fragment = new Fragment();
-		fragment.setFiveEndStep(fiveEndStep);
-		fragment.setThreeEndStep(threeEndStep);
-		fragment.setNotation(notation);
-		fragment.setMolWeight(getMolWeight(notation));
-		list.add(fragment);
+		MolecularPropertyCalculator calculator = MolecularPropertyCalculator
+				.getInstance();
+		int size = nucleotides.size();
+		double[] weights = new double[size + 1];
+		double[] linkages = new double[size];
+		for (int i = 0; i < size; i++) {
+			double weight = calculator.getNucleotideWeight(nucleotides.get(i),
+					false, false, monomerStore);
+			weights[i + 1] = weights[i] + weight;
+			if (i + 1 < size) {
+				double linkage = calculator.getLinkageWeight(
+						nucleotides.get(i), false, nucleotides.get(i + 1),
+						false, monomerStore);
+				linkages[i + 1] = linkages[i] + linkage;
+			}
+		}
+		if (Double.isNaN(weights[size])
+				|| (size > 1 && Double.isNaN(linkages[size - 1]))) {
+			return;
+		}
+		weightSums = weights;
+		linkageSums = linkages;
 	}
 
-	private List<Nucleotide> cut(List<Nucleotide> list, int monomerNumPerStep,
-			int fiveEndStep, int threeEndStep) throws NotationException,
+	/**
+	 * weight of a window from the prefix sums, the chain ends are computed
+	 * with the nucleotides of the window
+	 * 
+	 * @return weight or NaN if the additive calculation is not supported
+	 */
+	private double getMolWeight(Window window) throws NotationException,
 			MonomerException, StructureException, JDOMException, IOException,
-			PluginException, ClassNotFoundException {
-		List<Nucleotide> curList = DeepCopy.copy(list);
+			PluginException {
+		if (weightSums == null) {
+			return Double.NaN;
+		}
+
+		MolecularPropertyCalculator calculator = MolecularPropertyCalculator
+				.getInstance();
+		if (window.size() == 1) {
+			return calculator.getNucleotideWeight(window.first, true, true,
+					monomerStore);
+		}
+
+		double weight = calculator.getNucleotideWeight(window.first, true,
+				false, monomerStore)
+				+ calculator.getNucleotideWeight(window.last, false, true,
+						monomerStore);
+		if (window.size() == 2) {
+			return weight
+					- calculator.getLinkageWeight(window.first, true,
+							window.last, true, monomerStore);
+		}
+
+		int start = window.start;
+		int end = window.end;
+		weight += weightSums[end] - weightSums[start + 1];
+		weight -= calculator.getLinkageWeight(window.first, true,
+				nucleotides.get(start + 1), false, monomerStore);
+		weight -= linkageSums[end - 1] - linkageSums[start + 1];
+		weight -= calculator.getLinkageWeight(nucleotides.get(end - 1),
+				false, window.last, true, monomerStore);
+		return weight;
+	}
+
+	/**
+	 * Removes backbone monomers from the ends of the sequence. The window
+	 * keeps at least MIN_OLIGO_LENGTH nucleotides, so the nucleotides next to
+	 * a cut end are always taken from the unmodified input.
+	 */
+	private Window cut(int monomerNumPerStep, int fiveEndStep,
+			int threeEndStep) throws NotationException, MonomerException,
+			StructureException, JDOMException, IOException {
+		Window window = new Window();
+		window.start = 0;
+		window.end = nucleotides.size() - 1;
+		window.first = nucleotides.get(window.start);
+		window.last = nucleotides.get(window.end);
 
 		// 5' end cutting
 		int currentStep = 0;
-		while (currentStep < fiveEndStep && curList.size() > MIN_OLIGO_LENGTH) {
-			Monomer sugarMonomer = curList.get(0).getSugarMonomer();
-			boolean isFiveComplete = (null != sugarMonomer) ? true : false;
+		while (currentStep < fiveEndStep && window.size() > MIN_OLIGO_LENGTH) {
+			boolean isFiveComplete = null != window.first.getSugarMonomer();
+			if (monomerNumPerStep != 1 && monomerNumPerStep != 2) {
+				throw new UnsupportedOperationException(
+						"Number of backbone monomer to remove per step can only be 1 or 2");
+			}
 			if (isFiveComplete) {
 				if (monomerNumPerStep == 1) {
-					String newNotation = curList.get(0).getLinkerNotation();
-					Nucleotide nuc = new Nucleotide(newNotation,
+					window.first = new Nucleotide(
+							window.first.getLinkerNotation(),
 							Nucleotide.STARTING_POSITION_TYPE);
-					curList.remove(0);
-					curList.add(0, nuc);
-				} else if (monomerNumPerStep == 2) {
-					curList.remove(0);
 				} else {
-					throw new UnsupportedOperationException(
-							"Number of backbone monomer to remove per step can only be 1 or 2");
+					window.first = nucleotides.get(++window.start);
 				}
 			} else {
-				if (monomerNumPerStep == 1) {
-					curList.remove(0);
-				} else if (monomerNumPerStep == 2) {
-					curList.remove(0);
-
-					String newNotation = curList.get(0).getLinkerNotation();
-					Nucleotide nuc = new Nucleotide(newNotation,
+				window.first = nucleotides.get(++window.start);
+				if (monomerNumPerStep == 2) {
+					window.first = new Nucleotide(
+							window.first.getLinkerNotation(),
 							Nucleotide.STARTING_POSITION_TYPE);
-					curList.remove(0);
-					curList.add(0, nuc);
-				} else {
-					throw new UnsupportedOperationException(
-							"Number of backbone monomer to remove per step can only be 1 or 2");
 				}
-
 			}
 			currentStep++;
 		}
 
 		// 3' end cutting
 		currentStep = 0;
-		while (currentStep < threeEndStep && curList.size() > MIN_OLIGO_LENGTH) {
-			int index = curList.size() - 1;
-			Monomer pMonomer = curList.get(index).getPhosphateMonomer();
-			boolean isThreeComplete = (null != pMonomer) ? true : false;
+		while (currentStep < threeEndStep && window.size() > MIN_OLIGO_LENGTH) {
+			boolean isThreeComplete = null != window.last
+					.getPhosphateMonomer();
+			if (monomerNumPerStep != 1 && monomerNumPerStep != 2) {
+				throw new UnsupportedOperationException(
+						"Number of backbone monomer to remove per step can only be 1 or 2");
+			}
 			if (isThreeComplete) {
 				if (monomerNumPerStep == 1) {
-					String newNotation = curList.get(index)
-							.getNucleosideNotation();
-					Nucleotide nuc = new Nucleotide(newNotation,
+					window.last = new Nucleotide(
+							window.last.getNucleosideNotation(),
 							Nucleotide.ENDING_POSITION_TYPE);
-					curList.remove(index);
-					curList.add(index, nuc);
-				} else if (monomerNumPerStep == 2) {
-					curList.remove(index);
 				} else {
-					throw new UnsupportedOperationException(
-							"Number of backbone monomer to remove per step can only be 1 or 2");
+					window.last = nucleotides.get(--window.end);
 				}
 			} else {
-				if (monomerNumPerStep == 1) {
-					curList.remove(index);
-				} else if (monomerNumPerStep == 2) {
-					curList.remove(index);
-
-					index = curList.size() - 1;
-					String newNotation = curList.get(index)
-							.getNucleosideNotation();
-					Nucleotide nuc = new Nucleotide(newNotation,
+				window.last = nucleotides.get(--window.end);
+				if (monomerNumPerStep == 2) {
+					window.last = new Nucleotide(
+							window.last.getNucleosideNotation(),
 							Nucleotide.ENDING_POSITION_TYPE);
-					curList.remove(index);
-					curList.add(index, nuc);
-				} else {
-					throw new UnsupportedOperationException(
-							"Number of backbone monomer to remove per step can only be 1 or 2");
 				}
-
 			}
 			currentStep++;
 		}
 
-		return curList;
+		return window;
 	}
 }
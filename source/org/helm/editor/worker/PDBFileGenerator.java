@@ -83,8 +83,11 @@ public class PDBFileGenerator extends SwingWorker<String, Void> {
 	 * Requires the installation of OpenBabelGui application on Windows, which
 	 * can be freely downloaded and installed from http://openbabel.org Also,
 	 * the installed application needs to be on the system path
+	 * 
+	 * OpenBabel is not thread-safe and the Gen3D plugin is a shared instance,
+	 * so conversions are serialized.
 	 */
-	public static String SMILES2OpenBabelPDB(String smiles) {
+	public static synchronized String SMILES2OpenBabelPDB(String smiles) {
 
 		System.loadLibrary("openbabel_java");
 
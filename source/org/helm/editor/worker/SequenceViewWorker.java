@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.worker;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import org.jdesktop.swingworker.SwingWorker;
+
+import org.helm.editor.componentPanel.SequenceViewPanes;
+import org.helm.editor.componentPanel.componentviewpanel.SequenceTableDataModel;
+import org.helm.editor.componentPanel.componentviewpanel.SequenceTableModel;
+import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewController;
+import org.helm.editor.componentPanel.sequenceviewpanel.SequenceViewGraph;
+import org.helm.editor.data.NotationUpdateEvent;
+import org.helm.editor.data.ParsedNotation;
+import org.helm.editor.utility.CancellationToken;
+import org.helm.editor.utility.ExceptionHandler;
+
+/**
+ * Parses a notation update and builds the sequence view and the component
+ * table rows of {@link SequenceViewPanes} off the event dispatch thread. The
+ * panes only swap the results in when the worker is done.
+ * 
+ * The work stops early once the cancellation token reports that a newer
+ * notation update has been fired.
+ */
+public class SequenceViewWorker extends
+		SwingWorker<SequenceViewWorker.Result, Void> {
+
+	private final SequenceViewPanes panes;
+	private final SequenceViewController sequenceViewController;
+	private final NotationUpdateEvent event;
+	private final CancellationToken cancellationToken;
+
+	/**
+	 * @param panes
+	 * @param sequenceViewController
+	 *            controller of the sequence view, only used to build a graph
+	 *            that is not shown yet
+	 * @param event
+	 *            the update to show. Its parsed notation is shared with the
+	 *            other listeners of the event.
+	 * @param cancellationToken
+	 */
+	public SequenceViewWorker(SequenceViewPanes panes,
+			SequenceViewController sequenceViewController,
+			NotationUpdateEvent event, CancellationToken cancellationToken) {
+		this.panes = panes;
+		this.sequenceViewController = sequenceViewController;
+		this.event = event;
+		this.cancellationToken = cancellationToken;
+	}
+
+	@Override
+	protected Result doInBackground() throws Exception {
+		cancellationToken.checkCancelled();
+		ParsedNotation parsedNotation = event.getParsedNotation();
+
+		// the two views fail independently, as they did when they were
+		// filled on the event dispatch thread
+		Result result = new Result();
+		cancellationToken.checkCancelled();
+		try {
+			result.graph = sequenceViewController.buildGraph(parsedNotation);
+		} catch (Exception ex) {
+			result.graphException = ex;
+		}
+
+		cancellationToken.checkCancelled();
+		try {
+			result.rows = SequenceTableModel.createData(parsedNotation);
+		} catch (Exception ex) {
+			result.rowsException = ex;
+		}
+		return result;
+	}
+
+	@Override
+	protected void done() {
+		Result result = null;
+		if (!isCancelled()) {
+			try {
+				result = get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException ex) {
+				// a cancelled worker has been superseded by a newer update
+				Throwable cause = ex.getCause();
+				if (!(cause instanceof CancellationException)) {
+					ExceptionHandler
+							.handleException(cause instanceof Exception ? (Exception) cause
+									: ex);
+				}
+			}
+		}
+		panes.sequenceViewBuilt(this, result);
+	}
+
+	/**
+	 * The built sequence view and component table rows. Either may be missing
+	 * if building it failed.
+	 */
+	public static class Result {
+
+		private SequenceViewGraph graph;
+		private Exception graphException;
+		private List<SequenceTableDataModel> rows;
+		private Exception rowsException;
+
+		/**
+		 * @return the laid out sequence view graph, null if it failed
+		 */
+		public SequenceViewGraph getGraph() {
+			return graph;
+		}
+
+		public Exception getGraphException() {
+			return graphException;
+		}
+
+		/**
+		 * @return the component table rows, null if they failed
+		 */
+		public List<SequenceTableDataModel> getRows() {
+			return rows;
+		}
+
+		public Exception getRowsException() {
+			return rowsException;
+		}
+	}
+}
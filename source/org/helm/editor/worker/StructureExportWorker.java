@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.helm.editor.worker;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.Timer;
+
+import org.jdesktop.swingworker.SwingWorker;
+
+import org.helm.editor.utility.ExceptionHandler;
+import org.helm.notation.tools.ComplexNotationParser;
+
+/**
+ * Writes the components of a notation to a file, one record per component.
+ * The components are converted in parallel on a bounded pool, while the
+ * records are written in component order as soon as they are ready. Only a
+ * few converted records are held in memory at a time, independent of the
+ * number of components. A progress monitor shows the written records and
+ * lets the user cancel the export. The records are written to a temporary
+ * file that replaces the chosen file only when the export is complete.
+ */
+public class StructureExportWorker extends SwingWorker<Integer, Void> {
+
+	/**
+	 * converts a single component to the text of its record
+	 */
+	public interface RecordConverter {
+		/**
+		 * @param notation
+		 *            component notation
+		 * @param index
+		 *            position of the component, starting with 0
+		 * @return record text including its terminator
+		 */
+		String convert(String notation, int index) throws Exception;
+	}
+
+	private final Component parent;
+	private final String notation;
+	private final File file;
+	private final RecordConverter converter;
+	private final String textType;
+	private final ProgressMonitor progressMonitor;
+	private final Timer cancelTimer;
+
+	/**
+	 * @param parent
+	 *            owner of the progress monitor and messages
+	 * @param notation
+	 *            complex notation, decomposed in the background
+	 * @param file
+	 * @param converter
+	 * @param textType
+	 *            name of the format, used in messages
+	 */
+	public StructureExportWorker(Component parent, String notation,
+			File file, RecordConverter converter, String textType) {
+		this.parent = parent;
+		this.notation = notation;
+		this.file = file;
+		this.converter = converter;
+		this.textType = textType;
+
+		progressMonitor = new ProgressMonitor(parent, getTitle(), "Writing "
+				+ file.getName(), 0, 100);
+		progressMonitor.setMillisToDecideToPopup(200);
+		addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				if ("progress".equals(evt.getPropertyName())) {
+					progressMonitor.setProgress((Integer) evt.getNewValue());
+				}
+			}
+		});
+
+		// a single slow record does not update the progress, so the cancel
+		// button is polled
+		cancelTimer = new Timer(250, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if (progressMonitor.isCanceled()) {
+					cancel(true);
+				}
+			}
+		});
+		cancelTimer.start();
+	}
+
+	private String getTitle() {
+		return "Save " + textType + " File";
+	}
+
+	@Override
+	protected Integer doInBackground() throws Exception {
+		final String[] notations = ComplexNotationParser.decompose(notation);
+
+		// the records go to a temporary file next to the target, which
+		// replaces the target only once all records are written; an existing
+		// file is left alone if the export fails or is cancelled
+		File directory = file.getAbsoluteFile().getParentFile();
+		File partialFile = File.createTempFile(file.getName() + ".", ".part",
+				directory);
+
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "StructureExportWorker-"
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		// records in flight, in component order
+		LinkedList<Future<String>> pending = new LinkedList<Future<String>>();
+		int maxPending = threadCount * 2;
+		int submitted = 0;
+		int written = 0;
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(partialFile)));
+		// the partial file is deleted here, once the writer is closed; done()
+		// runs as soon as the worker is cancelled, while the file may still
+		// be open
+		boolean complete = false;
+		try {
+			try {
+				while (written < notations.length) {
+					while (submitted < notations.length
+							&& pending.size() < maxPending) {
+						final int index = submitted++;
+						pending.add(executor.submit(new Callable<String>() {
+							public String call() throws Exception {
+								return converter.convert(notations[index],
+										index);
+							}
+						}));
+					}
+
+					if (isCancelled()) {
+						throw new CancellationException();
+					}
+
+					String record;
+					try {
+						record = pending.removeFirst().get();
+					} catch (ExecutionException ex) {
+						Throwable cause = ex.getCause();
+						throw (cause instanceof Exception) ? (Exception) cause
+								: ex;
+					}
+					writer.write(record);
+					written++;
+					setProgress(100 * written / notations.length);
+				}
+			} finally {
+				executor.shutdownNow();
+				writer.close();
+			}
+			replaceFile(partialFile);
+			complete = true;
+		} finally {
+			if (!complete) {
+				deletePartialFile(partialFile);
+			}
+		}
+		return written;
+	}
+
+	private void replaceFile(File partialFile) throws IOException {
+		try {
+			Files.move(partialFile.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(partialFile.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	@Override
+	protected void done() {
+		cancelTimer.stop();
+		progressMonitor.close();
+		if (isCancelled()) {
+			return;
+		}
+
+		try {
+			get();
+			JOptionPane.showMessageDialog(parent, textType
+					+ " saved successfully to " + file, getTitle(),
+					JOptionPane.INFORMATION_MESSAGE);
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			ExceptionHandler
+					.handleException((cause instanceof Exception) ? (Exception) cause
+							: ex);
+		} catch (InterruptedException ex) {
+			Logger.getLogger(StructureExportWorker.class.getName()).log(
+					Level.WARNING, null, ex);
+		}
+	}
+
+	private void deletePartialFile(File partialFile) {
+		if (partialFile.exists() && !partialFile.delete()) {
+			Logger.getLogger(StructureExportWorker.class.getName()).log(
+					Level.WARNING, "unable to delete " + partialFile);
+		}
+	}
+}